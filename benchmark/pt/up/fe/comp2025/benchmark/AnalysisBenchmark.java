@@ -0,0 +1,46 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link JmmAnalysisImpl#semanticAnalysis}, including the symbol table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({BenchmarkCorpus.CORPUS, "inputs/Lazysort.jmm", "synthetic-10000-2000"})
+    public String input;
+
+    private List<String> sources;
+    private List<JmmParserResult> parserResults;
+    private JmmAnalysisImpl analysis;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sources = BenchmarkCorpus.load(input);
+        analysis = new JmmAnalysisImpl();
+    }
+
+    // Analysis annotates the AST, each invocation gets a fresh one
+    @Setup(Level.Invocation)
+    public void parse() {
+        parserResults = BenchmarkCorpus.parse(sources);
+    }
+
+    @Benchmark
+    public void semanticAnalysis(Blackhole blackhole) {
+        for (var parserResult : parserResults)
+            blackhole.consume(analysis.semanticAnalysis(parserResult));
+    }
+}
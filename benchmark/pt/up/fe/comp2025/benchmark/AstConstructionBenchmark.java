@@ -0,0 +1,62 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp.jmm.ast.antlr.AntlrToJmmNodeConverter;
+import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.comp2025.parser.JmmAstBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of the conversion from the ANTLR parse tree to the JmmNode AST, with the reflective
+ * {@link AntlrToJmmNodeConverter} and with {@link JmmAstBuilder}.
+ * <p>
+ * The parse trees are built once, so only the conversion is measured. The "gc.alloc.rate.norm" column of the gc
+ * profiler is the memory allocated by each conversion; the converter also keeps a map from every parse tree node to
+ * its JmmNode until it finishes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AstConstructionBenchmark {
+
+    @Param({BenchmarkCorpus.CORPUS, "synthetic-10000-2000"})
+    public String input;
+
+    @Param({"reflection", "direct"})
+    public String builder;
+
+    private List<ParseTree> trees;
+    private List<JavammParser> parsers;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        trees = new ArrayList<>();
+        parsers = new ArrayList<>();
+
+        for (var source : BenchmarkCorpus.load(input)) {
+            var parser = new JavammParser(new CommonTokenStream(new JavammLexer(new ANTLRInputStream(source))));
+            trees.add(parser.program());
+            parsers.add(parser);
+        }
+    }
+
+    @Benchmark
+    public void build(Blackhole blackhole) {
+        for (int i = 0; i < trees.size(); i++) {
+            var tree = trees.get(i);
+            blackhole.consume(builder.equals("direct") ? JmmAstBuilder.build(tree)
+                    : AntlrToJmmNodeConverter.convert(tree, parsers.get(i)));
+        }
+    }
+}
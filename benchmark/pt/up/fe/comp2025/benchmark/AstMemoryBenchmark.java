@@ -0,0 +1,119 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.comp2025.ast.ArenaTree;
+import pt.up.fe.comp2025.parser.JmmAstBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory and traversal time of the AST stored as {@link JmmNodeImpl} nodes and in an {@link ArenaTree}.
+ * <p>
+ * "build" converts the parse trees, its "gc.alloc.rate.norm" is the memory allocated by the conversion. "traverse"
+ * visits every node of the ASTs as the analysis passes do, reading the kind, the children and an attribute. The
+ * memory kept by the ASTs once built, per node, is printed at the start of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AstMemoryBenchmark {
+
+    // Copies of the ASTs kept to measure the memory, so that small inputs are above the noise of the heap
+    private static final int MEASURED_NODES = 500_000;
+
+    @Param({BenchmarkCorpus.CORPUS, "synthetic-10000-2000"})
+    public String input;
+
+    @Param({"nodes", "arena"})
+    public String storage;
+
+    private List<ParseTree> trees;
+    private List<JmmNode> roots;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        trees = new ArrayList<>();
+        for (var source : BenchmarkCorpus.load(input))
+            trees.add(new JavammParser(new CommonTokenStream(new JavammLexer(new ANTLRInputStream(source)))).program());
+
+        roots = buildAll();
+
+        long nodes = 0;
+        for (var root : roots)
+            nodes += countNodes(root);
+
+        int copies = (int) Math.max(1, MEASURED_NODES / nodes);
+        var kept = new ArrayList<List<JmmNode>>(copies);
+
+        long before = getUsedHeap();
+        for (int i = 0; i < copies; i++)
+            kept.add(buildAll());
+        long after = getUsedHeap();
+
+        System.out.printf("%n%s, %s: %d nodes, %.1f bytes per node%n", input, storage, nodes,
+                (double) (after - before) / (nodes * kept.size()));
+    }
+
+    private List<JmmNode> buildAll() {
+        var compact = storage.equals("arena");
+
+        var built = new ArrayList<JmmNode>(trees.size());
+        for (var tree : trees)
+            built.add(JmmAstBuilder.build(tree, compact));
+
+        return built;
+    }
+
+    private static long countNodes(JmmNode node) {
+        long count = 1;
+        for (int i = 0; i < node.getNumChildren(); i++)
+            count += countNodes(node.getChild(i));
+
+        return count;
+    }
+
+    private static long getUsedHeap() {
+        var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public void build(Blackhole blackhole) {
+        blackhole.consume(buildAll());
+    }
+
+    @Benchmark
+    public long traverse() {
+        long visited = 0;
+        for (var root : roots)
+            visited += visit(root);
+
+        return visited;
+    }
+
+    // Same accesses as a visitor that dispatches on the kind and reads the name of the node
+    private static long visit(JmmNode node) {
+        long visited = node.getKind().length() + (node.hasAttribute("name") ? 1 : 0);
+
+        for (var child : node.getChildren())
+            visited += visit(child);
+
+        return visited;
+    }
+}
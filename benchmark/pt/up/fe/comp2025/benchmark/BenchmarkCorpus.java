@@ -0,0 +1,129 @@
+package pt.up.fe.comp2025.benchmark;
+
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.backend.JasminGenerator;
+import pt.up.fe.comp2025.optimization.BuiltOllir;
+import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inputs of the benchmarks, selected by name:
+ * <ul>
+ *     <li>{@code corpus}: every jmm file in 'test' and 'inputs' that compiles without errors;</li>
+ *     <li>{@code synthetic-<statements>-<locals>}: a generated method, see {@link JmmProgramGenerator};</li>
+ *     <li>otherwise, the path of a single jmm file.</li>
+ * </ul>
+ * Benchmarks are expected to run from the root of the project.
+ */
+public class BenchmarkCorpus {
+
+    public static final String CORPUS = "corpus";
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+    private static final String[] CORPUS_FOLDERS = {"test", "inputs"};
+
+    public static Map<String, String> newConfig() {
+        return CompilerConfig.getDefault();
+    }
+
+    public static List<String> load(String name) {
+        if (name.equals(CORPUS))
+            return loadCorpus();
+
+        if (name.startsWith(SYNTHETIC_PREFIX)) {
+            var sizes = name.substring(SYNTHETIC_PREFIX.length()).split("-");
+            var generator = new JmmProgramGenerator()
+                    .setStatements(Integer.parseInt(sizes[0]))
+                    .setLiveVariables(Integer.parseInt(sizes[1]));
+
+            return List.of(generator.generate());
+        }
+
+        var file = new File(name);
+        if (!file.isFile())
+            throw new RuntimeException("Could not find benchmark input '" + name + "'");
+
+        return List.of(SpecsIo.read(file));
+    }
+
+    public static List<JmmParserResult> parse(List<String> sources) {
+        var parser = new JmmParserImpl();
+        var results = new ArrayList<JmmParserResult>();
+
+        for (var source : sources)
+            results.add(parser.parse(source, newConfig()));
+
+        return results;
+    }
+
+    public static List<JmmSemanticsResult> analyze(List<String> sources) {
+        var analysis = new JmmAnalysisImpl();
+        var results = new ArrayList<JmmSemanticsResult>();
+
+        for (var parserResult : parse(sources))
+            results.add(analysis.semanticAnalysis(parserResult));
+
+        return results;
+    }
+
+    public static List<BuiltOllir> toOllir(List<String> sources) {
+        var results = new ArrayList<BuiltOllir>();
+
+        for (var semanticsResult : analyze(sources))
+            results.add(new JmmOptimizationImpl().build(semanticsResult));
+
+        return results;
+    }
+
+    private static List<String> loadCorpus() {
+        var sources = new ArrayList<String>();
+
+        for (var folder : CORPUS_FOLDERS) {
+            for (var file : SpecsIo.getFilesRecursive(new File(folder), "jmm")) {
+                var source = SpecsIo.read(file);
+                if (compiles(source))
+                    sources.add(source);
+            }
+        }
+
+        if (sources.isEmpty())
+            throw new RuntimeException("No jmm files found in " + List.of(CORPUS_FOLDERS) + ", run the benchmarks from the root of the project");
+
+        return sources;
+    }
+
+    // Test resources include programs with intentional errors, which are not part of the corpus
+    private static boolean compiles(String source) {
+        try {
+            var parserResult = new JmmParserImpl().parse(source, newConfig());
+            if (hasErrors(parserResult.getReports()))
+                return false;
+
+            var semanticsResult = new JmmAnalysisImpl().semanticAnalysis(parserResult);
+            if (hasErrors(semanticsResult.getReports()))
+                return false;
+
+            var builtOllir = new JmmOptimizationImpl().build(semanticsResult);
+            var generator = new JasminGenerator(builtOllir.getOllirClass(), builtOllir.getConfig());
+            generator.build();
+
+            return !hasErrors(generator.getReports());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean hasErrors(List<Report> reports) {
+        return reports.stream().anyMatch(report -> report.getType() == ReportType.ERROR);
+    }
+}
@@ -0,0 +1,38 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp2025.backend.JasminGenerator;
+import pt.up.fe.comp2025.optimization.BuiltOllir;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link JasminGenerator#build}, from the OLLIR class to Jasmin code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JasminGenerationBenchmark {
+
+    @Param({BenchmarkCorpus.CORPUS, "inputs/Lazysort.jmm", "synthetic-10000-2000"})
+    public String input;
+
+    private List<BuiltOllir> ollirResults;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ollirResults = BenchmarkCorpus.toOllir(BenchmarkCorpus.load(input));
+    }
+
+    @Benchmark
+    public void build(Blackhole blackhole) {
+        // The generator caches its result, a new one is needed for each build
+        for (var ollirResult : ollirResults)
+            blackhole.consume(new JasminGenerator(ollirResult.getOllirClass(), ollirResult.getConfig()).build());
+    }
+}
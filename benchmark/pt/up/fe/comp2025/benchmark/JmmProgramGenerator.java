@@ -0,0 +1,251 @@
+package pt.up.fe.comp2025.benchmark;
+
+import java.util.Random;
+
+/**
+ * Generates valid jmm programs of configurable size, for stress and scaling tests.
+ * <p>
+ * Each generated method declares a number of int locals that are all used by the return value, so that they are
+ * live at the same time, and a number of int arrays. The body is a sequence of assignments, nested if-else
+ * statements and counted while loops. Programs use only constant array indexes and no division, so they also run
+ * without exceptions.
+ */
+public class JmmProgramGenerator {
+
+    private static final String CLASS_NAME = "Synthetic";
+    private static final int ARRAY_SIZE = 16;
+    private static final int LOOP_ITERATIONS = 4;
+
+    private int methods;
+    private int statements;
+    private int nestingDepth;
+    private int liveVariables;
+    private int arrays;
+    private long seed;
+
+    private Random random;
+    private StringBuilder code;
+    private int remaining;
+
+    public JmmProgramGenerator() {
+        this.methods = 1;
+        this.statements = 100;
+        this.nestingDepth = 0;
+        this.liveVariables = 10;
+        this.arrays = 0;
+        this.seed = 0;
+    }
+
+    public int getMethods() {
+        return methods;
+    }
+
+    public JmmProgramGenerator setMethods(int methods) {
+        this.methods = Math.max(1, methods);
+        return this;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * @param statements number of statements of each method, not counting declarations and initializations
+     */
+    public JmmProgramGenerator setStatements(int statements) {
+        this.statements = Math.max(0, statements);
+        return this;
+    }
+
+    public int getNestingDepth() {
+        return nestingDepth;
+    }
+
+    /**
+     * @param nestingDepth maximum depth of nested if-else and while statements, 0 for straight-line code
+     */
+    public JmmProgramGenerator setNestingDepth(int nestingDepth) {
+        this.nestingDepth = Math.max(0, nestingDepth);
+        return this;
+    }
+
+    public int getLiveVariables() {
+        return liveVariables;
+    }
+
+    /**
+     * @param liveVariables number of int locals of each method, all live until the end of the method
+     */
+    public JmmProgramGenerator setLiveVariables(int liveVariables) {
+        this.liveVariables = Math.max(1, liveVariables);
+        return this;
+    }
+
+    public int getArrays() {
+        return arrays;
+    }
+
+    /**
+     * @param arrays number of int array locals of each method
+     */
+    public JmmProgramGenerator setArrays(int arrays) {
+        this.arrays = Math.max(0, arrays);
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public JmmProgramGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public String generate() {
+        random = new Random(seed);
+        code = new StringBuilder();
+
+        code.append("class ").append(CLASS_NAME).append(" {\n\n");
+
+        for (int i = 0; i < methods; i++)
+            generateMethod(i);
+
+        code.append("    public static void main(String[] args) {\n");
+        code.append("        ").append(CLASS_NAME).append(" s;\n");
+        code.append("        int r;\n");
+        code.append("        s = new ").append(CLASS_NAME).append("();\n");
+        code.append("        r = s.m0(1);\n");
+        code.append("    }\n");
+        code.append("}\n");
+
+        return code.toString();
+    }
+
+    private void generateMethod(int index) {
+        code.append("    public int m").append(index).append("(int n) {\n");
+
+        // Declarations
+        for (int i = 0; i < liveVariables; i++)
+            line(2, "int v" + i + ";");
+        for (int i = 0; i < arrays; i++)
+            line(2, "int[] a" + i + ";");
+        for (int i = 0; i < nestingDepth; i++)
+            line(2, "int c" + i + ";");
+        line(2, "int s;");
+        code.append("\n");
+
+        // Initializations
+        line(2, "v0 = n;");
+        for (int i = 1; i < liveVariables; i++)
+            line(2, "v" + i + " = v" + (i - 1) + " + " + i + ";");
+        for (int i = 0; i < arrays; i++)
+            line(2, "a" + i + " = new int[" + ARRAY_SIZE + "];");
+        code.append("\n");
+
+        // A call to the next method halfway through keeps the methods connected, without recursion
+        remaining = statements;
+        boolean callsNext = index + 1 < methods;
+        while (remaining > 0) {
+            if (callsNext && remaining <= statements / 2) {
+                line(2, var() + " = this.m" + (index + 1) + "(" + var() + ");");
+                remaining--;
+                callsNext = false;
+                continue;
+            }
+
+            generateStatement(2, 0);
+        }
+        code.append("\n");
+
+        // Every local is used here, so all of them are live until the end
+        line(2, "s = 0;");
+        for (int i = 0; i < liveVariables; i++)
+            line(2, "s = s + v" + i + ";");
+        for (int i = 0; i < arrays; i++)
+            line(2, "s = s + a" + i + "[0];");
+        line(2, "return s;");
+
+        code.append("    }\n\n");
+    }
+
+    private void generateStatement(int indent, int depth) {
+        remaining--;
+
+        int choice = random.nextInt(10);
+
+        if (depth < nestingDepth && choice == 0) {
+            generateIf(indent, depth);
+            return;
+        }
+
+        if (depth < nestingDepth && choice == 1) {
+            generateWhile(indent, depth);
+            return;
+        }
+
+        if (arrays > 0 && choice < 4) {
+            if (random.nextBoolean())
+                line(indent, array() + "[" + index() + "] = " + var() + " + " + array() + "[" + index() + "];");
+            else
+                line(indent, var() + " = " + array() + "[" + index() + "] * " + constant() + ";");
+            return;
+        }
+
+        switch (random.nextInt(3)) {
+            case 0 -> line(indent, var() + " = " + var() + " + " + var() + ";");
+            case 1 -> line(indent, var() + " = " + var() + " * " + constant() + " - " + var() + ";");
+            default -> line(indent, var() + " = " + var() + " + " + constant() + ";");
+        }
+    }
+
+    private void generateIf(int indent, int depth) {
+        line(indent, "if (" + var() + " < " + var() + ") {");
+        generateBlock(indent + 1, depth + 1);
+        line(indent, "} else {");
+        generateBlock(indent + 1, depth + 1);
+        line(indent, "}");
+    }
+
+    private void generateWhile(int indent, int depth) {
+        var counter = "c" + depth;
+
+        line(indent, counter + " = 0;");
+        line(indent, "while (" + counter + " < " + LOOP_ITERATIONS + ") {");
+        generateBlock(indent + 1, depth + 1);
+        line(indent + 1, counter + " = " + counter + " + 1;");
+        line(indent, "}");
+    }
+
+    private void generateBlock(int indent, int depth) {
+        // At least one statement per block, so blocks are never empty
+        int blockStatements = 1 + random.nextInt(3);
+
+        for (int i = 0; i < blockStatements; i++) {
+            if (i > 0 && remaining <= 0)
+                break;
+
+            generateStatement(indent, depth);
+        }
+    }
+
+    private void line(int indent, String statement) {
+        code.append("    ".repeat(indent)).append(statement).append("\n");
+    }
+
+    private String var() {
+        return "v" + random.nextInt(liveVariables);
+    }
+
+    private String array() {
+        return "a" + random.nextInt(arrays);
+    }
+
+    private int index() {
+        return random.nextInt(ARRAY_SIZE);
+    }
+
+    private int constant() {
+        return 1 + random.nextInt(9);
+    }
+}
@@ -0,0 +1,39 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp2025.optimization.OllirGeneratorVisitor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link OllirGeneratorVisitor}, from the annotated AST to the OLLIR class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OllirGenerationBenchmark {
+
+    @Param({BenchmarkCorpus.CORPUS, "inputs/Lazysort.jmm", "synthetic-10000-2000"})
+    public String input;
+
+    private List<JmmSemanticsResult> semanticsResults;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        semanticsResults = BenchmarkCorpus.analyze(BenchmarkCorpus.load(input));
+    }
+
+    @Benchmark
+    public void generateOllir(Blackhole blackhole) {
+        for (var semanticsResult : semanticsResults) {
+            var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable());
+            blackhole.consume(visitor.build(semanticsResult.getRootNode()));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link JmmParserImpl#parse}, from source code to AST.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({BenchmarkCorpus.CORPUS, "inputs/Lazysort.jmm", "synthetic-10000-2000"})
+    public String input;
+
+    private List<String> sources;
+    private Map<String, String> config;
+    private JmmParserImpl parser;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sources = BenchmarkCorpus.load(input);
+        config = BenchmarkCorpus.newConfig();
+        parser = new JmmParserImpl();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (var source : sources)
+            blackhole.consume(parser.parse(source, config));
+    }
+}
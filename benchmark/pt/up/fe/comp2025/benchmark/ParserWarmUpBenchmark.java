@@ -0,0 +1,57 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.comp2025.parser.ParserCache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first parse after the parser cache is cleared, with and without {@link ParserCache#warmUp()}.
+ * <p>
+ * Each invocation starts from an empty cache, so without the warm-up it measures a cold parse, as in a fresh
+ * process, while the JIT stays warm across invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(1)
+public class ParserWarmUpBenchmark {
+
+    @Param({"inputs/Lazysort.jmm", "synthetic-1000-100"})
+    public String input;
+
+    @Param({"false", "true"})
+    public boolean warmUp;
+
+    private String source;
+    private Map<String, String> config;
+    private JmmParserImpl parser;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<String> sources = BenchmarkCorpus.load(input);
+        source = sources.getFirst();
+        config = BenchmarkCorpus.newConfig();
+        parser = new JmmParserImpl();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCache() {
+        var cache = ParserCache.getInstance();
+        cache.clear();
+
+        if (warmUp)
+            cache.warmUp();
+    }
+
+    @Benchmark
+    public JmmParserResult firstParse() {
+        return parser.parse(source, config);
+    }
+}
@@ -0,0 +1,59 @@
+package pt.up.fe.comp2025.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp2025.optimization.BuiltOllir;
+import pt.up.fe.comp2025.optimization.InterferenceGraph;
+import pt.up.fe.comp2025.optimization.LivenessAnalysis;
+import pt.up.fe.comp2025.optimization.RegisterAllocation;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link LivenessAnalysis}, {@link InterferenceGraph} and {@link RegisterAllocation}, searching for
+ * the minimum number of registers as with option '-r=0'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegisterAllocationBenchmark {
+
+    // Building the interference graph is quadratic in the live variables, larger inputs can be given with -p
+    @Param({BenchmarkCorpus.CORPUS, "inputs/Lazysort.jmm", "synthetic-1000-100"})
+    public String input;
+
+    private List<BuiltOllir> ollirResults;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ollirResults = BenchmarkCorpus.toOllir(BenchmarkCorpus.load(input));
+
+        for (var ollirResult : ollirResults)
+            ollirResult.getOllirClass().buildCFGs();
+    }
+
+    // Registers are not updated, so the OLLIR can be reused between invocations
+    @Benchmark
+    public void allocateRegisters(Blackhole blackhole) {
+        for (var ollirResult : ollirResults) {
+            for (var method : ollirResult.getOllirClass().getMethods()) {
+                var livenessAnalysis = new LivenessAnalysis(method);
+                livenessAnalysis.analyze();
+
+                var interferenceGraph = new InterferenceGraph(livenessAnalysis.getOutMap(),
+                        livenessAnalysis.getDefMap(), method);
+                interferenceGraph.buildGraph();
+
+                int maxRegs = 0;
+                while (!new RegisterAllocation(interferenceGraph, maxRegs, method).graphColoring())
+                    maxRegs++;
+
+                blackhole.consume(maxRegs);
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package pt.up.fe.comp2025.benchmark;
+
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.backend.JasminGenerator;
+import pt.up.fe.comp2025.optimization.BuiltOllir;
+import pt.up.fe.comp2025.optimization.InterferenceGraph;
+import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2025.optimization.LivenessAnalysis;
+import pt.up.fe.comp2025.optimization.RegisterAllocation;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.comp2025.profiling.StageProfiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Compiles generated programs of increasing size and reports how the time of each stage grows with the size.
+ * <p>
+ * For each pair of consecutive sizes, the growth exponent of a stage is log(t2 / t1) / log(n2 / n1): about 1 for
+ * linear stages, about 2 for quadratic ones. Stages whose exponent is above the threshold are reported as
+ * super-linear.
+ * <p>
+ * Options (all optional):
+ * <ul>
+ *     <li>-vary=statements|live|methods|depth|arrays: the dimension that grows, default statements;</li>
+ *     <li>-sizes=n1,n2,...: values of that dimension;</li>
+ *     <li>-statements=n, -live=n, -methods=n, -depth=n, -arrays=n: the shape of the other dimensions;</li>
+ *     <li>-repeat=n: runs per size, the fastest one is kept;</li>
+ *     <li>-threshold=x: growth exponent above which a stage is super-linear;</li>
+ *     <li>-csv=path: also writes the measurements as CSV;</li>
+ *     <li>-fail: exits with an error code if a stage is super-linear.</li>
+ * </ul>
+ */
+public class ScalingHarness {
+
+    private static final List<String> STAGES = List.of("parsing", "semantic analysis", "OLLIR generation",
+            "OLLIR CFG", "liveness analysis", "interference graph", "register allocation", "Jasmin generation");
+
+    // Below this, measurements are too noisy to compute growth
+    private static final double MIN_MILLIS = 5.0;
+    private static final int BAR_WIDTH = 50;
+
+    private final Map<String, String> options;
+    private final String vary;
+    private final List<Integer> sizes;
+    private final double threshold;
+    private final StageProfiler profiler;
+
+    public ScalingHarness(Map<String, String> options) {
+        this.options = options;
+        this.vary = options.getOrDefault("vary", "statements");
+        this.sizes = Arrays.stream(options.getOrDefault("sizes", "250,500,1000,2000").split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+        this.threshold = Double.parseDouble(options.getOrDefault("threshold", "1.5"));
+        this.profiler = new StageProfiler();
+        this.profiler.setEnabled(true);
+    }
+
+    public static void main(String[] args) {
+        var harness = new ScalingHarness(parseArgs(args));
+        var times = harness.run();
+
+        harness.print(times);
+
+        if (harness.options.containsKey("csv"))
+            SpecsIo.write(new File(harness.options.get("csv")), harness.toCsv(times));
+
+        if (harness.options.containsKey("fail") && !harness.findSuperLinear(times).isEmpty())
+            System.exit(1);
+    }
+
+    /**
+     * @return the time in milliseconds of each stage, for each size
+     */
+    public Map<String, double[]> run() {
+        var times = new LinkedHashMap<String, double[]>();
+        for (var stage : STAGES)
+            times.put(stage, new double[sizes.size()]);
+
+        int repeat = getOption("repeat", 3);
+
+        // Warm up the JIT, so that the first size is not penalized
+        compile(newGenerator(sizes.getFirst()).generate());
+
+        for (int i = 0; i < sizes.size(); i++) {
+            var source = newGenerator(sizes.get(i)).generate();
+
+            for (int run = 0; run < repeat; run++) {
+                profiler.clear();
+                compile(source);
+
+                for (var measurement : profiler.getMeasurements()) {
+                    var stageTimes = times.get(measurement.getName());
+                    if (stageTimes == null)
+                        continue;
+
+                    double millis = measurement.getWallNanos() / 1e6;
+                    stageTimes[i] = run == 0 ? millis : Math.min(stageTimes[i], millis);
+                }
+            }
+
+            System.out.println("Compiled " + vary + "=" + sizes.get(i) + " (" + source.length() + " chars)");
+        }
+
+        return times;
+    }
+
+    public JmmProgramGenerator newGenerator(int size) {
+        var generator = new JmmProgramGenerator()
+                .setStatements(getOption("statements", 1000))
+                .setLiveVariables(getOption("live", 50))
+                .setMethods(getOption("methods", 1))
+                .setNestingDepth(getOption("depth", 2))
+                .setArrays(getOption("arrays", 2));
+
+        switch (vary) {
+            case "statements" -> generator.setStatements(size);
+            case "live" -> generator.setLiveVariables(size);
+            case "methods" -> generator.setMethods(size);
+            case "depth" -> generator.setNestingDepth(size);
+            case "arrays" -> generator.setArrays(size);
+            default -> throw new RuntimeException("Unknown dimension '" + vary + "'");
+        }
+
+        return generator;
+    }
+
+    private void compile(String source) {
+        var config = BenchmarkCorpus.newConfig();
+
+        JmmParserResult parserResult = profiler.measure("parsing", () -> new JmmParserImpl().parse(source, config));
+        checkErrors(parserResult.getReports());
+
+        JmmSemanticsResult semanticsResult = profiler.measure("semantic analysis",
+                () -> new JmmAnalysisImpl().semanticAnalysis(parserResult));
+        checkErrors(semanticsResult.getReports());
+
+        BuiltOllir builtOllir = profiler.measure("OLLIR generation",
+                () -> new JmmOptimizationImpl().build(semanticsResult));
+
+        profiler.measure("OLLIR CFG", () -> builtOllir.getOllirClass().buildCFGs());
+
+        // Same steps as the register allocation of JmmOptimizationImpl with '-r=0', without updating registers
+        for (var method : builtOllir.getOllirClass().getMethods()) {
+            var livenessAnalysis = new LivenessAnalysis(method);
+            profiler.measure("liveness analysis", livenessAnalysis::analyze);
+
+            var interferenceGraph = new InterferenceGraph(livenessAnalysis.getOutMap(), livenessAnalysis.getDefMap(),
+                    method);
+            profiler.measure("interference graph", interferenceGraph::buildGraph);
+
+            profiler.measure("register allocation", () -> {
+                int maxRegs = 0;
+                while (!new RegisterAllocation(interferenceGraph, maxRegs, method).graphColoring())
+                    maxRegs++;
+            });
+        }
+
+        var generator = new JasminGenerator(builtOllir.getOllirClass(), builtOllir.getConfig());
+        profiler.measure("Jasmin generation", generator::build);
+        checkErrors(generator.getReports());
+    }
+
+    /**
+     * @return the stages whose growth exponent is above the threshold, with their largest exponent
+     */
+    public Map<String, Double> findSuperLinear(Map<String, double[]> times) {
+        var superLinear = new LinkedHashMap<String, Double>();
+
+        for (var entry : times.entrySet()) {
+            double maxExponent = maxExponent(entry.getValue());
+            if (maxExponent > threshold)
+                superLinear.put(entry.getKey(), maxExponent);
+        }
+
+        return superLinear;
+    }
+
+    public void print(Map<String, double[]> times) {
+        double maxTime = times.values().stream()
+                .flatMapToDouble(Arrays::stream)
+                .max()
+                .orElse(1);
+
+        System.out.println("\nStage time (ms) versus " + vary + ", log scale\n");
+
+        for (var entry : times.entrySet()) {
+            var stageTimes = entry.getValue();
+            System.out.println(entry.getKey());
+
+            for (int i = 0; i < sizes.size(); i++) {
+                var exponent = i == 0 ? "" : formatExponent(exponent(stageTimes, i));
+                System.out.printf("  %8d | %-" + BAR_WIDTH + "s %10.3f %s%n",
+                        sizes.get(i), bar(stageTimes[i], maxTime), stageTimes[i], exponent);
+            }
+        }
+
+        var superLinear = findSuperLinear(times);
+        System.out.println();
+        if (superLinear.isEmpty()) {
+            System.out.println("No stage grows faster than n^" + threshold);
+        } else {
+            superLinear.forEach((stage, exponent) ->
+                    System.out.printf("SUPER-LINEAR: '%s' grows as n^%.2f%n", stage, exponent));
+        }
+    }
+
+    public String toCsv(Map<String, double[]> times) {
+        var csv = new StringBuilder();
+        csv.append(vary);
+        for (var stage : times.keySet())
+            csv.append(",").append(stage);
+        csv.append("\n");
+
+        for (int i = 0; i < sizes.size(); i++) {
+            csv.append(sizes.get(i));
+            for (var stageTimes : times.values())
+                csv.append(",").append(String.format(Locale.ROOT, "%.3f", stageTimes[i]));
+            csv.append("\n");
+        }
+
+        return csv.toString();
+    }
+
+    private double maxExponent(double[] stageTimes) {
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int i = 1; i < stageTimes.length; i++) {
+            var exponent = exponent(stageTimes, i);
+            if (!Double.isNaN(exponent))
+                max = Math.max(max, exponent);
+        }
+
+        return max;
+    }
+
+    // Growth between size i - 1 and size i, NaN if the times are too small to tell
+    private double exponent(double[] stageTimes, int i) {
+        if (stageTimes[i - 1] < MIN_MILLIS || stageTimes[i] < MIN_MILLIS)
+            return Double.NaN;
+
+        return Math.log(stageTimes[i] / stageTimes[i - 1]) / Math.log((double) sizes.get(i) / sizes.get(i - 1));
+    }
+
+    private String formatExponent(double exponent) {
+        return Double.isNaN(exponent) ? "" : String.format("(n^%.2f)", exponent);
+    }
+
+    private String bar(double time, double maxTime) {
+        if (time <= 0 || maxTime <= 0)
+            return "";
+
+        // 1 microsecond is the origin of the scale
+        double scale = Math.log1p(time * 1000) / Math.log1p(maxTime * 1000);
+        return "#".repeat(Math.max(1, (int) Math.round(scale * BAR_WIDTH)));
+    }
+
+    private int getOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, Integer.toString(defaultValue)));
+    }
+
+    private static void checkErrors(List<Report> reports) {
+        reports.stream()
+                .filter(report -> report.getType() == ReportType.ERROR)
+                .findFirst()
+                .ifPresent(report -> {
+                    throw new RuntimeException("Generated program does not compile: " + report);
+                });
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        var options = new HashMap<String, String>();
+
+        for (var arg : args) {
+            if (!arg.startsWith("-"))
+                throw new RuntimeException("Arguments should start with '-', got '" + arg + "'");
+
+            var equals = arg.indexOf('=');
+            if (equals < 0)
+                options.put(arg.substring(1), "true");
+            else
+                options.put(arg.substring(1, equals), arg.substring(equals + 1));
+        }
+
+        return options;
+    }
+}
@@ -1,102 +1,217 @@
 import java.io.*;
-import java.lang.*;
-import java.util.*;
 
 
+/**
+ * Input and output of jmm programs.
+ * <p>
+ * Output is kept in a buffer and written to System.out when the buffer is full, before reading input, and when the
+ * program exits. Input is read one line at a time: read() returns the first integer of the line and keeps the
+ * others, in order, for the next calls.
+ * <p>
+ * Programs run inside another JVM, which calls flush() when main returns, set the system property
+ * "jmm.io.flushOnExit" to "false": a shutdown hook would keep each copy of this class and its buffer until that JVM
+ * exits.
+ * <p>
+ * jmm programs have a single thread, so nothing is synchronized.
+ */
 public class io {
 
-    // buffer to emulate the buffer of the keyboard
-	static Vector Buffer = new Vector();
-	static boolean init;
+	private static final int OUTPUT_LIMIT = 1 << 16;
+	private static final String NL = System.lineSeparator();
 
-	final static int read() {
-		int a = 0;
+	private static final boolean FLUSH_ON_EXIT = !"false".equals(System.getProperty("jmm.io.flushOnExit"));
 
-		if(Buffer.size()==0) {
-			init = true;
+	private static final StringBuilder output = new StringBuilder(OUTPUT_LIMIT + 1024);
+	private static boolean hookAdded;
 
+	// Integers read but not returned yet, as a ring buffer
+	private static int[] buffer = new int[16];
+	private static int head;
+	private static int size;
 
-				BufferedReader teclado = new BufferedReader(new InputStreamReader(System.in));
-				String line;
-	try {
-				if((line=teclado.readLine()) != null)
-				{
+	private static final byte[] line = new byte[8192];
+	private static int lineStart;
+	private static int lineEnd;
 
-    				String[] tokens = line.split("\\s");
+	final static int read() {
+		if (size == 0) {
+			// A prompt must be seen before the program waits for input
+			flush();
+			readLine();
+		}
 
-     				for (int i=0; i<tokens.length; i++) {
-         				//System.out.println(tokens[i]);
+		if (size == 0)
+			return 0;
 
-						int value=Integer.parseInt(tokens[i]);
+		int value = buffer[head];
+		head = (head + 1) & (buffer.length - 1);
+		size--;
 
-						//System.out.println("valor lido: "+value);
+		return value;
+	}
 
-						if(!init) {
-							Buffer.addElement(Integer.valueOf(value));
-						} else {
-							a = value;
-							init = false;
-						}
-						}
-						}
-						} catch (java.io.IOException e) {
-			System.out.println(e);
-			System.exit(1);
-		}
+	/**
+	 * Writes the output kept in the buffer.
+	 */
+	final static void flush() {
+		if (output.length() == 0)
+			return;
 
-		} else {
-			Integer top = (Integer) Buffer.firstElement();
-			Buffer.removeElementAt(0);
-			a = top.intValue();
-		}
-		return a;
+		System.out.print(output);
+		System.out.flush();
+		output.setLength(0);
 	}
 
-	/* final static int readln() {
-		int a=0;
-		try {
-			BufferedReader teclado = new BufferedReader(new InputStreamReader(System.in));
-			a = Integer.parseInt(teclado.readLine());
-		} catch (java.io.IOException e) {
-			System.out.println(e);
-			System.exit(1);
-		}
-		return a;
-	} */
-
 	final static void print(String c, int a) {
-		System.out.print(c+a);
+		append(c).append(a);
+		written();
 	}
 
-    final static void print(int a) {
-		System.out.print(a);
+	final static void print(int a) {
+		output.append(a);
+		written();
 	}
 
 	final static void print(String a) {
-		System.out.print(a);
+		append(a);
+		written();
 	}
 
-    final static void print(boolean a) {
-		System.out.print(a);
+	final static void print(boolean a) {
+		output.append(a);
+		written();
 	}
 
 	final static void println() {
-		System.out.println();
+		output.append(NL);
+		written();
 	}
-	
+
 	final static void println(String c, int a) {
-		System.out.println(c+a);
+		append(c).append(a).append(NL);
+		written();
 	}
 
-    final static void println(int a) {
-		System.out.println(a);
+	final static void println(int a) {
+		output.append(a).append(NL);
+		written();
 	}
 
 	final static void println(String a) {
-		System.out.println(a);
+		append(a).append(NL);
+		written();
 	}
 
 	final static void println(boolean a) {
-		System.out.println(a);
-	}	
+		output.append(a).append(NL);
+		written();
+	}
+
+	// Same text as System.out.print for null strings
+	private static StringBuilder append(String a) {
+		return output.append(a == null ? "null" : a);
+	}
+
+	private static void written() {
+		if (FLUSH_ON_EXIT && !hookAdded) {
+			hookAdded = true;
+			Runtime.getRuntime().addShutdownHook(new Thread(io::flush));
+		}
+
+		if (output.length() >= OUTPUT_LIMIT)
+			flush();
+	}
+
+	/**
+	 * Reads lines until one has integers, and keeps them in the buffer. At the end of the input, the buffer stays
+	 * empty.
+	 */
+	private static void readLine() {
+		try {
+			while (size == 0) {
+				if (lineStart == lineEnd && !fill())
+					return;
+
+				parseLine();
+			}
+		} catch (IOException e) {
+			System.out.println(e);
+			System.exit(1);
+		}
+	}
+
+	// Parses the integers of the line at the start of the bytes read, reading more bytes if it does not end there
+	private static void parseLine() throws IOException {
+		while (true) {
+			int c = nextByte();
+			if (c < 0 || c == '\n')
+				return;
+
+			if (c == ' ' || c == '\t' || c == '\r' || c == '\f')
+				continue;
+
+			boolean negative = c == '-';
+			if (negative || c == '+')
+				c = nextByte();
+
+			if (c < '0' || c > '9')
+				throw new NumberFormatException("Expected an integer in the input");
+
+			long value = 0;
+			while (c >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+				if (value > (long) Integer.MAX_VALUE + 1)
+					throw new NumberFormatException("Integer in the input is out of range");
+
+				c = nextByte();
+			}
+
+			if (negative)
+				value = -value;
+
+			if (value > Integer.MAX_VALUE)
+				throw new NumberFormatException("Integer in the input is out of range");
+
+			add((int) value);
+
+			if (c < 0 || c == '\n')
+				return;
+
+			if (c != ' ' && c != '\t' && c != '\r' && c != '\f')
+				throw new NumberFormatException("Expected an integer in the input");
+		}
+	}
+
+	private static int nextByte() throws IOException {
+		if (lineStart == lineEnd && !fill())
+			return -1;
+
+		// Bytes above 127 are characters that are not part of integers, not the end of the input
+		return line[lineStart++] & 0xFF;
+	}
+
+	private static boolean fill() throws IOException {
+		int read = System.in.read(line, 0, line.length);
+		if (read <= 0)
+			return false;
+
+		lineStart = 0;
+		lineEnd = read;
+
+		return true;
+	}
+
+	private static void add(int value) {
+		if (size == buffer.length) {
+			int[] larger = new int[buffer.length * 2];
+			for (int i = 0; i < size; i++)
+				larger[i] = buffer[(head + i) & (buffer.length - 1)];
+
+			buffer = larger;
+			head = 0;
+		}
+
+		buffer[(head + size) & (buffer.length - 1)] = value;
+		size++;
+	}
 }
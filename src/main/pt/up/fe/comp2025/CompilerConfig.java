@@ -1,7 +1,10 @@
 package pt.up.fe.comp2025;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -10,14 +13,33 @@ public class CompilerConfig {
     private static final String INPUT_FILE = "inputFile";
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
+    private static final String TIMING = "timing";
+    private static final String WARM_UP = "warmUp";
+    private static final String PARSER_CACHE_LIMIT = "parserCacheLimit";
+    private static final String ALL_ERRORS = "allErrors";
+    private static final String MAX_REPORTS = "maxReports";
+    private static final String DUMP_OLLIR = "dumpOllir";
+    private static final String OUTPUT_DIR = "outputDir";
+    private static final String CLASSPATH = "classpath";
+    private static final String COMPACT_AST = "compactAst";
 
 
-    static Map<String, String> shortToLong = new HashMap<>();
+    // Only filled by the static initializer, and read-only afterwards
+    private static final Map<String, String> shortToLong = new HashMap<>();
 
     static {
         shortToLong.put("i", CompilerConfig.INPUT_FILE);
         shortToLong.put("o", CompilerConfig.OPTIMIZE);
         shortToLong.put("r", CompilerConfig.REGISTER);
+        shortToLong.put("t", CompilerConfig.TIMING);
+        shortToLong.put("w", CompilerConfig.WARM_UP);
+        shortToLong.put("c", CompilerConfig.PARSER_CACHE_LIMIT);
+        shortToLong.put("e", CompilerConfig.ALL_ERRORS);
+        shortToLong.put("m", CompilerConfig.MAX_REPORTS);
+        shortToLong.put("d", CompilerConfig.DUMP_OLLIR);
+        shortToLong.put("b", CompilerConfig.OUTPUT_DIR);
+        shortToLong.put("p", CompilerConfig.CLASSPATH);
+        shortToLong.put("a", CompilerConfig.COMPACT_AST);
     }
 
 
@@ -41,12 +63,129 @@ public class CompilerConfig {
     }
 
 
+    /**
+     * @return true if the stages should be measured (option "-t", "-t=table" or "-t=json")
+     */
+    public static boolean getTiming(Map<String, String> config) {
+        return !config.getOrDefault(TIMING, "false").equals("false");
+    }
+
+    /**
+     * @return the format of the stage measurements, "table" or "json"
+     */
+    public static String getTimingFormat(Map<String, String> config) {
+        var format = config.getOrDefault(TIMING, "false");
+
+        if (format.equals("true") || format.equals("false"))
+            return "table";
+
+        if (!format.equals("table") && !format.equals("json"))
+            throw new RuntimeException("Option '-t' expects 'table' or 'json', got '" + format + "'");
+
+        return format;
+    }
+
+
+    /**
+     * @return true if the parser cache should be filled before parsing the input (option "-w")
+     */
+    public static boolean getWarmUp(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(WARM_UP, "false"));
+    }
+
+    /**
+     * @return the number of DFA states above which the parser cache is cleared after a parse (option "-c"),
+     * or -1 to never clear it
+     */
+    public static int getParserCacheLimit(Map<String, String> config) {
+        return Integer.parseInt(config.getOrDefault(PARSER_CACHE_LIMIT, "-1"));
+    }
+
+    /**
+     * @return true if the semantic analysis should report every error it can find, instead of stopping at the first
+     * pass with errors (option "-e")
+     */
+    public static boolean getAllErrors(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(ALL_ERRORS, "false"));
+    }
+
+    /**
+     * @return the maximum number of semantic reports (option "-m"), or -1 for no limit. Defaults to 100 when every
+     * error is reported (option "-e") and to no limit otherwise
+     */
+    public static int getMaxReports(Map<String, String> config) {
+        var defaultMaxReports = getAllErrors(config) ? "100" : "-1";
+        var maxReports = Integer.parseInt(config.getOrDefault(MAX_REPORTS, defaultMaxReports));
+
+        if (maxReports < -1)
+            throw new RuntimeException("Option '-m' expects a number of reports or -1, got '" + maxReports + "'");
+
+        return maxReports;
+    }
+
+    /**
+     * @return true if the OLLIR code should be printed, for debugging (option "-d")
+     */
+    public static boolean getDumpOllir(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(DUMP_OLLIR, "false"));
+    }
+
+    /**
+     * @return the folder where the class files are written (option "-b"), or empty to not write them
+     */
+    public static Optional<File> getOutputDir(Map<String, String> config) {
+        var outputDir = config.get(OUTPUT_DIR);
+
+        if (outputDir == null)
+            return Optional.empty();
+
+        if (outputDir.equals("true"))
+            throw new RuntimeException("Option '-b' expects a folder, use '-b=<PATH_TO_FOLDER>'");
+
+        return Optional.of(new File(outputDir));
+    }
+
+    /**
+     * @return the jars and folders with the classes imported by the program (option "-p"), separated by the path
+     * separator of the platform, or empty to not check calls to imported classes
+     */
+    public static List<Path> getClasspath(Map<String, String> config) {
+        var classpath = config.get(CLASSPATH);
+
+        if (classpath == null)
+            return List.of();
+
+        if (classpath.equals("true"))
+            throw new RuntimeException("Option '-p' expects a classpath, use '-p=<PATH>" + File.pathSeparator + "...'");
+
+        return Arrays.stream(classpath.split(File.pathSeparator))
+                .filter(entry -> !entry.isBlank())
+                .map(Path::of)
+                .toList();
+    }
+
+    /**
+     * @return true if the AST should be stored in arrays shared by the whole tree instead of a JmmNodeImpl per node
+     * (option "-a")
+     */
+    public static boolean getCompactAst(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(COMPACT_AST, "false"));
+    }
+
+
     public static Map<String, String> getDefault() {
 
         var config = new HashMap<String, String>();
 
         config.put(CompilerConfig.OPTIMIZE, "false");
         config.put(CompilerConfig.REGISTER, "-1");
+        config.put(CompilerConfig.TIMING, "false");
+        config.put(CompilerConfig.WARM_UP, "false");
+        config.put(CompilerConfig.PARSER_CACHE_LIMIT, "-1");
+        config.put(CompilerConfig.ALL_ERRORS, "false");
+        config.put(CompilerConfig.MAX_REPORTS, "100");
+        config.put(CompilerConfig.DUMP_OLLIR, "false");
+        config.put(CompilerConfig.COMPACT_AST, "false");
 
         return config;
     }
@@ -106,6 +245,15 @@ public class CompilerConfig {
         // Verify if values are valid
         getOptimize(config);
         getRegisterAllocation(config);
+        getTimingFormat(config);
+        getWarmUp(config);
+        getParserCacheLimit(config);
+        getAllErrors(config);
+        getMaxReports(config);
+        getDumpOllir(config);
+        getOutputDir(config);
+        getClasspath(config);
+        getCompactAst(config);
 
         return config;
     }
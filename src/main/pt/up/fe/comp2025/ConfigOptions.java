@@ -10,6 +10,15 @@ public class ConfigOptions {
     private static final String INPUT_FILE = "inputFile";
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
+    private static final String TIMING = "timing";
+    private static final String WARM_UP = "warmUp";
+    private static final String PARSER_CACHE_LIMIT = "parserCacheLimit";
+    private static final String ALL_ERRORS = "allErrors";
+    private static final String MAX_REPORTS = "maxReports";
+    private static final String DUMP_OLLIR = "dumpOllir";
+    private static final String OUTPUT_DIR = "outputDir";
+    private static final String CLASSPATH = "classpath";
+    private static final String COMPACT_AST = "compactAst";
     private static final String EXTRA = "extra";
 
     // These methods should be on CompilerConfig, but to avoid rewriting a file
@@ -27,6 +36,42 @@ public class ConfigOptions {
         return REGISTER;
     }
 
+    public static String getTiming() {
+        return TIMING;
+    }
+
+    public static String getWarmUp() {
+        return WARM_UP;
+    }
+
+    public static String getParserCacheLimit() {
+        return PARSER_CACHE_LIMIT;
+    }
+
+    public static String getAllErrors() {
+        return ALL_ERRORS;
+    }
+
+    public static String getMaxReports() {
+        return MAX_REPORTS;
+    }
+
+    public static String getDumpOllir() {
+        return DUMP_OLLIR;
+    }
+
+    public static String getOutputDir() {
+        return OUTPUT_DIR;
+    }
+
+    public static String getClasspath() {
+        return CLASSPATH;
+    }
+
+    public static String getCompactAst() {
+        return COMPACT_AST;
+    }
+
     public static String getExtra() {
         return EXTRA;
     }
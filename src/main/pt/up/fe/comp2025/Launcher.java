@@ -3,13 +3,15 @@ package pt.up.fe.comp2025;
 import pt.up.fe.comp.TestUtils;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
-import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.backend.JasminAssembler;
 import pt.up.fe.comp2025.backend.JasminBackendImpl;
+import pt.up.fe.comp2025.optimization.BuiltOllir;
 import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
 import pt.up.fe.comp2025.parser.JmmParserImpl;
-import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.comp2025.parser.ParserCache;
+import pt.up.fe.comp2025.profiling.StageProfiler;
 import pt.up.fe.specs.util.SpecsSystem;
 
 import java.util.Map;
@@ -25,11 +27,31 @@ public class Launcher {
         if (!inputFile.isFile()) {
             throw new RuntimeException("Option '-i' expects a path to an existing input file, got '" + args[0] + "'.");
         }
-        String code = SpecsIo.read(inputFile);
+
+        // Measure the stages (option "-t")
+        var profiler = new StageProfiler();
+        profiler.setEnabled(CompilerConfig.getTiming(config));
+
+        compile(config, profiler);
+
+        if (profiler.isEnabled())
+            System.out.println(getTimingReport(config, profiler));
+    }
+
+    /**
+     * Compiles the input file of the config, measuring the stages with the profiler.
+     */
+    public static void compile(Map<String, String> config, StageProfiler profiler) {
+        var inputFile = CompilerConfig.getInputFile(config).orElseThrow();
+
+        // Fill the parser cache before the first parse (option "-w")
+        if (CompilerConfig.getWarmUp(config)) {
+            profiler.measure("parser warm-up", ParserCache.getInstance()::warmUp);
+        }
 
         // Parsing stage
         JmmParserImpl parser = new JmmParserImpl();
-        JmmParserResult parserResult = parser.parse(code, config);
+        JmmParserResult parserResult = profiler.measure("parsing", () -> parser.parse(inputFile.toPath(), config));
         TestUtils.noErrors(parserResult.getReports());
 
         // Print AST
@@ -38,26 +60,50 @@ public class Launcher {
 
 
         // Semantic Analysis stage
-        JmmAnalysisImpl sema = new JmmAnalysisImpl();
-        JmmSemanticsResult semanticsResult = sema.semanticAnalysis(parserResult);
+        JmmAnalysisImpl sema = new JmmAnalysisImpl(profiler);
+        JmmSemanticsResult semanticsResult = profiler.measure("semantic analysis",
+                () -> sema.semanticAnalysis(parserResult));
         TestUtils.noErrors(semanticsResult.getReports());
 
 
         // Optimization stage
-        JmmOptimizationImpl ollirGen = new JmmOptimizationImpl();
-        OllirResult ollirResult = ollirGen.toOllir(semanticsResult);
-        TestUtils.noErrors(ollirResult.getReports());
+        JmmOptimizationImpl ollirGen = new JmmOptimizationImpl(profiler);
+        JmmSemanticsResult optimizedSemantics = profiler.measure("AST optimization",
+                () -> ollirGen.optimize(semanticsResult));
+        // The built OLLIR class goes to the backend directly, without being printed and parsed as an OllirResult
+        BuiltOllir generatedOllir = profiler.measure("OLLIR generation", () -> ollirGen.build(optimizedSemantics));
+        BuiltOllir builtOllir = profiler.measure("OLLIR optimization", () -> ollirGen.optimize(generatedOllir));
+        TestUtils.noErrors(builtOllir.getReports());
 
         // Print OLLIR code
-        //System.out.println(ollirResult.getOllirCode());
+        //System.out.println(builtOllir.getOllirCode());
 
         // Code generation stage
         JasminBackendImpl jasminGen = new JasminBackendImpl();
-        JasminResult jasminResult = jasminGen.toJasmin(ollirResult);
+        JasminResult jasminResult = profiler.measure("Jasmin generation", () -> jasminGen.toJasmin(builtOllir));
         TestUtils.noErrors(jasminResult.getReports());
 
         // Print Jasmin code
         //System.out.println(jasminResult.getJasminCode());
+
+        // Write the class files (option "-b"), assembled in memory
+        var outputDir = CompilerConfig.getOutputDir(config);
+        if (outputDir.isPresent()) {
+            var classes = profiler.measure("Jasmin assembly",
+                    () -> JasminAssembler.assemble(jasminResult.getJasminCode()));
+            JasminAssembler.write(classes, outputDir.get().toPath());
+        }
+    }
+
+    /**
+     * @return the measurements of the stages in the format of the option "-t", followed by the parser statistics
+     */
+    public static String getTimingReport(Map<String, String> config, StageProfiler profiler) {
+        var measurements = CompilerConfig.getTimingFormat(config).equals("json") ? profiler.toJson() : profiler.toTable();
+
+        return "\nStage measurements:\n\n" + measurements + "\n"
+                + JmmParserImpl.getStatistics() + "\n"
+                + "Parser cache: " + ParserCache.getInstance().getDfaStates() + " DFA states";
     }
 
 }
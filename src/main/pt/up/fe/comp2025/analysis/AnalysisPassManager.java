@@ -0,0 +1,437 @@
+package pt.up.fe.comp2025.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.profiling.StageProfiler;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Runs several analysis passes in a single traversal of the AST.
+ * <p>
+ * Passes are ordered so that each one comes after the passes it depends on. When entering a node, the enter
+ * handlers of every pass run in that order; then the children are visited; then the exit handlers run, again in that
+ * order. So when the exit handler of a pass sees a node, its dependencies have already handled that node and all its
+ * descendants.
+ * <p>
+ * Each method is analyzed separately, with its own instances of the passes, so that the state a pass keeps while
+ * inside a method (e.g. the current method) belongs to that method alone. When a class has enough methods, they are
+ * analyzed in parallel on the common fork-join pool. The nodes outside methods are analyzed before the methods.
+ * <p>
+ * Reports are the same as if the passes had run one after the other, dropping the reports of the passes after the
+ * first one with errors. In the all-errors mode, the reports of a pass are only dropped where a pass it depends on
+ * found errors, so that a single run finds every independent error; these reports are sorted by line and column, and
+ * duplicated reports are removed.
+ * <p>
+ * When the profiler is enabled, the handlers of each pass are measured, and the total of each pass over every part of
+ * the AST is added to the profiler as a stage named after the pass, nested in the stage that runs the analysis.
+ */
+public class AnalysisPassManager {
+
+    // Kind of each node name in the enum
+    private static final Map<String, Kind> KINDS_BY_NAME = new HashMap<>();
+
+    static {
+        for (var kind : Kind.values())
+            KINDS_BY_NAME.put(kind.getNodeName(), kind);
+    }
+
+    // Minimum number of methods for them to be analyzed in parallel
+    private static final int PARALLEL_THRESHOLD = 4;
+
+    private static final Comparator<Report> BY_POSITION = Comparator.comparingInt(Report::getLine)
+            .thenComparingInt(Report::getColumn);
+
+    private final Supplier<List<AnalysisVisitor>> passFactory;
+    private final boolean allErrors;
+    private final int maxReports;
+    private final List<Class<?>> passOrder;
+    private final StageProfiler profiler;
+
+    /**
+     * @param passFactory creates new instances of the passes, called once for the class and once for each method
+     */
+    public AnalysisPassManager(Supplier<List<AnalysisVisitor>> passFactory) {
+        this(passFactory, false, -1, new StageProfiler());
+    }
+
+    /**
+     * @param passFactory creates new instances of the passes, called once for the class and once for each method
+     * @param allErrors   if true, a pass with errors only hides the reports of the passes that depend on it, and only in
+     *                    the method (or outside methods) where it found them, instead of the reports of all later passes
+     * @param maxReports  maximum number of reports returned, and kept by each pass in each method, or -1 for no limit
+     * @param profiler    receives the cost of each pass, if enabled
+     */
+    public AnalysisPassManager(Supplier<List<AnalysisVisitor>> passFactory, boolean allErrors, int maxReports,
+                               StageProfiler profiler) {
+        this.passFactory = passFactory;
+        this.allErrors = allErrors;
+        this.maxReports = maxReports;
+        this.profiler = profiler;
+        this.passOrder = sortByDependencies(passFactory.get()).stream()
+                .<Class<?>>map(AnalysisVisitor::getClass)
+                .toList();
+    }
+
+    /**
+     * @return the classes of the passes, in the order their handlers run
+     */
+    public List<Class<?>> getPassOrder() {
+        return passOrder;
+    }
+
+    public List<Report> analyze(JmmNode root, SymbolTable table) {
+        // Nodes outside methods
+        var classRun = newRun();
+        classRun.traverse(root, table, true);
+
+        var methods = root.getDescendants(Kind.METHOD_DECL);
+        var methodRuns = methods.stream()
+                .map(method -> newRun())
+                .toList();
+
+        var indexes = IntStream.range(0, methods.size());
+        if (methods.size() >= PARALLEL_THRESHOLD)
+            indexes = indexes.parallel();
+
+        indexes.forEach(i -> methodRuns.get(i).traverse(methods.get(i), table, false));
+
+        var runs = new ArrayList<Run>();
+        runs.add(classRun);
+        runs.addAll(methodRuns);
+
+        if (profiler.isEnabled())
+            recordCosts(runs);
+
+        if (!allErrors)
+            return limit(mergeUntilFirstError(runs));
+
+        return limit(sortUnique(mergeIndependent(runs)));
+    }
+
+    private Run newRun() {
+        var passes = newPasses();
+        return new Run(passes, profiler.isEnabled() ? new PassCosts(passes.size()) : null);
+    }
+
+    // Total of each pass over every part of the AST, in the order the passes run
+    private void recordCosts(List<Run> runs) {
+        for (int i = 0; i < passOrder.size(); i++) {
+            long wall = 0;
+            long cpu = 0;
+            long allocated = 0;
+
+            for (var run : runs) {
+                wall += run.costs.wallNanos[i];
+                cpu = cpu < 0 || run.costs.cpuNanos[i] < 0 ? -1 : cpu + run.costs.cpuNanos[i];
+                allocated = allocated < 0 || run.costs.allocatedBytes[i] < 0 ? -1
+                        : allocated + run.costs.allocatedBytes[i];
+            }
+
+            profiler.record(passOrder.get(i).getSimpleName(), wall, cpu, allocated);
+        }
+    }
+
+    /**
+     * Reports of every pass up to the first one with errors in any part of the AST.
+     */
+    private List<Report> mergeUntilFirstError(List<Run> runs) {
+        var reports = new ArrayList<Report>();
+
+        for (int i = 0; i < passOrder.size(); i++) {
+            boolean hasErrors = false;
+
+            for (var run : runs) {
+                var pass = run.passes.get(i);
+                reports.addAll(pass.getReports());
+                hasErrors |= hasErrors(pass);
+            }
+
+            // The same failure in every method would give one report for each, keep the first
+            int passIndex = i;
+            var failure = runs.stream()
+                    .map(run -> run.failures.get(run.passes.get(passIndex)))
+                    .filter(Objects::nonNull)
+                    .findFirst();
+
+            if (failure.isPresent()) {
+                reports.add(newFailureReport(passOrder.get(i), failure.get()));
+                continue;
+            }
+
+            // Later passes assume that this one found no errors
+            if (hasErrors)
+                break;
+        }
+
+        return reports;
+    }
+
+    /**
+     * Reports of every pass, in each part of the AST, whose dependencies found no errors in that part.
+     */
+    private List<Report> mergeIndependent(List<Run> runs) {
+        var reports = new ArrayList<Report>();
+
+        for (var run : runs) {
+            // Passes with errors in this run, or that depend on one
+            var failed = new HashSet<Class<?>>();
+
+            for (var pass : run.passes) {
+                if (pass.getDependencies().stream().anyMatch(failed::contains)) {
+                    failed.add(pass.getClass());
+                    continue;
+                }
+
+                reports.addAll(pass.getReports());
+
+                var failure = run.failures.get(pass);
+                if (failure != null)
+                    reports.add(newFailureReport(pass.getClass(), failure));
+
+                if (failure != null || hasErrors(pass))
+                    failed.add(pass.getClass());
+            }
+        }
+
+        return reports;
+    }
+
+    /**
+     * Removes duplicated reports and sorts the others by position.
+     */
+    private static List<Report> sortUnique(List<Report> reports) {
+        var unique = new LinkedHashMap<ReportKey, Report>();
+        for (var report : reports)
+            unique.putIfAbsent(ReportKey.of(report), report);
+
+        var sorted = new ArrayList<>(unique.values());
+
+        // Stable, so reports in the same position keep the order of the passes
+        sorted.sort(BY_POSITION);
+
+        return sorted;
+    }
+
+    /**
+     * Keeps at most the maximum number of reports, followed by a warning with the number of omitted reports.
+     */
+    private List<Report> limit(List<Report> reports) {
+        if (maxReports < 0 || reports.size() <= maxReports)
+            return reports;
+
+        var dropped = reports.size() - maxReports;
+        var limited = new ArrayList<>(reports.subList(0, maxReports));
+        limited.add(Report.newWarn(Stage.SEMANTIC, -1, -1, dropped + " more reports were omitted", null));
+
+        return limited;
+    }
+
+    private static boolean hasErrors(AnalysisVisitor pass) {
+        return pass.getReports().stream().anyMatch(report -> report.getType() == ReportType.ERROR);
+    }
+
+    private static Report newFailureReport(Class<?> passClass, Exception failure) {
+        return Report.newError(Stage.SEMANTIC,
+                -1,
+                -1,
+                "Problem while executing analysis pass '" + passClass + "'",
+                failure);
+    }
+
+    private List<AnalysisVisitor> newPasses() {
+        var passes = sortByDependencies(passFactory.get());
+
+        var order = passes.stream().map(AnalysisVisitor::getClass).toList();
+        if (!order.equals(passOrder))
+            throw new RuntimeException("Pass factory returned different passes: expected " + passOrder + ", got " + order);
+
+        for (var pass : passes)
+            pass.setMaxReports(maxReports);
+
+        return passes;
+    }
+
+    static void traverse(JmmNode root, SymbolTable table, List<AnalysisVisitor> passes) {
+        new Traversal(table, passes, null, false, null, null).visit(root);
+    }
+
+    // Reports with the same key are duplicates
+    private record ReportKey(ReportType type, Stage stage, int line, int column, String message) {
+        private static ReportKey of(Report report) {
+            return new ReportKey(report.getType(), report.getStage(), report.getLine(), report.getColumn(),
+                    report.getMessage());
+        }
+    }
+
+    /**
+     * Instances of the passes used on one part of the AST, and the exceptions they threw.
+     */
+    private class Run {
+        private final List<AnalysisVisitor> passes;
+        private final Map<AnalysisVisitor, Exception> failures;
+        private final PassCosts costs;
+
+        private Run(List<AnalysisVisitor> passes, PassCosts costs) {
+            this.passes = passes;
+            this.failures = new HashMap<>();
+            this.costs = costs;
+        }
+
+        private void traverse(JmmNode root, SymbolTable table, boolean skipMethods) {
+            new Traversal(table, passes, failures, skipMethods, costs, profiler).visit(root);
+        }
+    }
+
+    /**
+     * Cost of the handlers of each pass, by position in the pass order, -1 where the JVM does not measure it.
+     */
+    private static class PassCosts {
+        private final long[] wallNanos;
+        private final long[] cpuNanos;
+        private final long[] allocatedBytes;
+
+        private PassCosts(int passes) {
+            this.wallNanos = new long[passes];
+            this.cpuNanos = new long[passes];
+            this.allocatedBytes = new long[passes];
+        }
+
+        private void add(int passIndex, long wall, long cpu, long allocated) {
+            wallNanos[passIndex] += wall;
+            cpuNanos[passIndex] = cpu < 0 || cpuNanos[passIndex] < 0 ? -1 : cpuNanos[passIndex] + cpu;
+            allocatedBytes[passIndex] = allocated < 0 || allocatedBytes[passIndex] < 0 ? -1
+                    : allocatedBytes[passIndex] + allocated;
+        }
+    }
+
+    private static List<AnalysisVisitor> sortByDependencies(List<AnalysisVisitor> passes) {
+        var byClass = new HashMap<Class<?>, AnalysisVisitor>();
+        for (var pass : passes)
+            byClass.put(pass.getClass(), pass);
+
+        var sorted = new ArrayList<AnalysisVisitor>();
+        var visiting = new HashSet<AnalysisVisitor>();
+
+        for (var pass : passes)
+            addSorted(pass, byClass, sorted, visiting);
+
+        return sorted;
+    }
+
+    // Depth-first, so that passes without dependencies between them keep the given order
+    private static void addSorted(AnalysisVisitor pass, Map<Class<?>, AnalysisVisitor> byClass,
+                                  List<AnalysisVisitor> sorted, Set<AnalysisVisitor> visiting) {
+        if (sorted.contains(pass))
+            return;
+
+        if (!visiting.add(pass))
+            throw new RuntimeException("Cyclic dependency between analysis passes involving '"
+                    + pass.getClass().getSimpleName() + "'");
+
+        for (var dependencyClass : pass.getDependencies()) {
+            var dependency = byClass.get(dependencyClass);
+            if (dependency == null)
+                throw new RuntimeException("Analysis pass '" + pass.getClass().getSimpleName() + "' depends on '"
+                        + dependencyClass.getSimpleName() + "', which is not in the list of passes");
+
+            addSorted(dependency, byClass, sorted, visiting);
+        }
+
+        visiting.remove(pass);
+        sorted.add(pass);
+    }
+
+    private static class Traversal {
+        private final SymbolTable table;
+        private final AnalysisVisitor[] passes;
+        private final boolean[] stopped;
+        private final Map<AnalysisVisitor, Exception> failures;
+        private final boolean skipMethods;
+        private final Map<String, Kind[]> kindsCache;
+        private final PassCosts costs;
+        private final StageProfiler profiler;
+
+        /**
+         * @param failures    if not null, a pass that throws an exception is stopped and its exception is stored here,
+         *                    otherwise the exception is thrown
+         * @param skipMethods if true, method subtrees are not visited
+         * @param costs       if not null, receives the cost of the handlers of each pass, measured with the profiler
+         */
+        private Traversal(SymbolTable table, List<AnalysisVisitor> passes, Map<AnalysisVisitor, Exception> failures,
+                          boolean skipMethods, PassCosts costs, StageProfiler profiler) {
+            this.table = table;
+            this.passes = passes.toArray(new AnalysisVisitor[0]);
+            this.stopped = new boolean[passes.size()];
+            this.failures = failures;
+            this.skipMethods = skipMethods;
+            this.kindsCache = new HashMap<>();
+            this.costs = costs;
+            this.profiler = profiler;
+        }
+
+        private void visit(JmmNode node) {
+            var kinds = getKinds(node);
+
+            if (skipMethods && Arrays.asList(kinds).contains(Kind.METHOD_DECL))
+                return;
+
+            for (int i = 0; i < passes.length; i++)
+                apply(i, node, kinds, true);
+
+            for (var child : node.getChildren())
+                visit(child);
+
+            for (int i = 0; i < passes.length; i++)
+                apply(i, node, kinds, false);
+        }
+
+        private void apply(int passIndex, JmmNode node, Kind[] kinds, boolean enter) {
+            if (stopped[passIndex])
+                return;
+
+            var pass = passes[passIndex];
+
+            // Same lookup as AJmmVisitor: the first kind of the hierarchy with a handler
+            for (var kind : kinds) {
+                var visit = enter ? pass.getEnterVisit(kind) : pass.getExitVisit(kind);
+                if (visit == null)
+                    continue;
+
+                long cpuStart = costs == null ? 0 : profiler.getCpuTime();
+                long allocStart = costs == null ? 0 : profiler.getAllocatedBytes();
+                long wallStart = costs == null ? 0 : System.nanoTime();
+
+                try {
+                    visit.apply(node, table);
+                } catch (RuntimeException e) {
+                    if (failures == null)
+                        throw e;
+
+                    failures.put(pass, e);
+                    stopped[passIndex] = true;
+                } finally {
+                    if (costs != null)
+                        costs.add(passIndex, System.nanoTime() - wallStart,
+                                cpuStart < 0 ? -1 : profiler.getCpuTime() - cpuStart,
+                                allocStart < 0 ? -1 : profiler.getAllocatedBytes() - allocStart);
+                }
+
+                return;
+            }
+        }
+
+        private Kind[] getKinds(JmmNode node) {
+            return kindsCache.computeIfAbsent(node.getKind(), name -> node.getHierarchy().stream()
+                    .map(KINDS_BY_NAME::get)
+                    .filter(Objects::nonNull)
+                    .toArray(Kind[]::new));
+        }
+    }
+}
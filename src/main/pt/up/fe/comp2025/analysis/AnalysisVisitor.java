@@ -2,26 +2,84 @@ package pt.up.fe.comp2025.analysis;
 
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
-import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.ast.Kind;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 /**
- * Implementation of AnalysisPass that automatically visits nodes using preorder traversal.
+ * Implementation of AnalysisPass that declares a handler for each kind of node it checks.
+ * <p>
+ * Handlers added with {@link #addVisit} run when the node is entered, before its children (preorder); handlers added
+ * with {@link #addExitVisit} run when the node is left, after its children (postorder). Passes do not traverse the AST
+ * themselves: {@link AnalysisPassManager} runs the handlers of all passes in a single traversal.
  */
-public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Void> implements AnalysisPass {
+public abstract class AnalysisVisitor implements AnalysisPass {
 
-    private List<Report> reports;
+    private final List<Report> reports;
+    private int maxReports;
 
+    // Handlers indexed by Kind ordinal, null if the pass does not handle the kind
+    private final BiFunction<JmmNode, SymbolTable, Void>[] enterVisits;
+    private final BiFunction<JmmNode, SymbolTable, Void>[] exitVisits;
+
+    @SuppressWarnings("unchecked")
     public AnalysisVisitor() {
         reports = new ArrayList<>();
-        setDefaultValue(() -> null);
+        maxReports = -1;
+        enterVisits = new BiFunction[Kind.values().length];
+        exitVisits = new BiFunction[Kind.values().length];
+
+        // Initialize handlers
+        buildVisitor();
+    }
+
+    protected abstract void buildVisitor();
+
+    /**
+     * Handles nodes of the given kind before their children.
+     */
+    protected void addVisit(Kind kind, BiFunction<JmmNode, SymbolTable, Void> method) {
+        enterVisits[kind.ordinal()] = method;
+    }
+
+    /**
+     * Handles nodes of the given kind after their children, and after the exit handlers of the passes this pass
+     * depends on.
+     */
+    protected void addExitVisit(Kind kind, BiFunction<JmmNode, SymbolTable, Void> method) {
+        exitVisits[kind.ordinal()] = method;
+    }
+
+    BiFunction<JmmNode, SymbolTable, Void> getEnterVisit(Kind kind) {
+        return enterVisits[kind.ordinal()];
+    }
+
+    BiFunction<JmmNode, SymbolTable, Void> getExitVisit(Kind kind) {
+        return exitVisits[kind.ordinal()];
+    }
+
+    /**
+     * @return passes whose results this pass reads, e.g. the types added by {@link pt.up.fe.comp2025.analysis.passes.AddType}
+     */
+    public List<Class<? extends AnalysisVisitor>> getDependencies() {
+        return List.of();
+    }
+
+    /**
+     * Reports after the given number are ignored, -1 for no limit.
+     */
+    void setMaxReports(int maxReports) {
+        this.maxReports = maxReports;
     }
 
     protected void addReport(Report report) {
+        if (maxReports >= 0 && reports.size() >= maxReports)
+            return;
+
         reports.add(report);
     }
 
@@ -32,8 +90,8 @@ public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Vo
 
     @Override
     public List<Report> analyze(JmmNode root, SymbolTable table) {
-        // Visit the node
-        visit(root, table);
+        // Visit the AST with this pass alone
+        AnalysisPassManager.traverse(root, table, List.of(this));
 
         // Return reports
         return getReports();
@@ -7,11 +7,12 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.ReportType;
-import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2025.CompilerConfig;
 import pt.up.fe.comp2025.analysis.passes.*;
+import pt.up.fe.comp2025.profiling.StageProfiler;
+import pt.up.fe.comp2025.symboltable.ImportIndex;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTableBuilder;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -19,15 +20,29 @@ import java.util.List;
  */
 public class JmmAnalysisImpl implements JmmAnalysis {
 
+    private final StageProfiler profiler;
+
+    public JmmAnalysisImpl() {
+        this(new StageProfiler());
+    }
+
+    /**
+     * @param profiler measures the parts of the stage, when enabled
+     */
+    public JmmAnalysisImpl(StageProfiler profiler) {
+        this.profiler = profiler;
+    }
+
 
     /**
      * Analysis passes that will be applied to the AST.
      *
      * @param table
+     * @param imports
      * @return
      */
-    private List<AnalysisVisitor> buildPasses(SymbolTable table) {
-        return List.of(new AddType(table), new UndeclaredVariable(), new OperatorType(), new Array(),
+    private List<AnalysisVisitor> buildPasses(SymbolTable table, ImportIndex imports) {
+        return List.of(new AddType(table, imports), new UndeclaredVariable(), new OperatorType(), new Array(),
                 new MethodVerification(), new Statement());
     }
 
@@ -36,7 +51,7 @@ public class JmmAnalysisImpl implements JmmAnalysis {
         JmmNode rootNode = parserResult.getRootNode();
 
         var symbolTableBuilder = new JmmSymbolTableBuilder();
-        SymbolTable table = symbolTableBuilder.build(rootNode);
+        SymbolTable table = profiler.measure("symbol table", () -> symbolTableBuilder.build(rootNode));
 
         List<Report> reports = symbolTableBuilder.getReports();
 
@@ -48,43 +63,26 @@ public class JmmAnalysisImpl implements JmmAnalysis {
 
         var table = semanticsResult.getSymbolTable();
 
-        var analysisVisitors = buildPasses(table);
+        var config = semanticsResult.getConfig();
 
-        var rootNode = semanticsResult.getRootNode();
-
-        var reports = new ArrayList<Report>();
-
-        // This is a simple implementation that assumes all passes are implemented as visitors, each one making a full visit of the AST.
-        // There are other implementations that reduce the number of full AST visits, this is not required for the work, but a nice challenge if you want to try.
-        for (var analysisVisitor : analysisVisitors) {
-            try {
-                var passReports = analysisVisitor.analyze(rootNode, table);
-
-                var hasSymbolTableErrors = passReports.stream()
-                        .anyMatch(report -> report.getType() == ReportType.ERROR);
+        // Signatures of the classpath (option "-p"), scanned once and shared by the passes of every method
+        var imports = profiler.measure("import index", () -> ImportIndex.fromConfig(config));
 
+        // Each pass is measured under "analysis passes" (option "-t")
+        var passManager = new AnalysisPassManager(() -> buildPasses(table, imports), CompilerConfig.getAllErrors(config),
+                CompilerConfig.getMaxReports(config), profiler);
 
-                reports.addAll(passReports);
-
-                // Return early in case of error report
-                if (hasSymbolTableErrors) {
-                    System.out.println("Found errors: " + reports);
-                    return new JmmSemanticsResult(semanticsResult, reports);
-                }
+        var rootNode = semanticsResult.getRootNode();
 
-            } catch (Exception e) {
-                reports.add(Report.newError(Stage.SEMANTIC,
-                        -1,
-                        -1,
-                        "Problem while executing analysis pass '" + analysisVisitor.getClass() + "'",
-                        e)
-                );
-                System.out.println("Exception: " + reports);
-            }
+        // All passes run in a single traversal of each method, methods in parallel; the reports are the same as
+        // running the passes one by one and stopping at the first pass with errors, unless all errors are requested
+        var reports = profiler.measure("analysis passes",
+                () -> passManager.analyze(rootNode, table));
 
+        if (reports.stream().anyMatch(report -> report.getType() == ReportType.ERROR)) {
+            System.out.println("Found errors: " + reports);
         }
 
-
         return new JmmSemanticsResult(semanticsResult, reports);
     }
 
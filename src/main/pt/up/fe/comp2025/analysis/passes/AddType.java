@@ -8,48 +8,70 @@ import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.ExternalClass;
+import pt.up.fe.comp2025.symboltable.ExternalMethod;
+import pt.up.fe.comp2025.symboltable.ImportIndex;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Annotates each expression node with its type.
+ * <p>
+ * Expressions are typed when they are left, so the types of their children are already known.
  */
 public class AddType extends AnalysisVisitor {
 
+    /**
+     * Object of a call node with the {@link ExternalMethod} of an imported class the call refers to.
+     */
+    public static final String IMPORTED_METHOD = "importedMethod";
+
     private String currentMethod;
     private final TypeUtils types;
+    private final ImportIndex imports;
 
     public AddType(SymbolTable table) {
+        this(table, ImportIndex.empty());
+    }
+
+    /**
+     * @param imports signatures of the imported classes, calls to classes not in the index are assumed to be valid
+     */
+    public AddType(SymbolTable table, ImportIndex imports) {
         this.types = new TypeUtils(table);
+        this.imports = imports;
     }
 
     @Override
     public void buildVisitor() {
         addVisit(Kind.METHOD_DECL, this::visitMethodDecl);
-        addVisit(Kind.PARAM, this::visitVarDecl);
-        addVisit(Kind.VAR_DECL, this::visitVarDecl);
-        addVisit(Kind.BINARY_EXPR, this::visitBinaryExpr);
-        addVisit(Kind.INTEGER_LITERAL, this::visitIntegerLiteral);
-        addVisit(Kind.BOOLEAN_LITERAL, this::visitBooleanLiteral);
-        addVisit(Kind.VAR_REF_EXPR, this::visitVarRefExpr);
-        addVisit(Kind.ARRAY_ACCESS_EXPR, this::visitArrayAccessExpr);
-        addVisit(Kind.ARRAY_EXPR, this::visitArrayExpr);
-        addVisit(Kind.ASSIGN_STMT, this::visitAssignStmt);
-        addVisit(Kind.ARRAY_ASSIGN_STMT, this::visitArrayAssignStmt);
-        addVisit(Kind.NEW_INT_ARRAY_EXPR, this::visitNewIntArrayExpr);
-        addVisit(Kind.NEW_OBJECT_EXPR, this::visitNewObjectExpr);
-        addVisit(Kind.METHOD_CALL_EXPR, this::visitMethodCallExpr);
-        addVisit(Kind.LENGTH_EXPR, this::visitLengthExpr);
-        addVisit(Kind.NOT_EXPR, this::visitNotExpr);
-        addVisit(Kind.THIS_EXPR, this::visitThisExpr);
-        addVisit(Kind.RETURN_STMT, this::visitReturnStmt);
-        addVisit(Kind.PAREN_EXPR, this::visitParenExpr);
+        addExitVisit(Kind.PARAM, this::visitVarDecl);
+        addExitVisit(Kind.VAR_DECL, this::visitVarDecl);
+        addExitVisit(Kind.BINARY_EXPR, this::visitBinaryExpr);
+        addExitVisit(Kind.INTEGER_LITERAL, this::visitIntegerLiteral);
+        addExitVisit(Kind.BOOLEAN_LITERAL, this::visitBooleanLiteral);
+        addExitVisit(Kind.VAR_REF_EXPR, this::visitVarRefExpr);
+        addExitVisit(Kind.ARRAY_ACCESS_EXPR, this::visitArrayAccessExpr);
+        addExitVisit(Kind.ARRAY_EXPR, this::visitArrayExpr);
+        addExitVisit(Kind.ASSIGN_STMT, this::visitAssignStmt);
+        addExitVisit(Kind.ARRAY_ASSIGN_STMT, this::visitArrayAssignStmt);
+        addExitVisit(Kind.NEW_INT_ARRAY_EXPR, this::visitNewIntArrayExpr);
+        addExitVisit(Kind.NEW_OBJECT_EXPR, this::visitNewObjectExpr);
+        addExitVisit(Kind.METHOD_CALL_EXPR, this::visitMethodCallExpr);
+        addExitVisit(Kind.LENGTH_EXPR, this::visitLengthExpr);
+        addExitVisit(Kind.NOT_EXPR, this::visitNotExpr);
+        addExitVisit(Kind.THIS_EXPR, this::visitThisExpr);
+        addExitVisit(Kind.RETURN_STMT, this::visitReturnStmt);
+        addExitVisit(Kind.PAREN_EXPR, this::visitParenExpr);
     }
 
     private Void visitMethodDecl(JmmNode method, SymbolTable table) {
         currentMethod = method.get("name");
         if (currentMethod.equals("main"))
-            method.put("type", TypeUtils.newVoidType().toString());
+            TypeUtils.putType(method, TypeUtils.newVoidType());
         else
-            method.put("type", table.getReturnType(currentMethod).toString());
+            TypeUtils.putType(method, table.getReturnType(currentMethod));
 
         return null;
     }
@@ -57,28 +79,28 @@ public class AddType extends AnalysisVisitor {
     private Void visitVarDecl(JmmNode varDecl, SymbolTable table) {
         Type varType = types.getExprType(varDecl);
         if (varDecl.getChild(0).getKind().equals("ClassType")) {
-            var varTypeName = TypeUtils.getNameType(varType.toString());
+            var varTypeName = varType.getName();
 
             // Special case for String
             if (varTypeName.equals("String")) {
-                varDecl.put("type", varType.toString());
+                TypeUtils.putType(varDecl, varType);
                 return null;
             }
 
             // Check if the variable is a class
             if (varTypeName.equals(table.getClassName())) {
-                varDecl.put("type", varType.toString());
+                TypeUtils.putType(varDecl, varType);
                 return null;
             }
 
             // Check if the variable is an import
             for (var importName : table.getImports()) {
                 if (importName.equals(varTypeName) || importName.endsWith("." + varTypeName)) {
-                    varDecl.put("type", varType.toString());
+                    TypeUtils.putType(varDecl, varType);
                     return null;
                 }
             }
-            varDecl.put("type", TypeUtils.newType("invalid").toString());
+            TypeUtils.putType(varDecl, TypeUtils.newType("invalid"));
 
             // Create error report
             var message = String.format("Undeclared type '%s', probably missing import", varTypeName);
@@ -90,44 +112,40 @@ public class AddType extends AnalysisVisitor {
                     null)
             );
         } else
-            varDecl.put("type", varType.toString());
+            TypeUtils.putType(varDecl, varType);
 
         return null;
     }
 
     private Void visitBinaryExpr(JmmNode binaryExpr, SymbolTable table) {
         Type type = types.getExprType(binaryExpr);
-        binaryExpr.put("type", type.toString());
+        TypeUtils.putType(binaryExpr, type);
         return null;
     }
 
     private Void visitParenExpr(JmmNode parenExpr, SymbolTable table) {
         var expr = parenExpr.getChild(0);
-        if (!expr.hasAttribute("type"))
-            visit(expr, table);
-        parenExpr.put("type", expr.get("type"));
+        TypeUtils.putType(parenExpr, TypeUtils.getType(expr));
         return null;
     }
 
     private Void visitIntegerLiteral(JmmNode integerLiteral, SymbolTable table) {
-        integerLiteral.put("type", TypeUtils.newIntType().toString());
+        TypeUtils.putType(integerLiteral, TypeUtils.newIntType());
         return null;
     }
 
     private Void visitBooleanLiteral(JmmNode booleanLiteral, SymbolTable table) {
-        booleanLiteral.put("type", TypeUtils.newBooleanType().toString());
+        TypeUtils.putType(booleanLiteral, TypeUtils.newBooleanType());
         return null;
     }
 
     private Void visitNotExpr(JmmNode notExpr, SymbolTable table) {
         var expr = notExpr.getChild(0);
-        if (!expr.hasAttribute("type"))
-            visit(expr, table);
         var booleanType = TypeUtils.newBooleanType();
-        if (!expr.get("type").equals(booleanType.toString())) {
+        if (!TypeUtils.getType(expr).equals(booleanType)) {
             // Create error report
             var message = String.format("Type error on children of operator '!', " +
-                    "expected type compatible with '%s' and got '%s'", booleanType, expr.get("type"));
+                    "expected type compatible with '%s' and got '%s'", booleanType, TypeUtils.getType(expr));
             addReport(Report.newError(
                     Stage.SEMANTIC,
                     notExpr.getLine(),
@@ -135,11 +153,11 @@ public class AddType extends AnalysisVisitor {
                     message,
                     null)
             );
-            notExpr.put("type", TypeUtils.newType("invalid").toString());
+            TypeUtils.putType(notExpr, TypeUtils.newType("invalid"));
             return null;
         }
 
-        notExpr.put("type", TypeUtils.newBooleanType().toString());
+        TypeUtils.putType(notExpr, TypeUtils.newBooleanType());
         return null;
     }
 
@@ -147,11 +165,11 @@ public class AddType extends AnalysisVisitor {
         Type varRefExprType = types.getExprType(varRefExpr);
 
         if (varRefExprType != null) {
-            varRefExpr.put("type", varRefExprType.toString());
+            TypeUtils.putType(varRefExpr, varRefExprType);
             return null;
         }
 
-        varRefExpr.put("type", TypeUtils.newType("invalid").toString());
+        TypeUtils.putType(varRefExpr, TypeUtils.newType("invalid"));
 
         // Create error report
         var message = String.format("Variable '%s' not found.", varRefExpr.get("name"));
@@ -168,18 +186,17 @@ public class AddType extends AnalysisVisitor {
 
     private Void visitArrayAccessExpr(JmmNode arrayAccessExpr, SymbolTable table) {
         var arrayId = arrayAccessExpr.getChild(0);
-        visit(arrayId, table);
-        if (arrayId.get("type").equals(TypeUtils.newArrayIntType().toString())) {
-            arrayAccessExpr.put("type", TypeUtils.newIntType().toString());
+        if (TypeUtils.getType(arrayId).equals(TypeUtils.newArrayIntType())) {
+            TypeUtils.putType(arrayAccessExpr, TypeUtils.newIntType());
             return null;
-        } else if (arrayId.get("type").equals(TypeUtils.newArrayType("String").toString())) {
-            arrayAccessExpr.put("type", TypeUtils.newType("String").toString());
+        } else if (TypeUtils.getType(arrayId).equals(TypeUtils.newArrayType("String"))) {
+            TypeUtils.putType(arrayAccessExpr, TypeUtils.newType("String"));
             return null;
         }
 
-        arrayAccessExpr.put("type", TypeUtils.newType("invalid").toString());
+        TypeUtils.putType(arrayAccessExpr, TypeUtils.newType("invalid"));
         // Create error report
-        var message = String.format("Array access done over an int/String array expected, got '%s' instead", arrayId.get("type"));
+        var message = String.format("Array access done over an int/String array expected, got '%s' instead", TypeUtils.getType(arrayId));
         addReport(Report.newError(
                 Stage.SEMANTIC,
                 arrayAccessExpr.getLine(),
@@ -193,7 +210,7 @@ public class AddType extends AnalysisVisitor {
 
     private Void visitArrayExpr(JmmNode arrayExpr, SymbolTable table) {
         // arrays are always of type int[]
-        arrayExpr.put("type", TypeUtils.newArrayIntType().toString());
+        TypeUtils.putType(arrayExpr, TypeUtils.newArrayIntType());
 
         return null;
     }
@@ -203,7 +220,7 @@ public class AddType extends AnalysisVisitor {
 
         Type assigneeType = types.getExprType(assignStmt);
         if (assigneeType == null) {
-            assignStmt.put("type", TypeUtils.newType("invalid").toString());
+            TypeUtils.putType(assignStmt, TypeUtils.newType("invalid"));
 
             // Create error report
             var message = String.format("Variable '%s' does not exist.", assignStmt.get("name"));
@@ -218,18 +235,17 @@ public class AddType extends AnalysisVisitor {
         }
 
         var assigned = assignStmt.getChild(0);
-        visit(assigned, table);
 
         // Check if the type of the assignee is compatible with the assigned
-        var assignedTypeName = TypeUtils.getNameType(assigned.get("type"));
+        var assignedTypeName = TypeUtils.getType(assigned).getName();
 
-        if (assigneeType.toString().equals(assigned.get("type"))) {
-            assignStmt.put("type", assigneeType.toString());
+        if (assigneeType.equals(TypeUtils.getType(assigned))) {
+            TypeUtils.putType(assignStmt, assigneeType);
             return null;
         }
 
         if (assigneeType.getName().equals(table.getSuper()) && assignedTypeName.equals(table.getClassName())) {
-            assignStmt.put("type", assigneeType.toString());
+            TypeUtils.putType(assignStmt, assigneeType);
             return null;
         } else if (assigneeType.getName().equals(table.getClassName()) && assignedTypeName.equals(table.getSuper())) {
             //  a = new B() NOT valid!
@@ -247,23 +263,23 @@ public class AddType extends AnalysisVisitor {
                     null)
             );
 
-            assignStmt.put("type", TypeUtils.newType("invalid").toString());
+            TypeUtils.putType(assignStmt, TypeUtils.newType("invalid"));
             return null;
         }
 
         if (assigneeType.getName().equals(table.getClassName()) && table.getImports().contains(assignedTypeName)) {
-            assignStmt.put("type", assigneeType.toString());
+            TypeUtils.putType(assignStmt, assigneeType);
             return null;
         }
 
         if (table.getImports().contains(assigneeType.getName()) && table.getImports().contains(assignedTypeName)) {
-            assignStmt.put("type", assigneeType.toString());
+            TypeUtils.putType(assignStmt, assigneeType);
             return null;
         }
 
         if (table.getImports().contains(assigneeType.getName()) && assignedTypeName.equals(table.getClassName())) {
             if (!assigneeType.getName().equals(table.getSuper())){
-                assignStmt.put("type", TypeUtils.newType("invalid").toString());
+                TypeUtils.putType(assignStmt, TypeUtils.newType("invalid"));
                 // Create error report
                 var message = String.format("Type of the assignee must be compatible with the assigned. " +
                                 "'%s' does not extend '%s'",
@@ -277,28 +293,28 @@ public class AddType extends AnalysisVisitor {
                 );
                 return null;
             }
-            assignStmt.put("type", assigneeType.toString());
+            TypeUtils.putType(assignStmt, assigneeType);
             return null;
         }
 
 
         if (assignedTypeName.equals("invalid")) {
-            assignStmt.put("type", TypeUtils.newType("invalid").toString());
+            TypeUtils.putType(assignStmt, TypeUtils.newType("invalid"));
             return null;
         }
 
         // TODO
         if (assignedTypeName.equals("imported")) {
-            assignStmt.put("type", assigneeType.toString());
+            TypeUtils.putType(assignStmt, assigneeType);
             return null;
         }
 
 
-        assignStmt.put("type", TypeUtils.newType("invalid").toString());
+        TypeUtils.putType(assignStmt, TypeUtils.newType("invalid"));
 
         // Create error report
         var message = String.format("Type of the assignee must be compatible with the assigned. '%s' cannot be converted to '%s'",
-                assigneeType, assigned.get("type"));
+                assigneeType, TypeUtils.getType(assigned));
         addReport(Report.newError(
                 Stage.SEMANTIC,
                 assignStmt.getLine(),
@@ -320,7 +336,7 @@ public class AddType extends AnalysisVisitor {
                     "Assignee must be a variable reference",
                     null)
             );
-            arrayAssignStmt.put("type", TypeUtils.newType("invalid").toString());
+            TypeUtils.putType(arrayAssignStmt, TypeUtils.newType("invalid"));
             return null;
         }
 
@@ -328,7 +344,7 @@ public class AddType extends AnalysisVisitor {
         // variable reference does not exist, but we already reported it
         if (assigneeType == null)
             return null;
-        if (!assigneeType.toString().equals(TypeUtils.newArrayIntType().toString())) {
+        if (!assigneeType.equals(TypeUtils.newArrayIntType())) {
             // Create error report
             var message = String.format("Expected an int array but found '%s' instead.", assigneeType);
             addReport(Report.newError(
@@ -338,34 +354,34 @@ public class AddType extends AnalysisVisitor {
                     message,
                     null)
             );
-            arrayAssignStmt.put("type", TypeUtils.newType("invalid").toString());
+            TypeUtils.putType(arrayAssignStmt, TypeUtils.newType("invalid"));
             return null;
         }
 
-        arrayAssignStmt.put("type", TypeUtils.newIntType().toString());
+        TypeUtils.putType(arrayAssignStmt, TypeUtils.newIntType());
 
         return null;
     }
 
     private Void visitNewIntArrayExpr(JmmNode newIntArrayExpr, SymbolTable table) {
-        newIntArrayExpr.put("type", TypeUtils.newArrayIntType().toString());
+        TypeUtils.putType(newIntArrayExpr, TypeUtils.newArrayIntType());
         return null;
     }
 
     private Void visitNewObjectExpr(JmmNode newObjectExpr, SymbolTable table) {
         var className = newObjectExpr.get("name");
-        newObjectExpr.put("type", TypeUtils.newType(className).toString());
+        TypeUtils.putType(newObjectExpr, TypeUtils.newType(className));
         return null;
     }
 
     private Void visitThisExpr(JmmNode thisExpr, SymbolTable table) {
         var staticMethod = thisExpr.getAncestor(Kind.METHOD_DECL).get().get("isStatic");
         if (!Boolean.parseBoolean(staticMethod)) {
-            thisExpr.put("type", TypeUtils.newType(table.getClassName()).toString());
+            TypeUtils.putType(thisExpr, TypeUtils.newType(table.getClassName()));
             return null;
         }
 
-        thisExpr.put("type", TypeUtils.newType("invalid").toString());
+        TypeUtils.putType(thisExpr, TypeUtils.newType("invalid"));
         // Create error report
         var message = String.format("'This' expression cannot be used in a static method: '%s'", currentMethod);
         addReport(Report.newError(
@@ -380,14 +396,20 @@ public class AddType extends AnalysisVisitor {
     }
 
     private Void visitMethodCallExpr(JmmNode methodCallExpr, SymbolTable table) {
-        for (var child : methodCallExpr.getChildren())
-            visit(child, table);
         var object = methodCallExpr.getChild(0);
-        var objectType = TypeUtils.getNameType(object.get("type"));
+        var objectType = TypeUtils.getType(object).getName();
 
         if (objectType.equals(table.getClassName()) && table.getMethods().contains(methodCallExpr.get("name"))) {
             var returnType = table.getReturnType(methodCallExpr.get("name"));
-            methodCallExpr.put("type", returnType.toString());
+            TypeUtils.putType(methodCallExpr, returnType);
+            return null;
+        }
+
+        // Calls to imported classes in the classpath are checked against their signatures
+        var importedClass = getImportedClass(object, objectType, table);
+        if (importedClass.isPresent()) {
+            TypeUtils.putType(methodCallExpr, checkImportedCall(methodCallExpr, importedClass.get(),
+                    objectType.equals("imported")));
             return null;
         }
 
@@ -395,11 +417,11 @@ public class AddType extends AnalysisVisitor {
                 || table.getImports().contains(objectType)
                 || table.getImports().contains(table.getSuper())
                 || objectType.equals("String")) {
-            methodCallExpr.put("type", TypeUtils.newType("imported").toString());
+            TypeUtils.putType(methodCallExpr, TypeUtils.newType("imported"));
             return null;
         }
 
-        methodCallExpr.put("type", TypeUtils.newType("invalid").toString());
+        TypeUtils.putType(methodCallExpr, TypeUtils.newType("invalid"));
 
         // Create error report
         var message = String.format("Object of type '%s' has no method named '%s'.", objectType, methodCallExpr.get("name"));
@@ -415,6 +437,96 @@ public class AddType extends AnalysisVisitor {
         return null;
     }
 
+    /**
+     * @return the class in the index of a call on an imported class (static call) or on an object of an imported class
+     */
+    private Optional<ExternalClass> getImportedClass(JmmNode object, String objectType, SymbolTable table) {
+        if (imports.isEmpty())
+            return Optional.empty();
+
+        if (objectType.equals("imported"))
+            return Kind.VAR_REF_EXPR.check(object)
+                    ? imports.resolveImport(object.get("name"), table.getImports())
+                    : Optional.empty();
+
+        return imports.resolveImport(objectType, table.getImports());
+    }
+
+    /**
+     * @return the return type of the method of the imported class the call refers to, "imported" if its types have
+     * no jmm equivalent, or "invalid" if the class has no such method
+     */
+    private Type checkImportedCall(JmmNode methodCallExpr, ExternalClass importedClass, boolean isStaticCall) {
+        var name = methodCallExpr.get("name");
+        var argumentTypes = methodCallExpr.getChildren().subList(1, methodCallExpr.getNumChildren()).stream()
+                .map(TypeUtils::getType)
+                .toList();
+
+        var candidates = imports.getMethods(importedClass, name);
+        if (candidates.isEmpty()) {
+            if (!imports.knowsAllMethods(importedClass, name))
+                return TypeUtils.newType("imported");
+
+            addImportedCallError(methodCallExpr, String.format("Class '%s' has no method named '%s'.",
+                    importedClass.getName(), name));
+            return TypeUtils.newType("invalid");
+        }
+
+        boolean unknownTypes = false;
+        for (var candidate : candidates) {
+            var parameterTypes = ImportIndex.getParameterTypes(candidate);
+            if (parameterTypes.isEmpty()) {
+                unknownTypes = true;
+                continue;
+            }
+
+            if (!acceptsArguments(parameterTypes.get(), argumentTypes))
+                continue;
+
+            if (candidate.isStatic() != isStaticCall) {
+                addImportedCallError(methodCallExpr, String.format(candidate.isStatic()
+                                ? "Static method '%s' of class '%s' is called on an object."
+                                : "Method '%s' of class '%s' is not static and is called on the class.",
+                        name, importedClass.getName()));
+                return TypeUtils.newType("invalid");
+            }
+
+            methodCallExpr.putObject(IMPORTED_METHOD, candidate);
+            return ImportIndex.getReturnType(candidate).orElse(TypeUtils.newType("imported"));
+        }
+
+        if (unknownTypes)
+            return TypeUtils.newType("imported");
+
+        addImportedCallError(methodCallExpr, String.format("No method '%s' of class '%s' accepts arguments of types %s.",
+                name, importedClass.getName(), argumentTypes));
+        return TypeUtils.newType("invalid");
+    }
+
+    // Arguments of unknown types, e.g. results of other imported calls, are accepted
+    private static boolean acceptsArguments(List<Type> parameterTypes, List<Type> argumentTypes) {
+        if (parameterTypes.size() != argumentTypes.size())
+            return false;
+
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            var argumentType = argumentTypes.get(i);
+            if (!argumentType.getName().equals("imported") && !argumentType.equals(parameterTypes.get(i)))
+                return false;
+        }
+
+        return true;
+    }
+
+    private void addImportedCallError(JmmNode methodCallExpr, String message) {
+        addReport(Report.newError(
+                Stage.SEMANTIC,
+                methodCallExpr.getLine(),
+                methodCallExpr.getColumn(),
+                message,
+                null)
+        );
+    }
+
     private Void visitReturnStmt(JmmNode returnStmt, SymbolTable table) {
         if (currentMethod.equals("main")) {
             // Create error report
@@ -427,16 +539,15 @@ public class AddType extends AnalysisVisitor {
             );
         }
         var expr = returnStmt.getChild(0);
-        visit(expr, table);
         if (expr.hasAttribute("type")) {
-            returnStmt.put("type", expr.get("type"));
+            TypeUtils.putType(returnStmt, TypeUtils.getType(expr));
         }
         return null;
     }
 
     private Void visitLengthExpr(JmmNode lengthExpr, SymbolTable table) {
         if (!lengthExpr.get("name").equals("length")) {
-            lengthExpr.put("type", TypeUtils.newType("invalid").toString());
+            TypeUtils.putType(lengthExpr, TypeUtils.newType("invalid"));
             // Create error report
             addReport(Report.newError(
                     Stage.SEMANTIC,
@@ -447,7 +558,7 @@ public class AddType extends AnalysisVisitor {
             );
             return null;
         }
-        lengthExpr.put("type", TypeUtils.newIntType().toString());
+        TypeUtils.putType(lengthExpr, TypeUtils.newIntType());
 
         return null;
     }
@@ -8,25 +8,32 @@ import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
 
+import java.util.List;
+
 /**
  * Checks ...
  *
  */
 public class Array extends AnalysisVisitor {
 
+    @Override
+    public List<Class<? extends AnalysisVisitor>> getDependencies() {
+        return List.of(AddType.class);
+    }
+
     @Override
     public void buildVisitor() {
-        addVisit(Kind.ARRAY_ACCESS_EXPR, this::visitArrayAccessExpr);
-        addVisit(Kind.ARRAY_EXPR, this::visitArrayExpr);
-        addVisit(Kind.LENGTH_EXPR, this::visitLengthExpr);
-        addVisit(Kind.NEW_INT_ARRAY_EXPR, this::visitNewIntArrayExpr);
+        addExitVisit(Kind.ARRAY_ACCESS_EXPR, this::visitArrayAccessExpr);
+        addExitVisit(Kind.ARRAY_EXPR, this::visitArrayExpr);
+        addExitVisit(Kind.LENGTH_EXPR, this::visitLengthExpr);
+        addExitVisit(Kind.NEW_INT_ARRAY_EXPR, this::visitNewIntArrayExpr);
     }
 
     private Void visitNewIntArrayExpr(JmmNode newIntArrayExpr, SymbolTable table) {
         var size = newIntArrayExpr.getChild(0);
-        if (!size.get("type").equals(TypeUtils.newIntType().toString())) {
+        if (!TypeUtils.getType(size).equals(TypeUtils.newIntType())) {
             // Create error report
-            var message = String.format("Array size must be of type int but found '%s'", size.get("type"));
+            var message = String.format("Array size must be of type int but found '%s'", TypeUtils.getType(size));
             addReport(Report.newError(
                     Stage.SEMANTIC,
                     newIntArrayExpr.getLine(),
@@ -41,12 +48,12 @@ public class Array extends AnalysisVisitor {
 
     private Void visitArrayAccessExpr(JmmNode arrayAccessExpr, SymbolTable table) {
         var arrayIndex = arrayAccessExpr.getChild(1);
-        if (arrayIndex.get("type").equals(TypeUtils.newIntType().toString())) {
+        if (TypeUtils.getType(arrayIndex).equals(TypeUtils.newIntType())) {
             return null;
         }
 
         // Create error report
-        var message = String.format("Array access index must be of type integer but found '%s'", arrayIndex.get("type"));
+        var message = String.format("Array access index must be of type integer but found '%s'", TypeUtils.getType(arrayIndex));
         addReport(Report.newError(
                 Stage.SEMANTIC,
                 arrayAccessExpr.getLine(),
@@ -60,13 +67,12 @@ public class Array extends AnalysisVisitor {
 
     private Void visitArrayExpr(JmmNode arrayExpr, SymbolTable table) {
         if (arrayExpr.getChildren().isEmpty()) return null;
-        var arrayExpType = arrayExpr.get("type");
-        var type = TypeUtils.newType(TypeUtils.getNameType(arrayExpType));
+        var arrayExpType = TypeUtils.getType(arrayExpr);
+        var type = TypeUtils.newType(arrayExpType.getName());
         for (var elem : arrayExpr.getChildren()) {
-            visit(elem, table);
-            if (!elem.get("type").equals(type.toString())) {
+            if (!TypeUtils.getType(elem).equals(type)) {
                 // Create error report
-                var message = String.format("Array elements must be of type '%s' but found '%s'", type, elem.get("type"));
+                var message = String.format("Array elements must be of type '%s' but found '%s'", type, TypeUtils.getType(elem));
                 addReport(Report.newError(
                         Stage.SEMANTIC,
                         elem.getLine(),
@@ -81,9 +87,9 @@ public class Array extends AnalysisVisitor {
 
     private Void visitLengthExpr(JmmNode lengthExpr, SymbolTable table) {
         var expr = lengthExpr.getChild(0);
-        if (!expr.get("type").equals(TypeUtils.newArrayIntType().toString())) {
+        if (!TypeUtils.getType(expr).equals(TypeUtils.newArrayIntType())) {
             // Create error report
-            var message = String.format("Expected an array but found '%s' instead.", expr.get("type"));
+            var message = String.format("Expected an array but found '%s' instead.", TypeUtils.getType(expr));
             addReport(Report.newError(
                     Stage.SEMANTIC,
                     lengthExpr.getLine(),
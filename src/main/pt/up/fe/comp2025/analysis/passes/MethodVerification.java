@@ -1,25 +1,28 @@
 package pt.up.fe.comp2025.analysis.passes;
 
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
-import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
-import pt.up.fe.specs.util.SpecsCheck;
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.MethodResolver;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class MethodVerification extends AnalysisVisitor {
+    @Override
+    public List<Class<? extends AnalysisVisitor>> getDependencies() {
+        return List.of(AddType.class);
+    }
+
     @Override
     public void buildVisitor() {
-        addVisit(Kind.MAIN_METHOD_DECL, this::visitMainMethodDecl);
-        addVisit(Kind.METHOD_DECL, this::visitMethodDecl);
-        addVisit(Kind.METHOD_CALL_EXPR, this::visitMethodCallExpr);
+        addExitVisit(Kind.MAIN_METHOD_DECL, this::visitMainMethodDecl);
+        addExitVisit(Kind.METHOD_DECL, this::visitMethodDecl);
+        addExitVisit(Kind.METHOD_CALL_EXPR, this::visitMethodCallExpr);
     }
 
     private Void visitMainMethodDecl(JmmNode mainMethodDecl, SymbolTable table) {
@@ -40,7 +43,7 @@ public class MethodVerification extends AnalysisVisitor {
 
     private Void visitMethodDecl(JmmNode methodDecl, SymbolTable table) {
         // Checks if varargs are used only in the last parameter of a method declaration
-        checkVargars(methodDecl, table);
+        checkVarargs(methodDecl, table);
 
         var returnStmt = methodDecl.getChildren(Kind.RETURN_STMT);
 
@@ -87,16 +90,16 @@ public class MethodVerification extends AnalysisVisitor {
             return null;
         }
 
-        var returnStmtType = returnStmt.getFirst().get("type");
+        var returnStmtType = TypeUtils.getType(returnStmt.getFirst());
 
-        if (TypeUtils.getNameType(returnStmtType).equals("imported")) {
+        if (returnStmtType.getName().equals("imported")) {
             return null;
         }
 
-        if (!methodDecl.get("type").equals(returnStmtType)) {
+        if (!TypeUtils.getType(methodDecl).equals(returnStmtType)) {
             // Create error report
             var message = String.format("Return value of type incompatible '%s' with method return type '%s'.",
-                    returnStmtType, methodDecl.get("type"));
+                    returnStmtType, TypeUtils.getType(methodDecl));
             addReport(Report.newError(
                     Stage.SEMANTIC,
                     methodDecl.getLine(),
@@ -110,36 +113,29 @@ public class MethodVerification extends AnalysisVisitor {
         return null;
     }
 
-    private void checkVargars(JmmNode methodDecl, SymbolTable table) {
-        // Get method parameters from symbol table
-        List<Symbol> parameters = table.getParameters(methodDecl.get("name"));
-
-        // Checks if varargs are used in any parameter except the last one in a method declaration
-        for (int i = 0; i < parameters.size() - 1; i++) {
-            var isVararg = (boolean) parameters.get(i).getType().getObject("isVarargs");
+    private void checkVarargs(JmmNode methodDecl, SymbolTable table) {
+        var message = new MethodResolver((JmmSymbolTable) table).checkVarargsDeclaration(methodDecl.get("name"));
 
-            if (isVararg) {
-                // Create error report
-                var message = String.format("Found varargs before the last parameter of the method '%s'.", methodDecl.get("name"));
-                addReport(Report.newError(
-                        Stage.SEMANTIC,
-                        methodDecl.getLine(),
-                        methodDecl.getColumn(),
-                        message,
-                        null)
-                );
-                return;
-            }
+        if (message != null) {
+            // Create error report
+            addReport(Report.newError(
+                    Stage.SEMANTIC,
+                    methodDecl.getLine(),
+                    methodDecl.getColumn(),
+                    message,
+                    null)
+            );
         }
-
     }
 
     private Void visitMethodCallExpr(JmmNode methodCallExpr, SymbolTable table) {
-        if (TypeUtils.getNameType(methodCallExpr.get("type")).equals("imported")) return null;
+        if (TypeUtils.getType(methodCallExpr).getName().equals("imported")) return null;
+        // Already checked against the signatures of the imported class
+        if (methodCallExpr.getOptionalObject(AddType.IMPORTED_METHOD).isPresent()) return null;
         if (table.getSuper() == null) {
-            String methodName = methodCallExpr.get("name");
-            if (table.getMethods().contains(methodName)) {
-                checkArgumentTypes(methodCallExpr, methodName, table);
+            var symbolTable = (JmmSymbolTable) table;
+            if (!symbolTable.getSignatures(methodCallExpr.get("name")).isEmpty()) {
+                checkArgumentTypes(methodCallExpr, new MethodResolver(symbolTable));
                 return null;
             }
         }
@@ -152,141 +148,18 @@ public class MethodVerification extends AnalysisVisitor {
      * If the calling method accepts varargs, it can accept both a variable number of arguments of
      * the same type as an array, or directly an array.
      */
-    private void checkArgumentTypes(JmmNode methodCallExpr, String methodName, SymbolTable table) {
-        //System.out.println("Checking argument types for method: " + methodName);
-
-        // Get method parameters from symbol table
-        List<Symbol> parameters = table.getParameters(methodName);
-
-        // Get arguments from method call node
-        List<JmmNode> argumentNodes = getArgumentNodes(methodCallExpr);
-
-        // Method without arguments, nothing to check, return
-        if (parameters.isEmpty() && argumentNodes.isEmpty()) {
-            return;
-        }
-
-        if (argumentNodes.isEmpty()) {
-            // Create error report
-            var message = String.format("Expected method to receive '%d' arguments, but got '0'", parameters.size());
-            addReport(Report.newError(
-                    Stage.SEMANTIC,
-                    methodCallExpr.getLine(),
-                    methodCallExpr.getColumn(),
-                    message,
-                    null)
-            );
+    private void checkArgumentTypes(JmmNode methodCallExpr, MethodResolver resolver) {
+        if (resolver.resolve(methodCallExpr).isPresent())
             return;
-        }
 
-        // Check type compatibility for each argument except the last one
-        int i;
-        int nArgs = argumentNodes.size();
-        for (i = 0; i < parameters.size() - 1; i++) {
-            if (nArgs == 0) {
-                // Create error report
-                var message = String.format("Expected method to receive '%d' arguments, but got '%d'",
-                        parameters.size(), argumentNodes.size());
-                addReport(Report.newError(
-                        Stage.SEMANTIC,
-                        methodCallExpr.getLine(),
-                        methodCallExpr.getColumn(),
-                        message,
-                        null)
-                );
-                return;
-            }
-
-            JmmNode argNode = argumentNodes.get(i);
-            Type paramType = parameters.get(i).getType();
-            if (!argNode.get("type").equals(paramType.toString())) {
-                // Create error report
-                var message = String.format("Incompatible argument type. " +
-                                "Method '%s': Parameter '%d' expects '%s' but received '%s'.",
-                        methodName, i, paramType, argNode.get("type"));
-                addReport(Report.newError(
-                        Stage.SEMANTIC,
-                        methodCallExpr.getLine(),
-                        methodCallExpr.getColumn(),
-                        message,
-                        null)
-                );
-                return;
-            }
-            nArgs--;
-        }
-
-        if (nArgs == 0) {
-            // Create error report
-            var message = String.format("Expected method to receive '%d' arguments, but got '%d'",
-                    parameters.size(), argumentNodes.size());
-            addReport(Report.newError(
-                    Stage.SEMANTIC,
-                    methodCallExpr.getLine(),
-                    methodCallExpr.getColumn(),
-                    message,
-                    null)
-            );
-            return;
-        }
-
-        // Check type compatibility for last argument
-        var isVararg = (boolean) parameters.get(i).getType().getObject("isVarargs");
-        if (isVararg) {
-            // receive a variable of type int array
-            if (argumentNodes.get(i).get("type").equals(TypeUtils.newArrayIntType().toString())) return;
-
-            // receive variable number of (int) arguments
-            for (int j = i; j < argumentNodes.size(); j++) {
-                if (!argumentNodes.get(j).get("type").equals(TypeUtils.newIntType().toString())) {
-                    // Create error report
-                    var message = String.format("Varargs are limited to type 'int'." +
-                                    "Method '%s': Parameter '%d' expects 'int' but received '%s'.",
-                            methodName, j, argumentNodes.get(j).get("type"));
-                    addReport(Report.newError(
-                            Stage.SEMANTIC,
-                            methodCallExpr.getLine(),
-                            methodCallExpr.getColumn(),
-                            message,
-                            null)
-                    );
-                    return;
-                }
-            }
-        } else {
-            var lastParamType = parameters.get(i).getType();
-            if (!argumentNodes.get(i).get("type").equals(lastParamType.toString())) {
-                // Create error report
-                var message = String.format("Incompatible argument type. " +
-                                "Method '%s': Parameter '%d' expects '%s' but received '%s'.",
-                        methodName, i, lastParamType, argumentNodes.get(i).get("type"));
-                addReport(Report.newError(
-                        Stage.SEMANTIC,
-                        methodCallExpr.getLine(),
-                        methodCallExpr.getColumn(),
-                        message,
-                        null)
-                );
-                return;
-            }
-        }
-    }
-
-    /**
-     * Extract argument nodes from a method call node.
-     */
-    private List<JmmNode> getArgumentNodes(JmmNode methodCallNode) {
-        List<JmmNode> args = new ArrayList<>();
-
-        if (methodCallNode.getNumChildren() > 1) {
-            for (int i = 1; i < methodCallNode.getNumChildren(); i++) {
-                args.add(methodCallNode.getChildren().get(i));
-            }
-        }
-
-        return args;
+        // Create error report
+        addReport(Report.newError(
+                Stage.SEMANTIC,
+                methodCallExpr.getLine(),
+                methodCallExpr.getColumn(),
+                resolver.getMismatch(methodCallExpr),
+                null)
+        );
     }
 
 }
-
-
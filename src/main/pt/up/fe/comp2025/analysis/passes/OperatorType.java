@@ -8,24 +8,31 @@ import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+
+import java.util.List;
 import pt.up.fe.specs.util.SpecsCheck;
 
 
 public class OperatorType extends AnalysisVisitor {
 
+    @Override
+    public List<Class<? extends AnalysisVisitor>> getDependencies() {
+        return List.of(AddType.class);
+    }
+
     @Override
     public void buildVisitor() {
-        addVisit(Kind.BINARY_EXPR, this::visitBinaryExpr);
+        addExitVisit(Kind.BINARY_EXPR, this::visitBinaryExpr);
     }
 
     private Void visitBinaryExpr(JmmNode binaryExpr, SymbolTable table) {
-        var type = binaryExpr.get("type");
-        var typeLeftOperand = binaryExpr.getChild(0).get("type");
-        var typeRightOperand = binaryExpr.getChild(1).get("type");
+        var type = TypeUtils.getType(binaryExpr);
+        var typeLeftOperand = TypeUtils.getType(binaryExpr.getChild(0));
+        var typeRightOperand = TypeUtils.getType(binaryExpr.getChild(1));
 
         if (binaryExpr.get("op").equals("<")) {
-            if (typeLeftOperand.equals(TypeUtils.newIntType().toString()) &&
-                    typeRightOperand.equals(TypeUtils.newIntType().toString())) {
+            if (typeLeftOperand.equals(TypeUtils.newIntType()) &&
+                    typeRightOperand.equals(TypeUtils.newIntType())) {
                 return null;
             } else {
                 // Create error report
@@ -7,6 +7,8 @@ import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.analysis.AnalysisVisitor;
 import pt.up.fe.comp2025.ast.Kind;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
 import pt.up.fe.specs.util.SpecsCheck;
 
 /**
@@ -33,26 +35,13 @@ public class UndeclaredVariable extends AnalysisVisitor {
     private Void visitVarRefExpr(JmmNode varRefExpr, SymbolTable table) {
         SpecsCheck.checkNotNull(currentMethod, () -> "Expected current method to be set");
 
-        // Check if exists a parameter or variable declaration with the same name as the variable reference
+        // Check if exists a parameter, variable, field or import with the same name as the variable reference
         var varRefName = varRefExpr.get("name");
+        var symbol = ((JmmSymbolTable) table).lookup(currentMethod, varRefName);
 
-
-        // Var is a parameter, return
-        if (table.getParameters(currentMethod).stream()
-                .anyMatch(param -> param.getName().equals(varRefName))) {
-            return null;
-        }
-
-        // Var is a declared variable, return
-        if (table.getLocalVariables(currentMethod).stream()
-                .anyMatch(varDecl -> varDecl.getName().equals(varRefName))) {
-            return null;
-        }
-
-        // Var is a field, return
-        if (table.getFields().stream()
-                .anyMatch(field -> field.getName().equals(varRefName))) {
-            if (currentMethod.equals("main")) {
+        if (symbol.isPresent()) {
+            // Fields cannot be accessed in a static method
+            if (symbol.get().getScope() == ScopedSymbol.Scope.FIELD && currentMethod.equals("main")) {
                 // Create error report
                 var message = String.format("Found field access '%s' inside a static method.", varRefName);
                 addReport(Report.newError(
@@ -66,14 +55,6 @@ public class UndeclaredVariable extends AnalysisVisitor {
             return null;
         }
 
-        // Check if the variable is an import, return
-        for (var importName : table.getImports()) {
-            if (importName.equals(varRefName) || importName.endsWith("." + varRefName)) {
-                return null;
-            }
-        }
-
-
         // Create error report
         var message = String.format("Variable '%s' does not exist.", varRefName);
         addReport(Report.newError(
@@ -96,14 +77,9 @@ public class UndeclaredVariable extends AnalysisVisitor {
         // Check if exists field access inside a static method (main)
         var varName = assignStmt.get("name");
 
-        // Var is a declared variable, return
-        if (table.getLocalVariables(currentMethod).stream()
-                .anyMatch(varDecl -> varDecl.getName().equals(varName))) {
-            return null;
-        }
-
-        if (table.getFields().stream()
-                .anyMatch(field -> field.getName().equals(varName))) {
+        // Var is a field, not a declared variable or parameter
+        var symbol = ((JmmSymbolTable) table).lookup(currentMethod, varName);
+        if (symbol.isPresent() && symbol.get().getScope() == ScopedSymbol.Scope.FIELD) {
                 // Create error report
                 var message = String.format("Found field access '%s' inside a static method.", varName);
                 addReport(Report.newError(
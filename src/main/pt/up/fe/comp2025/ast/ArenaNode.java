@@ -0,0 +1,200 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+import pt.up.fe.specs.util.SpecsCheck;
+import pt.up.fe.specs.util.SpecsEnums;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A node of an {@link ArenaTree}. Only keeps the tree and its index there, every query reads the arrays of the tree.
+ * <p>
+ * Behaves as {@link JmmNodeImpl}: same kinds and attributes, getChildren returns a list that does not change with the
+ * node, copy returns a JmmNodeImpl, and nodes are only equal to themselves.
+ */
+public final class ArenaNode implements JmmNode {
+
+    // Same attributes as JmmNodeImpl.toString leaves out
+    private static final Set<String> ATTR_IGNORE = Set.copyOf(SpecsEnums.getKeys(NodePosition.class));
+
+    private final ArenaTree tree;
+    private final int id;
+
+    ArenaNode(ArenaTree tree, int id) {
+        this.tree = tree;
+        this.id = id;
+    }
+
+    public ArenaTree getTree() {
+        return tree;
+    }
+
+    /**
+     * @return the index of the node in its tree
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String getKind() {
+        return tree.getHierarchy(id).get(0);
+    }
+
+    @Override
+    public List<String> getHierarchy() {
+        return tree.getHierarchy(id);
+    }
+
+    @Override
+    public JmmNode copy(List<String> kindHierarchy) {
+        var copy = new JmmNodeImpl(kindHierarchy);
+        for (var attr : getAttributes())
+            copy.put(attr, get(attr));
+
+        return copy;
+    }
+
+    @Override
+    public JmmNode getParent() {
+        return tree.getParent(id);
+    }
+
+    @Override
+    public void setParent(JmmNode parent) {
+        tree.setParent(id, parent);
+    }
+
+    @Override
+    public void removeParent() {
+        tree.setParent(id, null);
+    }
+
+    @Override
+    public List<JmmNode> getChildren() {
+        return tree.getChildren(id);
+    }
+
+    @Override
+    public JmmNode getChild(int index) {
+        return tree.getChild(id, index);
+    }
+
+    @Override
+    public int getNumChildren() {
+        return tree.getNumChildren(id);
+    }
+
+    @Override
+    public void add(JmmNode child) {
+        tree.addChild(id, child, -1);
+    }
+
+    @Override
+    public void add(JmmNode child, int index) {
+        tree.addChild(id, child, index);
+    }
+
+    @Override
+    public JmmNode removeChild(int index) {
+        var children = tree.getChangedChildren(id);
+        if (index >= children.size()) {
+            System.out.println("[WARNING] Tried to remove child at index " + index + ", but node only has "
+                    + children.size() + " children");
+            return null;
+        }
+
+        var removedChild = children.remove(index);
+        removedChild.removeParent();
+        return removedChild;
+    }
+
+    @Override
+    public int removeChild(JmmNode node) {
+        var children = tree.getChangedChildren(id);
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i) == node) {
+                removeChild(i);
+                return i;
+            }
+        }
+
+        System.out.println("[WARNING] Tried to remove child from node, but could not find it.\nChild:" + node
+                + "\nParent:" + this);
+        return -1;
+    }
+
+    @Override
+    public void delete() {
+        var parent = getParent();
+        if (parent == null) {
+            System.out.println("[WARNING] Tried to remove itself from the tree, but node has no parent");
+            return;
+        }
+
+        parent.removeChild(this);
+    }
+
+    @Override
+    public void setChild(JmmNode newNode, int index) {
+        var children = tree.getChangedChildren(id);
+        var currentChild = children.get(index);
+
+        var newNodeParent = newNode.getParent();
+        int newNodeCurrentIndex = newNodeParent == null ? -1 : newNode.getIndexOfSelf();
+
+        currentChild.removeParent();
+
+        // If the new node had a parent, the current child takes its old position, as in JmmNodeImpl
+        if (newNodeParent == this) {
+            children.set(newNodeCurrentIndex, currentChild);
+            currentChild.setParent(this);
+        } else if (newNodeParent != null) {
+            newNodeParent.setChild(currentChild, newNodeCurrentIndex);
+        }
+
+        children.set(index, newNode);
+        newNode.setParent(this);
+    }
+
+    @Override
+    public Collection<String> getAttributes() {
+        return tree.getAttributes(id);
+    }
+
+    @Override
+    public boolean hasAttribute(String attribute) {
+        return tree.hasAttribute(id, attribute);
+    }
+
+    @Override
+    public Object getObject(String attribute) {
+        var value = tree.getAttribute(id, attribute);
+        SpecsCheck.checkNotNull(value, () -> "Node " + getKind() + " does not contain attribute '" + attribute + "'");
+        return value;
+    }
+
+    @Override
+    public Object putObject(String attribute, Object value) {
+        return tree.putAttribute(id, attribute, value);
+    }
+
+    @Override
+    public String toString() {
+        var attrs = getAttributes().stream()
+                .filter(attr -> !ATTR_IGNORE.contains(attr))
+                .toList();
+
+        if (attrs.isEmpty())
+            return getKind();
+
+        return getKind() + attrs.stream()
+                .map(attr -> attr + ": " + get(attr))
+                .collect(Collectors.joining(", ", " (", ")"));
+    }
+}
@@ -0,0 +1,383 @@
+package pt.up.fe.comp2025.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Compact storage of an AST, where the nodes are indexes into arrays shared by the whole tree instead of objects with
+ * their own map of attributes and list of children.
+ * <p>
+ * For each node, the tree keeps the id of its hierarchy and the index of its parent. The children of node i are
+ * {@code children[childOffsets[i]]} to {@code children[childOffsets[i + 1] - 1]}. Each attribute is a column with a
+ * value for every node, and string values are interned, so the positions and names repeated across the tree are
+ * stored once. Nodes are accessed through {@link ArenaNode}, which implements {@link JmmNode}.
+ * <p>
+ * The tree is built with {@link #newNode(List)} and {@link ArenaNode#add(JmmNode)}, in any order, and then
+ * {@link #finish()} lays out the children. Later changes to the children or the parent of a node (e.g. by constant
+ * folding) are kept for that node only, on top of the arrays. Attributes can be set from several threads, as long as
+ * each node is only set by one of them.
+ */
+public class ArenaTree {
+
+    // Hierarchies of all trees, so that a node only keeps the id of its hierarchy
+    private static final Map<List<String>, Integer> HIERARCHY_IDS = new HashMap<>();
+    private static final List<List<String>> HIERARCHIES = new CopyOnWriteArrayList<>();
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private int[] hierarchies;
+    private int[] parents;
+
+    // Children as linked lists while the tree is built, in the order they were added
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+
+    // Children after the tree is built
+    private int[] childOffsets;
+    private int[] children;
+
+    private ArenaNode[] nodes;
+
+    // Ids of the hierarchies used by this tree, which are usually constants, so that the global table is not locked
+    private final Map<List<String>, Integer> hierarchyIds;
+
+    private final Map<String, Object[]> columns;
+    private final List<String> attributeNames;
+    private final Map<String, String> strings;
+
+    private final Map<Integer, List<JmmNode>> changedChildren;
+    private final Map<Integer, Optional<JmmNode>> changedParents;
+
+    public ArenaTree() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of nodes expected, so that the arrays are not copied while the tree is built
+     */
+    public ArenaTree(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+
+        this.hierarchies = new int[capacity];
+        this.parents = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.lastChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        this.nodes = new ArenaNode[capacity];
+        this.hierarchyIds = new IdentityHashMap<>();
+        this.columns = new ConcurrentHashMap<>();
+        this.attributeNames = new CopyOnWriteArrayList<>();
+        this.strings = new ConcurrentHashMap<>();
+        this.changedChildren = new ConcurrentHashMap<>();
+        this.changedParents = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the id of the hierarchy, the same for equal hierarchies of any tree
+     */
+    static synchronized int getHierarchyId(List<String> hierarchy) {
+        var id = HIERARCHY_IDS.get(hierarchy);
+        if (id != null)
+            return id;
+
+        if (hierarchy.isEmpty())
+            throw new RuntimeException("Node hierarchy must have at least one element, is empty");
+
+        var copy = List.copyOf(hierarchy);
+        HIERARCHIES.add(copy);
+        HIERARCHY_IDS.put(copy, HIERARCHIES.size() - 1);
+
+        return HIERARCHIES.size() - 1;
+    }
+
+    /**
+     * Adds a node without parent. Only allowed before {@link #finish()}.
+     */
+    public ArenaNode newNode(List<String> hierarchy) {
+        if (isFinished())
+            throw new RuntimeException("Cannot add node '" + hierarchy.get(0) + "' to a finished tree");
+
+        if (size == hierarchies.length)
+            grow();
+
+        int id = size++;
+        hierarchies[id] = hierarchyIds.computeIfAbsent(hierarchy, ArenaTree::getHierarchyId);
+        parents[id] = -1;
+        firstChild[id] = -1;
+        lastChild[id] = -1;
+        nextSibling[id] = -1;
+        nodes[id] = new ArenaNode(this, id);
+
+        return nodes[id];
+    }
+
+    private void grow() {
+        int capacity = hierarchies.length * 2;
+
+        hierarchies = Arrays.copyOf(hierarchies, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        lastChild = Arrays.copyOf(lastChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        nodes = Arrays.copyOf(nodes, capacity);
+        columns.replaceAll((name, column) -> Arrays.copyOf(column, capacity));
+    }
+
+    /**
+     * Lays out the children of every node in a single array and drops the spare capacity. After this, nodes can no
+     * longer be added.
+     */
+    public void finish() {
+        if (isFinished())
+            return;
+
+        childOffsets = new int[size + 1];
+        children = new int[Math.max(size - 1, 0)];
+
+        int offset = 0;
+        for (int id = 0; id < size; id++) {
+            childOffsets[id] = offset;
+            for (int child = firstChild[id]; child != -1; child = nextSibling[child])
+                children[offset++] = child;
+        }
+        childOffsets[size] = offset;
+
+        if (offset != children.length)
+            children = Arrays.copyOf(children, offset);
+
+        if (size != hierarchies.length) {
+            hierarchies = Arrays.copyOf(hierarchies, size);
+            parents = Arrays.copyOf(parents, size);
+            nodes = Arrays.copyOf(nodes, size);
+            columns.replaceAll((name, column) -> Arrays.copyOf(column, size));
+        }
+
+        firstChild = null;
+        lastChild = null;
+        nextSibling = null;
+        hierarchyIds.clear();
+    }
+
+    public boolean isFinished() {
+        return childOffsets != null;
+    }
+
+    /**
+     * @return the first node added, or null if the tree is empty
+     */
+    public ArenaNode getRoot() {
+        return size == 0 ? null : nodes[0];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    List<String> getHierarchy(int id) {
+        return HIERARCHIES.get(hierarchies[id]);
+    }
+
+    // Parent and children
+
+    JmmNode getParent(int id) {
+        // Most trees are never changed, and then the lookup is skipped
+        var changed = changedParents.isEmpty() ? null : changedParents.get(id);
+        if (changed != null)
+            return changed.orElse(null);
+
+        return parents[id] == -1 ? null : nodes[parents[id]];
+    }
+
+    void setParent(int id, JmmNode parent) {
+        if (!isFinished()) {
+            // Set by addChild
+            if (parent instanceof ArenaNode arenaParent && arenaParent.getTree() == this
+                    && parents[id] == arenaParent.getId())
+                return;
+
+            throw new RuntimeException("Cannot change the parent of node '" + getHierarchy(id).get(0)
+                    + "' before the tree is finished");
+        }
+
+        changedParents.put(id, Optional.ofNullable(parent));
+    }
+
+    /**
+     * @param index position of the child, or -1 to add it after the others
+     */
+    void addChild(int id, JmmNode child, int index) {
+        if (isFinished()) {
+            var list = getChangedChildren(id);
+            list.add(index == -1 ? list.size() : index, child);
+            child.setParent(nodes[id]);
+            return;
+        }
+
+        if (!(child instanceof ArenaNode arenaChild) || arenaChild.getTree() != this || index != -1)
+            throw new RuntimeException("Can only add nodes of the same tree after the other children before the"
+                    + " tree is finished, got '" + child.getKind() + "'");
+
+        int childId = arenaChild.getId();
+        if (parents[childId] != -1)
+            throw new RuntimeException("Node '" + child.getKind() + "' already has a parent");
+
+        parents[childId] = id;
+        if (lastChild[id] == -1)
+            firstChild[id] = childId;
+        else
+            nextSibling[lastChild[id]] = childId;
+        lastChild[id] = childId;
+    }
+
+    int getNumChildren(int id) {
+        checkFinished(id);
+
+        var changed = changedChildren.isEmpty() ? null : changedChildren.get(id);
+        if (changed != null)
+            return changed.size();
+
+        return childOffsets[id + 1] - childOffsets[id];
+    }
+
+    JmmNode getChild(int id, int index) {
+        checkFinished(id);
+
+        var changed = changedChildren.isEmpty() ? null : changedChildren.get(id);
+        if (changed != null)
+            return changed.get(index);
+
+        int start = childOffsets[id];
+        int end = childOffsets[id + 1];
+        if (index < 0 || index >= end - start)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + (end - start)
+                    + " children");
+
+        return nodes[children[start + index]];
+    }
+
+    /**
+     * @return the children of the node, which do not change if the node changes later
+     */
+    List<JmmNode> getChildren(int id) {
+        checkFinished(id);
+
+        var changed = changedChildren.isEmpty() ? null : changedChildren.get(id);
+        if (changed != null)
+            return new ArrayList<>(changed);
+
+        return new ChildList(childOffsets[id], childOffsets[id + 1]);
+    }
+
+    /**
+     * @return the children of the node, as a list that replaces the arrays for this node
+     */
+    List<JmmNode> getChangedChildren(int id) {
+        checkFinished(id);
+
+        return changedChildren.computeIfAbsent(id, key -> {
+            var list = new ArrayList<JmmNode>(getNumChildren(id));
+            for (int i = childOffsets[id]; i < childOffsets[id + 1]; i++)
+                list.add(nodes[children[i]]);
+
+            return list;
+        });
+    }
+
+    private void checkFinished(int id) {
+        if (!isFinished())
+            throw new RuntimeException("Cannot read the children of node '" + getHierarchy(id).get(0)
+                    + "' before the tree is finished");
+    }
+
+    // Attributes
+
+    /**
+     * @return the names of the attributes of the node, in the order they were first used in the tree
+     */
+    List<String> getAttributes(int id) {
+        var attributes = new ArrayList<String>();
+        for (var name : attributeNames) {
+            // The name is listed just before its column is added
+            var column = columns.get(name);
+            if (column != null && column[id] != null)
+                attributes.add(name);
+        }
+
+        return attributes;
+    }
+
+    boolean hasAttribute(int id, String attribute) {
+        var column = columns.get(attribute);
+        return column != null && column[id] != null;
+    }
+
+    /**
+     * @return the value of the attribute, or null if the node does not have it
+     */
+    Object getAttribute(int id, String attribute) {
+        var column = columns.get(attribute);
+        return column == null ? null : column[id];
+    }
+
+    Object putAttribute(int id, String attribute, Object value) {
+        var column = columns.get(attribute);
+        if (column == null)
+            column = columns.computeIfAbsent(attribute, this::newColumn);
+
+        if (value instanceof String string)
+            value = intern(string);
+
+        var previous = column[id];
+        column[id] = value;
+
+        return previous;
+    }
+
+    private Object[] newColumn(String attribute) {
+        attributeNames.add(attribute);
+        return new Object[isFinished() ? size : hierarchies.length];
+    }
+
+    private String intern(String string) {
+        // Most strings are already there, and reading does not lock
+        var existing = strings.get(string);
+        if (existing != null)
+            return existing;
+
+        var interned = strings.putIfAbsent(string, string);
+        return interned != null ? interned : string;
+    }
+
+    /**
+     * Children of a node, read from the arrays of the tree.
+     */
+    private class ChildList extends AbstractList<JmmNode> implements RandomAccess {
+
+        private final int start;
+        private final int end;
+
+        private ChildList(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public JmmNode get(int index) {
+            if (index < 0 || index >= end - start)
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + (end - start)
+                        + " children");
+
+            return nodes[children[start + index]];
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
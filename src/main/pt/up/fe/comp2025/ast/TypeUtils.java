@@ -4,7 +4,10 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.*;
 
 /**
@@ -13,6 +16,18 @@ import java.util.regex.*;
 public class TypeUtils {
 
 
+    /**
+     * Attribute where semantic analysis stores the {@link Type} of each expression.
+     */
+    public static final String TYPE = "type";
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("name=([^,\\]]+)");
+    private static final Pattern IS_ARRAY_PATTERN = Pattern.compile("isArray=([^,\\]]+)");
+
+    // Canonical instance of each type stored in the AST, without attributes. Shared by every node and every
+    // compilation, so they must never be changed (see intern)
+    private static final Map<Type, Type> INTERNED = new ConcurrentHashMap<>();
+
     private final JmmSymbolTable table;
 
     private static final String MULT = "*";
@@ -53,8 +68,7 @@ public class TypeUtils {
 
     public static String getNameType(String type) {
         // "Type[name=int, isArray=false]"
-        Pattern pattern = Pattern.compile("name=([^,\\]]+)");
-        Matcher matcher = pattern.matcher(type);
+        Matcher matcher = NAME_PATTERN.matcher(type);
         if (matcher.find()) {
             return matcher.group(1);
         }
@@ -63,8 +77,7 @@ public class TypeUtils {
 
     public static String getIsArrayType(String type) {
         // "Type[name=int, isArray=false]"
-        Pattern pattern = Pattern.compile("isArray=([^,\\]]+)");
-        Matcher matcher = pattern.matcher(type);
+        Matcher matcher = IS_ARRAY_PATTERN.matcher(type);
         if (matcher.find()) {
             return matcher.group(1);
         }
@@ -75,6 +88,52 @@ public class TypeUtils {
         return new Type(getNameType(type), Boolean.parseBoolean(getIsArrayType(type)));
     }
 
+    /**
+     * The instance returned is shared by every node with the same type and must not be changed: {@link Type} is
+     * mutable through its attributes, so callers that need a type with attributes (e.g. "isVarargs") must create
+     * their own copy. A shared instance with attributes is detected the next time it is interned or read from a node.
+     *
+     * @return the canonical instance of the type, a copy without the attributes of the given type
+     */
+    public static Type intern(Type type) {
+        var interned = INTERNED.get(type);
+        if (interned != null)
+            return checkUnchanged(interned);
+
+        // The key must not be the given type, which may have attributes and be changed later
+        var canonical = new Type(type.getName(), type.isArray());
+        var previous = INTERNED.putIfAbsent(canonical, canonical);
+        return previous != null ? checkUnchanged(previous) : canonical;
+    }
+
+    private static Type checkUnchanged(Type interned) {
+        if (!interned.getAttributes().isEmpty())
+            throw new RuntimeException("Interned type '" + interned + "' was changed, it has the attributes "
+                    + interned.getAttributes() + ". Interned types are shared and must be copied before being changed");
+
+        return interned;
+    }
+
+    /**
+     * Stores the type of the node, as an interned {@link Type}.
+     */
+    public static void putType(JmmNode node, Type type) {
+        node.putObject(TYPE, intern(type));
+    }
+
+    /**
+     * @return the type stored in the node by semantic analysis, which is interned and must not be changed
+     */
+    public static Type getType(JmmNode node) {
+        var type = node.getObject(TYPE);
+
+        if (type instanceof Type typeObject)
+            return checkUnchanged(typeObject);
+
+        // Copies of nodes (JmmNode.copy) keep attributes as strings
+        return intern(getTypeFromString(type.toString()));
+    }
+
     public static Type convertType(JmmNode typeNode) {
 
         // TODO: When you support new types, this must be updated
@@ -118,37 +177,13 @@ public class TypeUtils {
     }
 
     private Type getVarType(JmmNode node) {
-        var varName = node.get("name");
-
-        if (node.getAncestor(Kind.METHOD_DECL).isPresent()) {
-            var method = node.getAncestor(Kind.METHOD_DECL).get().get("name");
-
-            // Check if the variable is a local variable
-            for (var localVar : table.getLocalVariables(method)) {
-                if (localVar.getName().equals(varName))
-                    return localVar.getType();
-            }
-
-            // Check if the variable is a parameter
-            for (var param : table.getParameters(method)) {
-                if (param.getName().equals(varName))
-                    return param.getType();
-            }
-        }
-
-        // Check if the variable is a field
-        for (var field : table.getFields()) {
-            if (field.getName().equals(varName))
-                return field.getType();
-        }
-
-        // Check if the variable is an import
-        for (var importName : table.getImports()) {
-            if (importName.equals(varName) || importName.endsWith("." + varName)) {
-                return TypeUtils.newType("imported");
-            }
-        }
-
-        return null;
+        var method = node.getAncestor(Kind.METHOD_DECL)
+                .map(methodDecl -> methodDecl.get("name"))
+                .orElse(null);
+
+        // Local variable, parameter, field or import
+        return table.lookup(method, node.get("name"))
+                .map(ScopedSymbol::getType)
+                .orElse(null);
     }
 }
@@ -0,0 +1,96 @@
+package pt.up.fe.comp2025.backend;
+
+import jas.jasError;
+import jasmin.ClassFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Assembles Jasmin code into class files in memory.
+ * <p>
+ * JasminResult assembles from a .j file written to a temporary folder, and writes the .class file there. Here the code
+ * is read from a string and the class files are kept as bytes, which can be written once where they are needed or
+ * loaded directly by a class loader.
+ */
+public class JasminAssembler {
+
+    // Jasmin keeps state in static fields while assembling, so only one class is assembled at a time
+    private static final Object LOCK = new Object();
+
+    /**
+     * Same as {@link #assemble(String, String)}, with the source file "Foo.j" for class Foo, as in JasminResult.
+     */
+    public static Map<String, byte[]> assemble(String jasminCode) {
+        return assemble(jasminCode, getSimpleClassName(jasminCode) + ".j");
+    }
+
+    /**
+     * @param sourceName name of the source file recorded in the class files
+     * @return the class file of each class defined by the code, indexed by the binary name of the class (e.g.
+     * "pkg.Foo")
+     */
+    public static Map<String, byte[]> assemble(String jasminCode, String sourceName) {
+        var classFile = new ClassFile();
+        var bytes = new ByteArrayOutputStream();
+
+        synchronized (LOCK) {
+            try {
+                classFile.readJasmin(new StringReader(jasminCode), sourceName, true);
+
+                if (classFile.errorCount() > 0)
+                    throw new RuntimeException("Found " + classFile.errorCount()
+                            + " errors while assembling Jasmin code:\n" + jasminCode);
+
+                classFile.write(bytes);
+            } catch (jasError e) {
+                throw new RuntimeException("JAS Error: " + e.getMessage() + "\nCode: " + jasminCode, e);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException("Exception while assembling Jasmin code: " + e.getMessage()
+                        + "\nCode: " + jasminCode, e);
+            }
+        }
+
+        var classes = new LinkedHashMap<String, byte[]>();
+        classes.put(classFile.getClassName().replace('/', '.'), bytes.toByteArray());
+
+        return classes;
+    }
+
+    // Last part of the name in the '.class' directive, e.g. "Foo" in ".class public pkg/Foo"
+    private static String getSimpleClassName(String jasminCode) {
+        for (var line : jasminCode.lines().toList()) {
+            var tokens = line.strip().split("\\s+");
+            if (!tokens[0].equals(".class"))
+                continue;
+
+            var name = tokens[tokens.length - 1];
+            return name.substring(name.lastIndexOf('/') + 1);
+        }
+
+        throw new RuntimeException("Expected a '.class' directive in Jasmin code:\n" + jasminCode);
+    }
+
+    /**
+     * Writes each class file to the folder of its package inside the output folder, with a single write per file.
+     */
+    public static void write(Map<String, byte[]> classes, Path outputDir) {
+        for (var entry : classes.entrySet()) {
+            var classFile = outputDir.resolve(entry.getKey().replace('.', '/') + ".class");
+
+            try {
+                Files.createDirectories(classFile.getParent());
+                Files.write(classFile, entry.getValue());
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write class file '" + classFile + "'", e);
+            }
+        }
+    }
+}
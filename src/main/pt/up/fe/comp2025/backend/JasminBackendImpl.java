@@ -3,6 +3,9 @@ package pt.up.fe.comp2025.backend;
 import pt.up.fe.comp.jmm.jasmin.JasminBackend;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.optimization.BuiltOllir;
+import pt.up.fe.specs.util.SpecsCollections;
 
 /**
  * Implementation of the Jasmin backend.
@@ -12,7 +15,9 @@ public class JasminBackendImpl implements JasminBackend {
     @Override
     public JasminResult toJasmin(OllirResult ollirResult) {
 
-        System.out.println("Converting OLLIR to Jasmin:\n" + ollirResult.getOllirCode());
+        // Printing the OLLIR code is only worth it when requested (option "-d")
+        if (CompilerConfig.getDumpOllir(ollirResult.getConfig()))
+            System.out.println("Converting OLLIR to Jasmin:\n" + ollirResult.getOllirCode());
 
         var jasminGenerator = new JasminGenerator(ollirResult);
         var jasminCode = jasminGenerator.build();
@@ -22,4 +27,22 @@ public class JasminBackendImpl implements JasminBackend {
         return new JasminResult(ollirResult, jasminCode, jasminGenerator.getReports());
     }
 
+    /**
+     * Same as {@link #toJasmin(OllirResult)}, for a class built by the OLLIR generation.
+     */
+    public JasminResult toJasmin(BuiltOllir builtOllir) {
+
+        // Printing the OLLIR code is only worth it when requested (option "-d")
+        if (CompilerConfig.getDumpOllir(builtOllir.getConfig()))
+            System.out.println("Converting OLLIR to Jasmin:\n" + builtOllir.getOllirCode());
+
+        var jasminGenerator = new JasminGenerator(builtOllir.getOllirClass(), builtOllir.getConfig());
+        var jasminCode = jasminGenerator.build();
+
+        System.out.println("Generated Jasmin:\n" + jasminCode);
+
+        return new JasminResult(builtOllir.getOllirClass().getClassName(), jasminCode,
+                SpecsCollections.concat(builtOllir.getReports(), jasminGenerator.getReports()), builtOllir.getConfig());
+    }
+
 }
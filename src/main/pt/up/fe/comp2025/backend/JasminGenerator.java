@@ -6,6 +6,7 @@ import org.specs.comp.ollir.type.*;
 import org.specs.comp.ollir.tree.TreeNode;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2025.symboltable.ImportIndex;
 import pt.up.fe.specs.util.SpecsCheck;
 import pt.up.fe.specs.util.classmap.FunctionClassMap;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
@@ -13,21 +14,24 @@ import pt.up.fe.specs.util.utilities.StringLines;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
- * Generates Jasmin code from an OllirResult.
+ * Generates Jasmin code from an OLLIR class.
  * <p>
- * One JasminGenerator instance per OllirResult.
+ * One JasminGenerator instance per OLLIR class.
  */
 public class JasminGenerator {
 
     private static final String NL = "\n";
     private static final String TAB = "   ";
 
-    private final OllirResult ollirResult;
+    private final ClassUnit ollirClass;
 
     List<Report> reports;
 
@@ -35,29 +39,43 @@ public class JasminGenerator {
 
     Method currentMethod;
     Limits limits;
+    // Variables of the current method kept on the operand stack, and the register of each virtual register
+    StackTemps stackTemps;
+    Map<Integer, Integer> registers;
     private final Map<String, String> importedClassPaths;
+    // Signatures of the classes in the classpath (option "-p")
+    private final ImportIndex imports;
 
     private final JasminUtils types;
 
     private final FunctionClassMap<TreeNode, String> generators;
 
     public JasminGenerator(OllirResult ollirResult) {
-        this.ollirResult = ollirResult;
+        this(ollirResult.getOllirClass(), ollirResult.getConfig());
+    }
+
+    /**
+     * @param config options of the compilation, e.g. the classpath of the imported classes (option "-p")
+     */
+    public JasminGenerator(ClassUnit ollirClass, Map<String, String> config) {
+        this.ollirClass = ollirClass;
 
         reports = new ArrayList<>();
         code = null;
         currentMethod = null;
         limits = null;
 
-        types = new JasminUtils(ollirResult);
+        types = new JasminUtils(ollirClass);
 
         importedClassPaths = new HashMap<>();
-        for (var importPath : ollirResult.getOllirClass().getImports()) {
+        for (var importPath : ollirClass.getImports()) {
             var parts = importPath.split("\\.");
             var lastPart = parts[parts.length - 1];
             importedClassPaths.put(lastPart, importPath.replace('.', '/'));
         }
 
+        imports = ImportIndex.fromConfig(config);
+
         this.generators = new FunctionClassMap<>();
         generators.put(ClassUnit.class, this::generateClassUnit);
         generators.put(Field.class, this::generateField);
@@ -105,18 +123,15 @@ public class JasminGenerator {
         var className = ((ClassType) invokeVirtual.getCaller().getType()).getName();
         var fullClassName = importedClassPaths.getOrDefault(className, className);
         var methodName = ((LiteralElement) invokeVirtual.getMethodName()).getLiteral();
-        var params = invokeVirtual.getArguments().stream()
-                .map(arg -> types.getDescriptor(arg.getType()))
-                .collect(Collectors.joining());
-        var returnType = types.getDescriptor(invokeVirtual.getReturnType());
+        var descriptor = getMethodDescriptor(fullClassName, methodName, invokeVirtual);
 
         code.append("invokevirtual ")
                 .append(fullClassName).append("/")
-                .append(methodName).append("(")
-                .append(params).append(")")
-                .append(returnType).append(NL);
+                .append(methodName)
+                .append(descriptor).append(NL);
 
         limits.decrement(invokeVirtual.getArguments().size() + 1);
+        popIgnoredResult(code, descriptor, invokeVirtual);
         var isVoid = BuiltinType.is(invokeVirtual.getReturnType(), BuiltinKind.VOID);
         if (!isVoid)
             limits.increment();
@@ -169,18 +184,15 @@ public class JasminGenerator {
         var className = ((Operand) invokeStatic.getCaller()).getName();
         var fullClassName = importedClassPaths.getOrDefault(className, className);
         var methodName = ((LiteralElement) invokeStatic.getMethodName()).getLiteral();
-        var params = invokeStatic.getArguments().stream()
-                .map(arg -> types.getDescriptor(arg.getType()))
-                .collect(Collectors.joining());
-        var returnType = types.getDescriptor(invokeStatic.getReturnType());
+        var descriptor = getMethodDescriptor(fullClassName, methodName, invokeStatic);
 
         code.append("invokestatic ")
                 .append(fullClassName).append("/")
-                .append(methodName).append("(")
-                .append(params).append(")")
-                .append(returnType).append(NL);
+                .append(methodName)
+                .append(descriptor).append(NL);
 
         limits.decrement(invokeStatic.getArguments().size());
+        popIgnoredResult(code, descriptor, invokeStatic);
         var isVoid = BuiltinType.is(invokeStatic.getReturnType(), BuiltinKind.VOID);
         if (!isVoid)
             limits.increment();
@@ -188,6 +200,54 @@ public class JasminGenerator {
         return code.toString();
     }
 
+    /**
+     * @return the descriptor of the called method: the one of the class in the classpath when it has a method with the
+     * types of the arguments, otherwise the types of the arguments and of the result in OLLIR
+     */
+    private String getMethodDescriptor(String fullClassName, String methodName, CallInstruction call) {
+        var params = call.getArguments().stream()
+                .map(arg -> getDescriptor(arg.getType()))
+                .collect(Collectors.joining("", "(", ")"));
+        var returnType = getDescriptor(call.getReturnType());
+
+        // The exact return type, unless the value is used with another type
+        var method = imports.findMethod(fullClassName.replace('/', '.'), methodName, params);
+        if (method.isPresent() && (isVoid(call) || method.get().getDescriptor().endsWith(")" + returnType)))
+            return method.get().getDescriptor();
+
+        return params + returnType;
+    }
+
+    /**
+     * Drops the value returned by a method when the OLLIR call ignores it, i.e. it has type void but the method of
+     * the imported class returns a value.
+     */
+    private void popIgnoredResult(StringBuilder code, String descriptor, CallInstruction call) {
+        if (!isVoid(call) || descriptor.endsWith(")V"))
+            return;
+
+        limits.increment();
+        code.append(descriptor.endsWith(")J") || descriptor.endsWith(")D") ? "pop2" : "pop").append(NL);
+        limits.decrement();
+    }
+
+    private static boolean isVoid(CallInstruction call) {
+        return BuiltinType.is(call.getReturnType(), BuiltinKind.VOID);
+    }
+
+    // Imported classes by their full name, as in the descriptors of the classpath
+    private String getDescriptor(Type type) {
+        if (type instanceof ArrayType arrayType)
+            return "[" + getDescriptor(arrayType.getElementType());
+
+        if (type instanceof ClassType classType) {
+            var className = classType.getName();
+            return "L" + importedClassPaths.getOrDefault(className, className.replace('.', '/')) + ";";
+        }
+
+        return types.getDescriptor(type);
+    }
+
     private String generateSingleOpCond(SingleOpCondInstruction singleOpCond) {
         var code = new StringBuilder();
 
@@ -238,7 +298,7 @@ public class JasminGenerator {
 
         Operand caller = (Operand) invokeSpecial.getCaller();
         if (this.currentMethod.getVarTable().get(caller.getName()) != null) {
-            code.append(generators.apply(caller));
+            code.append(apply(caller));
         }
 
         var className = ((ClassType) invokeSpecial.getCaller().getType()).getName();
@@ -303,6 +363,10 @@ public class JasminGenerator {
     private String apply(TreeNode node) {
         var code = new StringBuilder();
 
+        // the value was pushed before, see StackTemps
+        if (node instanceof Element element && stackTemps != null && stackTemps.isOnStack(element))
+            return "";
+
         // Print the corresponding OLLIR code as a comment
         //code.append("; ").append(node).append(NL);
 
@@ -320,7 +384,7 @@ public class JasminGenerator {
 
         // This way, build is idempotent
         if (code == null) {
-            code = apply(ollirResult.getOllirClass());
+            code = apply(ollirClass);
         }
 
         return code;
@@ -332,7 +396,7 @@ public class JasminGenerator {
         var code = new StringBuilder();
 
         // generate class name
-        var className = ollirResult.getOllirClass().getClassName();
+        var className = ollirClass.getClassName();
         code.append(".class ").append(className).append(NL).append(NL);
 
         var fullSuperClass = "";
@@ -349,7 +413,7 @@ public class JasminGenerator {
 
         code.append(".super ").append(fullSuperClass).append(NL);
 
-        for (var field : ollirResult.getOllirClass().getFields()) {
+        for (var field : ollirClass.getFields()) {
             code.append(apply(field));
         }
 
@@ -365,7 +429,7 @@ public class JasminGenerator {
         code.append(defaultConstructor);
 
         // generate code for all other methods
-        for (var method : ollirResult.getOllirClass().getMethods()) {
+        for (var method : ollirClass.getMethods()) {
 
             // Ignore constructor, since there is always one constructor
             // that receives no arguments, and has been already added
@@ -406,14 +470,40 @@ public class JasminGenerator {
 
         code.append(methodName).append("(").append(params).append(")").append(returnType).append(NL);
 
+        // if-else ladders on the same local are emitted as a single switch
+        var multiwayBranches = new SwitchLowering(method).findBranches();
+
+        // single-use temporaries stay on the operand stack, and the remaining locals are renumbered
+        stackTemps = new StackTemps(method, getReplacedInstructions(method, multiwayBranches));
+        registers = allocateRegisters(method);
+
         var bodyCode = new StringBuilder();
-        for (var inst : method.getInstructions()) {
+        var instructions = method.getInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            var inst = instructions.get(i);
 
             for (var label : method.getLabels(inst)) {
                 bodyCode.append(label).append(":").append(NL);
             }
 
-            var instCode = StringLines.getLines(apply(inst)).stream()
+            var multiwayBranch = multiwayBranches.get(inst);
+            if (multiwayBranch != null) {
+                var switchCode = StringLines.getLines(generateMultiwayBranch(multiwayBranch)).stream()
+                        .collect(Collectors.joining(NL + TAB, TAB, NL));
+                bodyCode.append(switchCode);
+                bodyCode.append(multiwayBranch.getDefaultLabel()).append(":").append(NL);
+
+                // skip the comparisons replaced by the switch
+                i += multiwayBranch.getLength() - 1;
+                continue;
+            }
+
+            // values kept on the stack for later instructions
+            var preloadCode = new StringBuilder();
+            for (var element : stackTemps.getPreloads(inst))
+                preloadCode.append(generators.apply(element));
+
+            var instCode = StringLines.getLines(preloadCode + apply(inst)).stream()
                     .collect(Collectors.joining(NL + TAB, TAB, NL));
             bodyCode.append(instCode);
 
@@ -426,8 +516,8 @@ public class JasminGenerator {
         // Add limits
         code.append(TAB).append(".limit stack ").append(limits.getMaxStack()).append(NL);
 
-        for (var var : method.getVarTable().values())
-            limits.updateLocals(var.getVirtualReg());
+        for (var reg : registers.values())
+            limits.updateLocals(reg);
 
         code.append(TAB).append(".limit locals ").append(limits.getMaxLocals()).append(NL);
 
@@ -437,10 +527,50 @@ public class JasminGenerator {
         // unset method
         currentMethod = null;
         limits = null;
+        stackTemps = null;
+        registers = null;
         //System.out.println("ENDING METHOD " + method.getMethodName());
         return code.toString();
     }
 
+    /**
+     * @return the instructions replaced by the multiway branches
+     */
+    private static Set<Instruction> getReplacedInstructions(Method method, Map<Instruction, MultiwayBranch> branches) {
+        var replaced = new HashSet<Instruction>();
+        var instructions = method.getInstructions();
+
+        for (int i = 0; i < instructions.size(); i++) {
+            var branch = branches.get(instructions.get(i));
+            if (branch != null)
+                replaced.addAll(instructions.subList(i, i + branch.getLength()));
+        }
+
+        return replaced;
+    }
+
+    /**
+     * Numbers the virtual registers still in use, in order, so that the locals of the stack temporaries leave no
+     * gaps. Parameters come first and keep their registers.
+     */
+    private Map<Integer, Integer> allocateRegisters(Method method) {
+        var used = new TreeSet<Integer>();
+        for (var entry : method.getVarTable().entrySet()) {
+            if (!stackTemps.getTemps().contains(entry.getKey()))
+                used.add(entry.getValue().getVirtualReg());
+        }
+
+        var allocated = new HashMap<Integer, Integer>();
+        for (var virtualReg : used)
+            allocated.put(virtualReg, allocated.size());
+
+        return allocated;
+    }
+
+    private int getRegister(Operand operand) {
+        return registers.get(currentMethod.getVarTable().get(operand.getName()).getVirtualReg());
+    }
+
     private String generateAssign(AssignInstruction assign) {
         var code = new StringBuilder();
 
@@ -492,7 +622,7 @@ public class JasminGenerator {
             }
 
             if (varOp != null && value >= -128 && value <= 127) {
-                var reg = currentMethod.getVarTable().get(lhsOp.getName()).getVirtualReg();
+                var reg = getRegister(lhsOp);
                 code.append("iinc ").append(reg).append(" ").append(value).append(NL);
                 return code.toString();
             }
@@ -543,9 +673,11 @@ public class JasminGenerator {
     }
 
     private String generateLiteral(LiteralElement literal) {
-        limits.increment();
+        return pushInt(Integer.parseInt(literal.getLiteral()));
+    }
 
-        int intValue = Integer.parseInt(literal.getLiteral());
+    private String pushInt(int intValue) {
+        limits.increment();
 
         if (intValue == -1) {
             return "iconst_m1" + NL;
@@ -556,10 +688,51 @@ public class JasminGenerator {
         } else if (intValue >= -32768 && intValue <= 32767) {
             return "sipush " + intValue + NL;
         } else {
-            return "ldc " + literal.getLiteral() + NL;
+            return "ldc " + intValue + NL;
         }
     }
 
+    private String generateMultiwayBranch(MultiwayBranch branch) {
+        var code = new StringBuilder();
+        var low = branch.getLow();
+
+        // values below the table jump to the first '<' case, if there is one
+        if (!branch.getBelowTarget().equals(branch.getDefaultLabel())) {
+            code.append(load(branch.getSelector()));
+            if (low == 0) {
+                code.append("iflt ").append(branch.getBelowTarget()).append(NL);
+                limits.decrement();
+            } else {
+                code.append(pushInt(low));
+                code.append("if_icmplt ").append(branch.getBelowTarget()).append(NL);
+                limits.decrement(2);
+            }
+        }
+
+        code.append(load(branch.getSelector()));
+
+        var targets = branch.getTargets();
+        if (branch.isTable()) {
+            code.append("tableswitch ").append(low).append(" ").append(branch.getHigh()).append(NL);
+            for (var target : targets) {
+                code.append(TAB).append(target).append(NL);
+            }
+        } else {
+            code.append("lookupswitch").append(NL);
+            for (int i = 0; i < targets.size(); i++) {
+                if (targets.get(i).equals(branch.getDefaultLabel()))
+                    continue;
+
+                code.append(TAB).append(low + i).append(" : ").append(targets.get(i)).append(NL);
+            }
+        }
+        code.append(TAB).append("default : ").append(branch.getDefaultLabel()).append(NL);
+
+        limits.decrement();
+
+        return code.toString();
+    }
+
     private String generateOperand(Operand operand) {
         return load(operand);
     }
@@ -655,15 +828,15 @@ public class JasminGenerator {
     }
 
     private String store(Operand operand) {
-        // get register
-        var reg = currentMethod.getVarTable().get(operand.getName());
+        // the value stays on the stack for the instruction that uses it
+        if (stackTemps.getTemps().contains(operand.getName()))
+            return "";
 
         var prefix = types.getPrefix(operand.getType());
 
-        //limits.updateLocals(reg.getVirtualReg());
         limits.decrement();
 
-        var virtualReg = reg.getVirtualReg();
+        var virtualReg = getRegister(operand);
 
         if (virtualReg >= 0 && virtualReg <= 3)
             return prefix + "store_" + virtualReg + NL;
@@ -672,19 +845,15 @@ public class JasminGenerator {
     }
 
     private String load(Operand operand) {
-        // get register
-        var reg = currentMethod.getVarTable().get(operand.getName());
-
         var prefix = types.getPrefix(operand.getType());
 
         // TODO: Check if this is correct
         if (operand instanceof ArrayOperand)
             prefix = "a";
 
-        //limits.updateLocals(reg.getVirtualReg());
         limits.increment();
 
-        var virtualReg = reg.getVirtualReg();
+        var virtualReg = getRegister(operand);
 
         if (virtualReg >= 0 && virtualReg <= 3)
             return prefix + "load_" + virtualReg + NL;
@@ -2,7 +2,6 @@ package pt.up.fe.comp2025.backend;
 
 import org.specs.comp.ollir.*;
 import org.specs.comp.ollir.type.*;
-import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.specs.util.SpecsCheck;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
@@ -11,11 +10,11 @@ import java.util.Map;
 
 public class JasminUtils {
 
-    private final OllirResult ollirResult;
+    private final ClassUnit ollirClass;
 
-    public JasminUtils(OllirResult ollirResult) {
+    public JasminUtils(ClassUnit ollirClass) {
         // Can be useful to have if you expand this class with more methods
-        this.ollirResult = ollirResult;
+        this.ollirClass = ollirClass;
     }
 
 
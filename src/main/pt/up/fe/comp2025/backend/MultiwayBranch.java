@@ -0,0 +1,75 @@
+package pt.up.fe.comp2025.backend;
+
+import org.specs.comp.ollir.Operand;
+
+import java.util.List;
+
+/**
+ * A ladder of conditional branches on the same local that can be emitted as a single
+ * tableswitch or lookupswitch.
+ * <p>
+ * Values in [low, low + targets.size() - 1] jump to the corresponding entry in targets; values below low jump to
+ * belowTarget; values above the table fall through to the default label.
+ */
+public class MultiwayBranch {
+
+    private final Operand selector;
+    private final int low;
+    private final List<String> targets;
+    private final String belowTarget;
+    private final String defaultLabel;
+    private final int length;
+    private final boolean isTable;
+
+    public MultiwayBranch(Operand selector, int low, List<String> targets, String belowTarget, String defaultLabel,
+                          int length, boolean isTable) {
+        this.selector = selector;
+        this.low = low;
+        this.targets = targets;
+        this.belowTarget = belowTarget;
+        this.defaultLabel = defaultLabel;
+        this.length = length;
+        this.isTable = isTable;
+    }
+
+    public Operand getSelector() {
+        return selector;
+    }
+
+    public int getLow() {
+        return low;
+    }
+
+    public int getHigh() {
+        return low + targets.size() - 1;
+    }
+
+    /**
+     * @return the jump target of each value in [low, high], the default label for values that fall through
+     */
+    public List<String> getTargets() {
+        return targets;
+    }
+
+    public String getBelowTarget() {
+        return belowTarget;
+    }
+
+    public String getDefaultLabel() {
+        return defaultLabel;
+    }
+
+    /**
+     * @return the number of OLLIR instructions replaced by this branch
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return true if a tableswitch should be emitted, false for a lookupswitch
+     */
+    public boolean isTable() {
+        return isTable;
+    }
+}
@@ -0,0 +1,235 @@
+package pt.up.fe.comp2025.backend;
+
+import org.specs.comp.ollir.*;
+import org.specs.comp.ollir.inst.*;
+import org.specs.comp.ollir.tree.TreeNode;
+import org.specs.comp.ollir.type.ArrayType;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the temporaries of a method whose value can stay on the operand stack instead of in a local.
+ * <p>
+ * OLLIR is three-address code, so every intermediate result of an expression is assigned to a temporary, e.g.
+ * {@code a + b * c} becomes {@code tmp0 := b * c; tmp1 := a + tmp0;}. javac keeps such values on the operand stack:
+ * {@code iload a; iload b; iload c; imul; iadd}. The same code is emitted for the OLLIR when:
+ * <ul>
+ * <li>each temporary is assigned once and used once, and its assignment ends the code that comes right before the
+ * instruction that uses it, or right before the code of the next temporary pushed by that instruction;</li>
+ * <li>the values that instruction pushes before the temporaries are variables or literals, which are pushed before
+ * the code of the temporaries instead, since that code only assigns other temporaries;</li>
+ * <li>no instruction in between is a jump target, where the stack would not hold those values.</li>
+ * </ul>
+ * The stores and loads of such temporaries are dropped, and they need no locals.
+ */
+public class StackTemps {
+
+    // Names given to temporaries by OptUtils.nextTemp(), variables of the source keep their locals
+    private static final Pattern TEMP_NAME = Pattern.compile("tmp\\d+");
+
+    private final Method method;
+    private final Set<Instruction> excluded;
+    private final Map<String, Long> operandUses;
+
+    private final Set<String> temps;
+    private final Set<Element> onStack;
+    private final Map<Instruction, List<Element>> preloads;
+
+    /**
+     * @param excluded instructions emitted by other means, e.g. replaced by a multiway branch
+     */
+    public StackTemps(Method method, Set<Instruction> excluded) {
+        this.method = method;
+        this.excluded = excluded;
+        this.operandUses = method.getInstructions().stream()
+                .flatMap(TreeNode::getDescendantsStream)
+                .filter(node -> node instanceof Operand)
+                .collect(Collectors.groupingBy(node -> ((Operand) node).getName(), Collectors.counting()));
+
+        this.temps = new HashSet<>();
+        // Elements are compared by identity, each one is pushed by a single instruction
+        this.onStack = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.preloads = new HashMap<>();
+
+        find();
+    }
+
+    /**
+     * @return the names of the temporaries kept on the operand stack, which are not stored
+     */
+    public Set<String> getTemps() {
+        return temps;
+    }
+
+    /**
+     * @return true if the value of the element is already on the stack when the instruction that uses it starts
+     */
+    public boolean isOnStack(Element element) {
+        return onStack.contains(element);
+    }
+
+    /**
+     * @return the elements to push before the code of the instruction, for instructions that come after it
+     */
+    public List<Element> getPreloads(Instruction instruction) {
+        return preloads.getOrDefault(instruction, List.of());
+    }
+
+    private void find() {
+        var instructions = method.getInstructions();
+
+        // First instruction of the code that computes the values of each instruction
+        var spanStarts = new int[instructions.size()];
+
+        for (int k = 0; k < instructions.size(); k++) {
+            spanStarts[k] = k;
+
+            var inst = instructions.get(k);
+            if (excluded.contains(inst))
+                continue;
+
+            var pushed = getPushed(inst);
+
+            // The last temporary kept on the stack is computed right before the instruction, values pushed after it
+            // are pushed as usual
+            int end = pushed.size();
+            while (end > 0 && (k == 0 || !isAssignedAt(pushed.get(end - 1), k - 1)))
+                end--;
+
+            if (end == 0)
+                continue;
+
+            // Each temporary before it is computed right before the code of the next one
+            int pos = k - 1;
+            int first = end;
+            while (first > 0 && pos >= 0 && isAssignedAt(pushed.get(first - 1), pos)) {
+                first--;
+                pos = spanStarts[pos] - 1;
+            }
+
+            // Values pushed before the temporaries must be pushed before their code
+            var early = pushed.subList(0, first);
+            if (!early.stream().allMatch(StackTemps::isStable))
+                continue;
+
+            // Nothing can jump into the code while the values are on the stack
+            int start = pos + 1;
+            if (instructions.subList(start + 1, k + 1).stream().anyMatch(i -> !method.getLabels(i).isEmpty()))
+                continue;
+
+            for (var element : pushed.subList(first, end))
+                temps.add(((Operand) element).getName());
+
+            onStack.addAll(pushed.subList(0, end));
+
+            // Values of later instructions go deeper in the stack
+            if (!early.isEmpty()) {
+                var startInst = instructions.get(start);
+                var startPreloads = new ArrayList<>(early);
+                startPreloads.addAll(getPreloads(startInst));
+                preloads.put(startInst, startPreloads);
+            }
+
+            spanStarts[k] = start;
+        }
+    }
+
+    /**
+     * @return true if the element is a temporary used only once, assigned by the instruction at the position
+     */
+    private boolean isAssignedAt(Element element, int pos) {
+        if (!(element instanceof Operand operand) || element instanceof ArrayOperand)
+            return false;
+
+        // Only local temporaries: parameters keep their registers, which are fixed by the calling convention
+        var name = operand.getName();
+        var descriptor = method.getVarTable().get(name);
+        if (!TEMP_NAME.matcher(name).matches() || descriptor == null || descriptor.getScope() != VarScope.LOCAL)
+            return false;
+
+        // The assignment and the use
+        if (operandUses.getOrDefault(name, 0L) != 2)
+            return false;
+
+        var inst = method.getInstructions().get(pos);
+
+        return !excluded.contains(inst)
+                && inst instanceof AssignInstruction assign
+                && assign.getDest() instanceof Operand dest && !(dest instanceof ArrayOperand)
+                && dest.getName().equals(name);
+    }
+
+    /**
+     * @return true if the element can be pushed earlier, since the code of temporaries does not change it (for array
+     * elements, only the array is pushed, the element is read by the instruction)
+     */
+    private static boolean isStable(Element element) {
+        return element instanceof LiteralElement || element instanceof Operand;
+    }
+
+    /**
+     * @return the elements whose values the backend pushes for the instruction, in order, with null for values that
+     * are not elements (e.g. 'this' of a field access)
+     */
+    private List<Element> getPushed(Instruction instruction) {
+        return switch (instruction) {
+            case AssignInstruction assign -> {
+                // Array, index and value
+                if (assign.getDest() instanceof ArrayOperand arrayOperand) {
+                    var pushed = new ArrayList<Element>();
+                    pushed.add(arrayOperand);
+                    pushed.add(arrayOperand.getIndexOperands().getFirst());
+                    pushed.addAll(getPushed(assign.getRhs()));
+                    yield pushed;
+                }
+
+                // Array and index
+                if (assign.getRhs() instanceof SingleOpInstruction singleOp
+                        && singleOp.getSingleOperand() instanceof ArrayOperand arrayOperand)
+                    yield List.of(arrayOperand, arrayOperand.getIndexOperands().getFirst());
+
+                yield getPushed(assign.getRhs());
+            }
+            case SingleOpInstruction singleOp -> List.of(singleOp.getSingleOperand());
+            case BinaryOpInstruction binaryOp -> isCompareAgainstZero(binaryOp)
+                    ? List.of(binaryOp.getLeftOperand())
+                    : List.of(binaryOp.getLeftOperand(), binaryOp.getRightOperand());
+            case UnaryOpInstruction unaryOp -> List.of(unaryOp.getOperand());
+            case CondBranchInstruction branch -> getPushed(branch.getCondition());
+            case ReturnInstruction ret -> ret.getOperand().map(List::of).orElse(List.of());
+            case InvokeStaticInstruction invokeStatic -> invokeStatic.getArguments();
+            case InvokeVirtualInstruction invokeVirtual -> {
+                var pushed = new ArrayList<Element>();
+                if (isVariable(invokeVirtual.getCaller()))
+                    pushed.add(invokeVirtual.getCaller());
+                pushed.addAll(invokeVirtual.getArguments());
+                yield pushed;
+            }
+            case InvokeSpecialInstruction invokeSpecial -> isVariable(invokeSpecial.getCaller())
+                    ? List.of(invokeSpecial.getCaller())
+                    : List.of();
+            case ArrayLengthInstruction arrayLength -> List.of(arrayLength.getCaller());
+            case NewInstruction newInstruction -> newInstruction.getCaller().getType() instanceof ArrayType
+                    ? newInstruction.getArguments()
+                    : Collections.singletonList(null);
+            case GetFieldInstruction ignored -> Collections.singletonList(null);
+            case PutFieldInstruction putField -> Arrays.asList(null, putField.getValue());
+            default -> List.of();
+        };
+    }
+
+    // Same test as the backend, callers that are not variables are classes
+    private boolean isVariable(Element caller) {
+        return caller instanceof Operand operand && method.getVarTable().get(operand.getName()) != null;
+    }
+
+    private static boolean isCompareAgainstZero(BinaryOpInstruction binaryOp) {
+        var opType = binaryOp.getOperation().getOpType();
+
+        return (opType == OperationType.LTH || opType == OperationType.GTE)
+                && binaryOp.getRightOperand() instanceof LiteralElement literal
+                && Integer.parseInt(literal.getLiteral()) == 0;
+    }
+}
@@ -0,0 +1,224 @@
+package pt.up.fe.comp2025.backend;
+
+import org.specs.comp.ollir.*;
+import org.specs.comp.ollir.inst.*;
+import org.specs.comp.ollir.tree.TreeNode;
+import org.specs.comp.ollir.type.BuiltinKind;
+import org.specs.comp.ollir.type.BuiltinType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Finds ladders of conditional branches that compare the same int local against constants, so that they can be
+ * emitted as a single tableswitch or lookupswitch instead of one comparison per case.
+ * <p>
+ * jmm has no switch statement, so dispatch code is written as {@code if (x < 1) ... else if (x < 2) ...}. The OLLIR
+ * of such ladders is a run of branches without labels in between, either {@code if (x.i32 <.bool K.i32) goto L;}
+ * or a temporary {@code t.bool :=.bool x.i32 <.bool K.i32;} followed by {@code if (t.bool) goto L;}.
+ * Equality comparisons ({@code ==.bool}) are also accepted.
+ */
+public class SwitchLowering {
+
+    // Below this, a chain of compares is as good as a switch
+    private static final int MIN_CASES = 3;
+    private static final int MAX_TABLE_SIZE = 1024;
+    // A lookupswitch is only used when cases are (mostly) single values
+    private static final int MAX_LOOKUP_ENTRIES_PER_CASE = 2;
+
+    private final Method method;
+    private final Map<String, Long> operandUses;
+    private int defaultLabelNumber;
+
+    public SwitchLowering(Method method) {
+        this.method = method;
+        this.operandUses = method.getInstructions().stream()
+                .flatMap(TreeNode::getDescendantsStream)
+                .filter(node -> node instanceof Operand)
+                .collect(Collectors.groupingBy(node -> ((Operand) node).getName(), Collectors.counting()));
+        this.defaultLabelNumber = 0;
+    }
+
+    /**
+     * @return the multiway branches of the method, indexed by the first instruction they replace
+     */
+    public Map<Instruction, MultiwayBranch> findBranches() {
+        var branches = new HashMap<Instruction, MultiwayBranch>();
+        var instructions = method.getInstructions();
+
+        int i = 0;
+        while (i < instructions.size()) {
+            var branch = matchLadder(instructions, i);
+            if (branch == null) {
+                i++;
+                continue;
+            }
+
+            branches.put(instructions.get(i), branch);
+            i += branch.getLength();
+        }
+
+        return branches;
+    }
+
+    private MultiwayBranch matchLadder(List<Instruction> instructions, int start) {
+        List<Case> cases = new ArrayList<>();
+        int pos = start;
+
+        while (pos < instructions.size()) {
+            // Only the first instruction of the ladder can be a jump target
+            if (pos > start && !method.getLabels(instructions.get(pos)).isEmpty())
+                break;
+
+            var nextCase = matchCase(instructions, pos);
+            if (nextCase == null)
+                break;
+            if (!cases.isEmpty() && !cases.getFirst().selector.getName().equals(nextCase.selector.getName()))
+                break;
+
+            cases.add(nextCase);
+            pos += nextCase.width;
+        }
+
+        // The instruction after the ladder receives the default label
+        if (cases.size() < MIN_CASES || pos >= instructions.size())
+            return null;
+
+        return buildBranch(cases, pos - start);
+    }
+
+    private MultiwayBranch buildBranch(List<Case> cases, int length) {
+        long low = Long.MAX_VALUE;
+        long high = Long.MIN_VALUE;
+        for (var c : cases) {
+            low = Math.min(low, c.constant);
+            high = Math.max(high, c.op == OperationType.LTH ? c.constant - 1 : c.constant);
+        }
+
+        long tableSize = high - low + 1;
+        if (tableSize <= 0 || tableSize > MAX_TABLE_SIZE)
+            return null;
+
+        var defaultLabel = "switch_default_" + defaultLabelNumber;
+
+        // Values below the table satisfy every '<' and no '=='
+        var belowTarget = cases.stream()
+                .filter(c -> c.op == OperationType.LTH)
+                .map(c -> c.label)
+                .findFirst()
+                .orElse(defaultLabel);
+
+        List<String> targets = new ArrayList<>();
+        int lookupEntries = 0;
+        for (long value = low; value <= high; value++) {
+            var target = defaultLabel;
+            for (var c : cases) {
+                if (c.matches(value)) {
+                    target = c.label;
+                    break;
+                }
+            }
+
+            targets.add(target);
+            if (!target.equals(defaultLabel))
+                lookupEntries++;
+        }
+
+        // Same cost model as javac: space plus three times the number of comparisons
+        long tableCost = 4 + tableSize + 3 * 3;
+        long lookupCost = 3 + 2L * lookupEntries + 3L * lookupEntries;
+        boolean isTable = tableCost <= lookupCost;
+
+        if (!isTable && lookupEntries > MAX_LOOKUP_ENTRIES_PER_CASE * cases.size())
+            return null;
+
+        defaultLabelNumber++;
+
+        return new MultiwayBranch(cases.getFirst().selector, (int) low, targets, belowTarget, defaultLabel,
+                length, isTable);
+    }
+
+    private Case matchCase(List<Instruction> instructions, int pos) {
+        var inst = instructions.get(pos);
+
+        // if (x.i32 <.bool K.i32) goto L;
+        if (inst instanceof OpCondInstruction opCond
+                && opCond.getCondition() instanceof BinaryOpInstruction condition) {
+            return matchCondition(condition, opCond.getLabel(), 1);
+        }
+
+        // t.bool :=.bool x.i32 <.bool K.i32;
+        // if (t.bool) goto L;
+        if (inst instanceof AssignInstruction assign
+                && assign.getDest() instanceof Operand dest && !(dest instanceof ArrayOperand)
+                && assign.getRhs() instanceof BinaryOpInstruction condition
+                && pos + 1 < instructions.size()
+                && instructions.get(pos + 1) instanceof SingleOpCondInstruction branch
+                && method.getLabels(branch).isEmpty()
+                && branch.getCondition().getSingleOperand() instanceof Operand tested
+                && tested.getName().equals(dest.getName())
+                // The temporary must not be used anywhere else, since its assignment is dropped
+                && operandUses.getOrDefault(dest.getName(), 0L) == 2) {
+            return matchCondition(condition, branch.getLabel(), 2);
+        }
+
+        return null;
+    }
+
+    private Case matchCondition(BinaryOpInstruction condition, String label, int width) {
+        var opType = condition.getOperation().getOpType();
+        if (opType != OperationType.LTH && opType != OperationType.EQ)
+            return null;
+
+        var left = condition.getLeftOperand();
+        var right = condition.getRightOperand();
+
+        // Equality is symmetric, accept the constant on either side
+        if (opType == OperationType.EQ && left instanceof LiteralElement && !(right instanceof LiteralElement)) {
+            var tmp = left;
+            left = right;
+            right = tmp;
+        }
+
+        if (!(left instanceof Operand selector) || left instanceof ArrayOperand || left.isLiteral())
+            return null;
+        if (!(right instanceof LiteralElement literal))
+            return null;
+        if (!BuiltinType.is(selector.getType(), BuiltinKind.INT32))
+            return null;
+        if (!method.getVarTable().containsKey(selector.getName()))
+            return null;
+
+        int constant;
+        try {
+            constant = Integer.parseInt(literal.getLiteral());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        return new Case(selector, opType, constant, label, width);
+    }
+
+    private static class Case {
+        private final Operand selector;
+        private final OperationType op;
+        private final long constant;
+        private final String label;
+        private final int width;
+
+        private Case(Operand selector, OperationType op, long constant, String label, int width) {
+            this.selector = selector;
+            this.op = op;
+            this.constant = constant;
+            this.label = label;
+            this.width = width;
+        }
+
+        private boolean matches(long value) {
+            return op == OperationType.LTH ? value < constant : value == constant;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.ClassUnit;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.specs.util.SpecsCollections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OLLIR class built directly by {@link OllirBuilder}, passed from the OLLIR generation to the backend without going
+ * through OLLIR code.
+ * <p>
+ * Every constructor of {@link OllirResult} parses the code it receives, so an {@link OllirResult} is only created,
+ * by {@link #toOllirResult()}, where the interfaces of the stages require one. The OLLIR code is only printed the
+ * first time it is requested.
+ */
+public class BuiltOllir {
+
+    private final JmmSemanticsResult semanticsResult;
+    private final ClassUnit ollirClass;
+    private final List<Report> reports;
+    private String ollirCode;
+
+    public BuiltOllir(JmmSemanticsResult semanticsResult, ClassUnit ollirClass) {
+        this.semanticsResult = semanticsResult;
+        this.ollirClass = ollirClass;
+        this.reports = new ArrayList<>();
+    }
+
+    public ClassUnit getOllirClass() {
+        return ollirClass;
+    }
+
+    public Map<String, String> getConfig() {
+        return semanticsResult.getConfig();
+    }
+
+    /**
+     * @return the reports of the analysis followed by the reports of the OLLIR stages, as in {@link OllirResult}
+     */
+    public List<Report> getReports() {
+        return SpecsCollections.concat(semanticsResult.getReports(), reports);
+    }
+
+    public void addReport(Report report) {
+        reports.add(report);
+    }
+
+    public synchronized String getOllirCode() {
+        if (ollirCode == null)
+            ollirCode = OllirPrinter.print(ollirClass);
+
+        return ollirCode;
+    }
+
+    /**
+     * Creates an {@link OllirResult} from the printed code, which the OLLIR parser turns into a new class.
+     */
+    public OllirResult toOllirResult() {
+        return new OllirResult(semanticsResult, getOllirCode(), new ArrayList<>(reports));
+    }
+}
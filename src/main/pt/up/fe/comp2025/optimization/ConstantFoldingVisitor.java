@@ -47,7 +47,7 @@ public class ConstantFoldingVisitor extends AJmmVisitor<Void, Void> {
                 List<String> hierarchy = new ArrayList<>(List.of(Kind.BOOLEAN_LITERAL.toString(), "Expr"));
                 JmmNode newNode = new JmmNodeImpl(hierarchy);
                 newNode.put("value", Boolean.toString(comparisonResult));
-                newNode.put("type", TypeUtils.newBooleanType().toString());
+                TypeUtils.putType(newNode, TypeUtils.newBooleanType());
                 node.replace(newNode);
             } else {
                 switch (op) {
@@ -72,7 +72,7 @@ public class ConstantFoldingVisitor extends AJmmVisitor<Void, Void> {
                 // Create a new literal node
                 JmmNode newNode = new JmmNodeImpl(left.getHierarchy()); // left or right can be used
                 newNode.put("value", Integer.toString(result));
-                newNode.put("type", left.get("type"));
+                TypeUtils.putType(newNode, TypeUtils.getType(left));
                 node.replace(newNode);
             }
 
@@ -89,7 +89,7 @@ public class ConstantFoldingVisitor extends AJmmVisitor<Void, Void> {
             // Create a new literal node
             JmmNode newNode = new JmmNodeImpl(left.getHierarchy()); // left or right can be used
             newNode.put("value", Boolean.toString(result));
-            newNode.put("type", left.get("type"));
+            TypeUtils.putType(newNode, TypeUtils.getType(left));
             node.replace(newNode);
 
         } else {
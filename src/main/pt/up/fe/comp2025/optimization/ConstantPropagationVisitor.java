@@ -6,6 +6,9 @@ import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
 import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
 
 import java.util.*;
 
@@ -80,7 +83,7 @@ public class ConstantPropagationVisitor extends AJmmVisitor<Void, Void> {
             // Replace variable reference with the constant literal
             JmmNode newNode = new JmmNodeImpl(constant.getHierarchy());
             newNode.put("value", constant.get("value"));
-            newNode.put("type", constant.get("type"));
+            TypeUtils.putType(newNode, TypeUtils.getType(constant));
 
             node.replace(newNode);
             changed = true;
@@ -136,7 +139,12 @@ public class ConstantPropagationVisitor extends AJmmVisitor<Void, Void> {
     }
 
     private boolean isLocalVariable(String varName) {
-        return table.getLocalVariables(currentMethod).stream()
-                .anyMatch(var -> var.getName().equals(varName));
+        return isInScope(varName, ScopedSymbol.Scope.LOCAL);
+    }
+
+    private boolean isInScope(String varName, ScopedSymbol.Scope scope) {
+        return ((JmmSymbolTable) table).lookup(currentMethod, varName)
+                .map(symbol -> symbol.getScope() == scope)
+                .orElse(false);
     }
 }
\ No newline at end of file
@@ -1,28 +1,56 @@
 package pt.up.fe.comp2025.optimization;
 
+import org.specs.comp.ollir.ClassUnit;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.ollir.JmmOptimization;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.profiling.StageProfiler;
 
-import java.util.Collections;
+import java.util.Map;
 
 public class JmmOptimizationImpl implements JmmOptimization {
 
-    @Override
-    public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
+    private final StageProfiler profiler;
+
+    public JmmOptimizationImpl() {
+        this(new StageProfiler());
+    }
+
+    /**
+     * @param profiler measures the parts of the stage, when enabled
+     */
+    public JmmOptimizationImpl(StageProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Builds the OLLIR class of the AST, without going through OLLIR code.
+     */
+    public BuiltOllir build(JmmSemanticsResult semanticsResult) {
 
-        // Create visitor that will generate the OLLIR code
+        // Create visitor that will build the OLLIR class
         var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable());
 
-        // Visit the AST and obtain OLLIR code
-        var ollirCode = visitor.visit(semanticsResult.getRootNode());
+        // Visit the AST and obtain the OLLIR class
+        var builtOllir = new BuiltOllir(semanticsResult, visitor.build(semanticsResult.getRootNode()));
 
-        System.out.println("\nOLLIR:\n\n" + ollirCode);
+        // The code is only printed when requested (option "-d")
+        if (CompilerConfig.getDumpOllir(semanticsResult.getConfig()))
+            System.out.println("\nOLLIR:\n\n" + builtOllir.getOllirCode());
 
-        return new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
+        return builtOllir;
+    }
+
+    /**
+     * Parses the printed code of the built class, since {@link OllirResult} can only be created from OLLIR code; the
+     * launcher uses {@link #build} instead.
+     */
+    @Override
+    public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
+        return build(semanticsResult).toOllirResult();
     }
 
     @Override
@@ -40,16 +68,20 @@ public class JmmOptimizationImpl implements JmmOptimization {
         do {
             // Apply constant propagation
             var propagationVisitor = new ConstantPropagationVisitor(semanticsResult.getSymbolTable());
-            propagationVisitor.visit(ast);
+            profiler.measure("constant propagation", () -> propagationVisitor.visit(ast));
 
             // Apply constant folding
             var foldingVisitor = new ConstantFoldingVisitor();
-            foldingVisitor.visit(ast);
+            profiler.measure("constant folding", () -> foldingVisitor.visit(ast));
 
             changed = propagationVisitor.didChange() || foldingVisitor.didChange();
 
         } while (changed);
 
+        // Mark the lengths of loop conditions that can be computed once, before the loop
+        var boundsAnalysis = new LoopBoundsAnalysis(semanticsResult.getSymbolTable());
+        profiler.measure("loop bounds analysis", () -> boundsAnalysis.visit(ast));
+
         // Print AST after optimization
         //System.out.println("\nAST AFTER OPTIMIZATION:\n\n" + ast.toTree());
 
@@ -58,32 +90,50 @@ public class JmmOptimizationImpl implements JmmOptimization {
 
     @Override
     public OllirResult optimize(OllirResult ollirResult) {
+        var error = allocateRegisters(ollirResult.getOllirClass(), ollirResult.getConfig());
+        if (error != null)
+            ollirResult.getReports().add(error);
+
+        return ollirResult;
+    }
+
+    public BuiltOllir optimize(BuiltOllir builtOllir) {
+        var error = allocateRegisters(builtOllir.getOllirClass(), builtOllir.getConfig());
+        if (error != null)
+            builtOllir.addReport(error);
+
+        return builtOllir;
+    }
+
+    /**
+     * @return an error if a method needs more registers than the limit, otherwise null
+     */
+    private Report allocateRegisters(ClassUnit classUnit, Map<String, String> config) {
         // Check the option "–r=<n>" that controls the register allocation
-        int configMaxRegs = CompilerConfig.getRegisterAllocation(ollirResult.getConfig());
+        int configMaxRegs = CompilerConfig.getRegisterAllocation(config);
         int maxRegs;
         int usedRegs = 0;
 
-        // If n is -1, return the result without optimizing (default value)
+        // If n is -1, return without optimizing (default value)
         if (configMaxRegs == -1)
-            return ollirResult;
+            return null;
 
         // call buildCFGs() to ensure that the proper connections between instructions are formed
-        ollirResult.getOllirClass().buildCFGs();
-        var classUnit = ollirResult.getOllirClass();
+        classUnit.buildCFGs();
 
         for (var method : classUnit.getMethods()) {
             maxRegs = configMaxRegs;
 
             var livenessAnalysis = new LivenessAnalysis(method);
-            livenessAnalysis.analyze();
+            profiler.measure("liveness analysis", livenessAnalysis::analyze);
 
             var interferenceGraph = new InterferenceGraph(livenessAnalysis.getOutMap(), livenessAnalysis.getDefMap(), method);
-            interferenceGraph.buildGraph();
+            profiler.measure("interference graph", interferenceGraph::buildGraph);
 
             boolean success;
             do {
                 var registerAllocation = new RegisterAllocation(interferenceGraph, maxRegs, method);
-                success = registerAllocation.graphColoring();
+                success = profiler.measure("register allocation", registerAllocation::graphColoring);
 
                 if (!success) {
                     maxRegs++;
@@ -97,16 +147,12 @@ public class JmmOptimizationImpl implements JmmOptimization {
                 // Create error report
                 var message = String.format("The specified limit of '%d' local variables is insufficient for method '%s'. " +
                         "A minimum of '%d' local variables is required.", configMaxRegs, method.getMethodName(), maxRegs);
-                ollirResult.getReports().add(
-                        Report.newError(
-                                Stage.OPTIMIZATION,
-                                0,
-                                0,
-                                message,
-                                null)
-                );
-
-                return ollirResult;
+                return Report.newError(
+                        Stage.OPTIMIZATION,
+                        0,
+                        0,
+                        message,
+                        null);
             }
 
             // Print register allocation details
@@ -120,7 +166,7 @@ public class JmmOptimizationImpl implements JmmOptimization {
             System.out.println();
         }
 
-        return ollirResult;
+        return null;
     }
 
 
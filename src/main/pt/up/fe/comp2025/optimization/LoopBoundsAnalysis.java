@@ -0,0 +1,114 @@
+package pt.up.fe.comp2025.optimization;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.AJmmVisitor;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
+
+/**
+ * Finds the array lengths of loop conditions that are loop invariant.
+ * <p>
+ * For loops of the form {@code while (e < L.length) { ... }}, where {@code L} is a local variable or parameter that is
+ * not reassigned in the body, the {@code L.length} of the condition and of the body are marked {@code hoisted}: they
+ * are computed once before the loop, which leaves the loop in the counted shape whose bounds checks the JIT removes.
+ * Nothing else about the loop is needed, since the length of an array never changes.
+ */
+public class LoopBoundsAnalysis extends AJmmVisitor<Void, Void> {
+
+    public static final String HOISTED = "hoisted";
+
+    private final SymbolTable table;
+    private String currentMethod;
+
+    public LoopBoundsAnalysis(SymbolTable table) {
+        this.table = table;
+        this.currentMethod = null;
+    }
+
+    @Override
+    protected void buildVisitor() {
+        addVisit(Kind.METHOD_DECL, this::visitMethodDecl);
+        addVisit(Kind.WHILE_STMT, this::visitWhileStmt);
+        setDefaultVisit(this::defaultVisit);
+    }
+
+    private Void visitMethodDecl(JmmNode node, Void unused) {
+        currentMethod = node.get("name");
+
+        for (var child : node.getChildren())
+            visit(child);
+
+        return null;
+    }
+
+    private Void visitWhileStmt(JmmNode node, Void unused) {
+        analyzeLoop(node);
+
+        // Nested loops are analyzed on their own
+        for (var child : node.getChildren())
+            visit(child);
+
+        return null;
+    }
+
+    private Void defaultVisit(JmmNode node, Void unused) {
+        for (var child : node.getChildren())
+            visit(child);
+
+        return null;
+    }
+
+    private void analyzeLoop(JmmNode whileStmt) {
+        var condition = whileStmt.getChild(0);
+        var body = whileStmt.getChild(1);
+
+        // Condition must be 'e < L.length'
+        if (!Kind.BINARY_EXPR.check(condition) || !condition.get("op").equals("<"))
+            return;
+
+        var length = condition.getChild(1);
+        if (!Kind.LENGTH_EXPR.check(length))
+            return;
+
+        var array = length.getChild(0);
+        if (!Kind.VAR_REF_EXPR.check(array))
+            return;
+
+        // Fields may be changed by any call in the body, only locals and parameters are tracked
+        var arrayName = array.get("name");
+        if (!isLocalOrParameter(arrayName))
+            return;
+
+        // The array must be the same in every iteration, so its length is loop invariant
+        if (isAssigned(body, arrayName))
+            return;
+
+        length.put(HOISTED, "true");
+
+        body.getDescendantsAndSelfStream()
+                .filter(node -> Kind.LENGTH_EXPR.check(node) && isVarRef(node.getChild(0), arrayName))
+                .forEach(node -> node.put(HOISTED, "true"));
+    }
+
+    private boolean isAssigned(JmmNode node, String varName) {
+        return node.getDescendantsAndSelfStream()
+                .anyMatch(child -> Kind.ASSIGN_STMT.check(child) && child.get("name").equals(varName));
+    }
+
+    private boolean isVarRef(JmmNode node, String varName) {
+        return Kind.VAR_REF_EXPR.check(node) && node.get("name").equals(varName);
+    }
+
+    private boolean isLocalOrParameter(String varName) {
+        var scope = getScope(varName);
+        return scope == ScopedSymbol.Scope.LOCAL || scope == ScopedSymbol.Scope.PARAM;
+    }
+
+    private ScopedSymbol.Scope getScope(String varName) {
+        return ((JmmSymbolTable) table).lookup(currentMethod, varName)
+                .map(ScopedSymbol::getScope)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,276 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.AccessModifier;
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.Field;
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.CondBranchInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.OpCondInstruction;
+import org.specs.comp.ollir.inst.OpInstruction;
+import org.specs.comp.ollir.inst.SingleOpCondInstruction;
+import org.specs.comp.ollir.inst.SingleOpInstruction;
+import org.specs.comp.ollir.type.ArrayType;
+import org.specs.comp.ollir.type.BuiltinKind;
+import org.specs.comp.ollir.type.BuiltinType;
+import org.specs.comp.ollir.type.ClassKind;
+import org.specs.comp.ollir.type.ClassType;
+import org.specs.comp.ollir.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the OLLIR object model of a class directly, without printing and parsing OLLIR code.
+ * <p>
+ * The objects are the same the OLLIR parser would build from the corresponding code, so the backend and the
+ * optimizations see no difference. Instructions are added to the current method in order, and labels are attached
+ * to the next instruction added. {@link OllirPrinter} gives the code of the built class.
+ */
+public class OllirBuilder {
+
+    private final ClassUnit classUnit;
+    private final List<String> pendingLabels;
+    private Method method;
+    private int nextParamId;
+
+    public OllirBuilder(String className) {
+        this.classUnit = new ClassUnit();
+        this.classUnit.setClassName(className);
+        this.pendingLabels = new ArrayList<>();
+    }
+
+    public void addImport(String importPath) {
+        classUnit.addImport(importPath);
+    }
+
+    public void setSuperClass(String superClass) {
+        classUnit.setSuperClass(superClass);
+    }
+
+    public void addField(String name, Type type) {
+        var field = new Field();
+        field.setFieldAccessModifier(AccessModifier.PUBLIC);
+        field.setFieldName(name);
+        field.setFieldType(type);
+
+        classUnit.addField(field);
+    }
+
+    /**
+     * Starts a method, which receives the parameters, instructions and labels added until {@link #endMethod()}.
+     */
+    public void beginMethod(String name, Type returnType, boolean isPublic, boolean isStatic, boolean isVarargs) {
+        begin(name, returnType);
+
+        if (isPublic)
+            method.setMethodAccessModifier(AccessModifier.PUBLIC);
+
+        if (isStatic)
+            method.setStaticMethod();
+
+        if (isVarargs)
+            method.setVarargs(true);
+
+        // Register 0 holds 'this' in instance methods
+        nextParamId = isStatic ? 0 : 1;
+    }
+
+    /**
+     * Starts the constructor of the class.
+     */
+    public void beginConstructor() {
+        begin(classUnit.getClassName(), new BuiltinType(BuiltinKind.VOID));
+        method.setConstructMethod();
+        nextParamId = 1;
+    }
+
+    private void begin(String name, Type returnType) {
+        if (method != null)
+            throw new RuntimeException("Method '" + method.getMethodName() + "' was not ended");
+
+        method = new Method(classUnit);
+        method.setMethodName(name);
+        method.setReturnType(returnType);
+    }
+
+    public void addParam(String name, Type type) {
+        var param = new Operand(name, type);
+        param.setParamId(nextParamId++);
+
+        getMethod().addParam(param);
+    }
+
+    /**
+     * Attaches the label to the next instruction added to the current method.
+     */
+    public void addLabel(String label) {
+        pendingLabels.add(label);
+    }
+
+    public void add(Instruction instruction) {
+        var current = getMethod();
+
+        for (var label : pendingLabels)
+            current.addLabel(label, instruction);
+        pendingLabels.clear();
+
+        current.addInstr(instruction);
+    }
+
+    /**
+     * Adds an assignment to the given variable.
+     *
+     * @return a new operand with the assigned variable, to use its value
+     */
+    public Operand assign(String name, Type type, Instruction rhs) {
+        add(new AssignInstruction(new Operand(name, type), type, rhs));
+
+        return new Operand(name, type);
+    }
+
+    /**
+     * Adds an assignment to the given destination, e.g. an array element.
+     */
+    public void assign(Element dest, Type type, Instruction rhs) {
+        add(new AssignInstruction(dest, type, rhs));
+    }
+
+    /**
+     * Adds a branch to the label, taken when the condition is true. The condition is either a single boolean operand
+     * or an operation with a boolean result.
+     */
+    public void addBranch(Instruction condition, String label) {
+        CondBranchInstruction branch = switch (condition) {
+            case SingleOpInstruction singleOp -> new SingleOpCondInstruction(singleOp);
+            case OpInstruction op -> new OpCondInstruction(op);
+            default -> throw new RuntimeException("Expected a branch condition, got '" + condition + "'");
+        };
+        branch.setLabel(label);
+
+        add(branch);
+    }
+
+    public void endMethod() {
+        var current = getMethod();
+
+        if (!pendingLabels.isEmpty())
+            throw new RuntimeException("Labels " + pendingLabels + " at the end of method '"
+                    + current.getMethodName() + "' are not followed by an instruction");
+
+        classUnit.addMethod(current);
+        method = null;
+    }
+
+    /**
+     * @return the class, with the tables of variables of its methods built
+     */
+    public ClassUnit build() {
+        if (method != null)
+            throw new RuntimeException("Method '" + method.getMethodName() + "' was not ended");
+
+        classUnit.buildVarTables();
+
+        return classUnit;
+    }
+
+    private Method getMethod() {
+        if (method == null)
+            throw new RuntimeException("Expected to be inside a method");
+
+        return method;
+    }
+
+    public Operand operand(String name, Type type) {
+        return new Operand(name, type);
+    }
+
+    public LiteralElement literal(String literal, Type type) {
+        return new LiteralElement(literal, type);
+    }
+
+    public ArrayOperand arrayOperand(String name, Type elementType, Element index) {
+        var indexes = new ArrayList<Element>();
+        indexes.add(index);
+
+        return new ArrayOperand(name, elementType, indexes);
+    }
+
+    /**
+     * @return the name of a method, as used by call instructions
+     */
+    public LiteralElement methodName(String name) {
+        return new LiteralElement(name, new BuiltinType(BuiltinKind.STRING));
+    }
+
+    /**
+     * @return the object of a call or field instruction; 'this' has the type of the current class
+     */
+    public Element objectRef(Element element) {
+        if (element instanceof Operand operand && operand.getName().equals("this")
+                && operand.getType() instanceof ClassType classType)
+            return new Operand("this", new ClassType(ClassKind.THIS, classType.getName()));
+
+        return element;
+    }
+
+    /**
+     * @return the object 'this', as the object of a call or field instruction
+     */
+    public Operand thisRef() {
+        return new Operand("this", new ClassType(ClassKind.THIS, classUnit.getClassName()));
+    }
+
+    /**
+     * @return the class of a static call
+     */
+    public Operand classRef(String name) {
+        return new Operand(name, new ClassType(ClassKind.CLASS, name));
+    }
+
+    /**
+     * @return the first operand of a 'new' instruction that creates a value of the given type
+     */
+    public Operand newTarget(Type type) {
+        return switch (type) {
+            case ArrayType arrayType -> new Operand("array", arrayType);
+            case ClassType classType -> new Operand(classType.getName(), new ClassType(ClassKind.CLASS, classType.getName()));
+            default -> throw new RuntimeException("Expected type of 'new' to be either a class or an array, got '"
+                    + type + "'");
+        };
+    }
+
+    /**
+     * @return a copy of the operand or literal, so that the same value can be used by several instructions
+     */
+    public Element copy(Element element) {
+        return switch (element) {
+            case ArrayOperand arrayOperand -> new ArrayOperand(arrayOperand.getName(), arrayOperand.getType(),
+                    new ArrayList<>(arrayOperand.getIndexOperands()));
+            case Operand operand -> new Operand(operand.getName(), operand.getType());
+            case LiteralElement literal -> new LiteralElement(literal.getLiteral(), literal.getType());
+            default -> throw new RuntimeException("Cannot copy element '" + element + "'");
+        };
+    }
+
+    /**
+     * @return the operation of a binary operator of Java--
+     */
+    public static OperationType toOperationType(String op) {
+        return switch (op) {
+            case "*" -> OperationType.MUL;
+            case "/" -> OperationType.DIV;
+            case "+" -> OperationType.ADD;
+            case "-" -> OperationType.SUB;
+            case "<" -> OperationType.LTH;
+            case "&&" -> OperationType.ANDB;
+            default -> throw new RuntimeException("Unsupported binary operator '" + op + "'");
+        };
+    }
+}
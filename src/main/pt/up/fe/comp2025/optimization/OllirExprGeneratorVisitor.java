@@ -1,36 +1,58 @@
 package pt.up.fe.comp2025.optimization;
 
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.Operation;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.*;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
-import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
+import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.MethodResolver;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 import static pt.up.fe.comp2025.ast.Kind.*;
 
 /**
- * Generates OLLIR code from JmmNodes that are expressions.
+ * Generates OLLIR instructions from JmmNodes that are expressions.
+ * <p>
+ * The instructions that compute an expression are added to the current method of the builder as soon as they are
+ * generated, after the ones of its operands; the result only has the element with the value.
  */
-public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExprResult> {
-
-    private static final String SPACE = " ";
-    private static final String ASSIGN = ":=";
-    private final String END_STMT = ";\n";
-    private final String NL = "\n";
+public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult> {
 
     private final SymbolTable table;
 
     private final TypeUtils types;
     private final OptUtils ollirTypes;
+    private final MethodResolver methodResolver;
+    private final Map<JmmNode, Element> hoistedValues;
+    private final OllirBuilder builder;
 
-
-    public OllirExprGeneratorVisitor(SymbolTable table, OptUtils ollirTypes) {
+    /**
+     * @param builder builder where the instructions that compute the expressions are added
+     */
+    public OllirExprGeneratorVisitor(SymbolTable table, OptUtils ollirTypes, OllirBuilder builder) {
         this.table = table;
+        this.builder = builder;
         this.types = new TypeUtils(table);
         this.ollirTypes = ollirTypes;
+        this.methodResolver = new MethodResolver((JmmSymbolTable) table);
+        this.hoistedValues = new HashMap<>();
+    }
+
+    /**
+     * Makes the given expression evaluate to a value that was already computed outside the current loop.
+     */
+    public void hoist(JmmNode node, Element value) {
+        hoistedValues.put(node, value);
     }
 
 
@@ -54,157 +76,129 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
     }
 
     private OllirExprResult visitArrayExpr(JmmNode node, Void unused) {
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
         var tmp = ollirTypes.nextTemp();
-        String code = tmp + ollirType;
         // jmm array elems are of type int
-        String ollirIntType = ollirTypes.toOllirType(TypeUtils.newIntType());
+        var ollirIntType = ollirTypes.toOllirType(TypeUtils.newIntType());
 
-        StringBuilder computation = new StringBuilder();
         var arrayElems = node.getChildren();
 
-        computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                .append("new(array, ").append(arrayElems.size()).append(ollirIntType).append(")").append(ollirType).append(END_STMT);
+        var size = builder.literal(Integer.toString(arrayElems.size()), ollirIntType);
+        var array = builder.assign(tmp, ollirType, newInstruction(ollirType, size));
 
         for (int i = 0; i < arrayElems.size(); i++) {
             var elem = visit(arrayElems.get(i));
-            computation.append(elem.getComputation());
-            computation.append(tmp).append("[").append(i).append(ollirIntType).append("]").append(ollirIntType).append(SPACE)
-                    .append(ASSIGN).append(ollirIntType).append(SPACE).append(elem.getCode()).append(END_STMT);
+            var index = builder.literal(Integer.toString(i), ollirIntType);
+            builder.assign(builder.arrayOperand(tmp, ollirIntType, index), ollirIntType,
+                    new SingleOpInstruction(elem.getValue()));
         }
 
-        return new OllirExprResult(code, computation);
+        return new OllirExprResult(array);
     }
 
     private OllirExprResult visitNotExpr(JmmNode node, Void unused) {
         var expr = visit(node.getChild(0));
 
-        StringBuilder computation = new StringBuilder();
-        computation.append(expr.getComputation());
-
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
-        String code = ollirTypes.nextTemp() + ollirType;
-
-        computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                .append("!").append(ollirType).append(SPACE).append(expr.getCode()).append(END_STMT);
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
+        var not = new UnaryOpInstruction(new Operation(OperationType.NOTB, ollirType), expr.getValue());
 
-        return new OllirExprResult(code, computation);
+        return new OllirExprResult(builder.assign(ollirTypes.nextTemp(), ollirType, not));
     }
 
     private OllirExprResult visitParenExpr(JmmNode node, Void unused) {
-        var child = visit(node.getChild(0));
-        return new OllirExprResult(child.getCode(), child.getComputation());
+        return visit(node.getChild(0));
     }
 
     private OllirExprResult visitThisExpr(JmmNode node, Void unused) {
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
-        String code = "this" + ollirType;
-        return new OllirExprResult(code);
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
+        return new OllirExprResult(builder.operand("this", ollirType));
     }
 
     private OllirExprResult visitNewObjectExpr(JmmNode node, Void unused) {
-        String className = node.get("name");
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
-        String code = ollirTypes.nextTemp() + ollirType;
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
+        var tmp = ollirTypes.nextTemp();
 
-        StringBuilder computation = new StringBuilder();
-        computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                .append("new").append("(").append(className).append(")").append(ollirType).append(END_STMT);
-        computation.append("invokespecial(").append(code).append(", \"<init>\").V").append(END_STMT);
+        var object = builder.assign(tmp, ollirType, newInstruction(ollirType));
+        builder.add(new InvokeSpecialInstruction(object, builder.methodName("<init>"), null, new ArrayList<>(),
+                ollirTypes.toOllirType(TypeUtils.newVoidType()), true));
 
-        return new OllirExprResult(code, computation);
+        return new OllirExprResult(builder.operand(tmp, ollirType));
     }
 
     private OllirExprResult visitArrayAccessExpr(JmmNode node, Void unused) {
         var array = visit(node.getChild(0));
         var index = visit(node.getChild(1));
 
-        StringBuilder computation = new StringBuilder();
-        computation.append(array.getComputation());
-        computation.append(index.getComputation());
-
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
-        String code = ollirTypes.nextTemp() + ollirType;
-
-        computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                .append(array.getCode()).append("[").append(index.getCode()).append("]").append(ollirType).append(END_STMT);
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
+        var arrayName = ((Operand) array.getValue()).getName();
+        var element = builder.arrayOperand(arrayName, ollirType, index.getValue());
 
-        return new OllirExprResult(code, computation);
+        return new OllirExprResult(builder.assign(ollirTypes.nextTemp(), ollirType, new SingleOpInstruction(element)));
     }
 
     private OllirExprResult visitLengthExpr(JmmNode node, Void unused) {
-        var array = visit(node.getChild(0));
-
-        StringBuilder computation = new StringBuilder();
-        computation.append(array.getComputation());
+        if (hoistedValues.containsKey(node))
+            return new OllirExprResult(builder.copy(hoistedValues.get(node)));
 
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
-        String code = ollirTypes.nextTemp() + ollirType;
+        var array = visit(node.getChild(0));
 
-        computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                .append("arraylength(").append(array.getCode()).append(")").append(ollirType).append(END_STMT);
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
+        var length = new ArrayLengthInstruction(builder.objectRef(array.getValue()), ollirType);
 
-        return new OllirExprResult(code, computation);
+        return new OllirExprResult(builder.assign(ollirTypes.nextTemp(), ollirType, length));
     }
 
     private OllirExprResult visitNewIntArrayExpr(JmmNode node, Void unused) {
         var size = visit(node.getChild(0));
 
-        StringBuilder computation = new StringBuilder();
-        computation.append(size.getComputation());
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
 
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
-        String code = ollirTypes.nextTemp() + ollirType;
+        return new OllirExprResult(builder.assign(ollirTypes.nextTemp(), ollirType,
+                newInstruction(ollirType, size.getValue())));
+    }
 
-        computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                .append("new").append("(").append("array").append(", ").append(size.getCode()).append(")")
-                .append(ollirType).append(END_STMT);
+    private NewInstruction newInstruction(org.specs.comp.ollir.type.Type type, Element... args) {
+        var argList = new ArrayList<Element>();
+        for (var arg : args)
+            argList.add(arg);
 
-        return new OllirExprResult(code, computation);
+        return new NewInstruction(builder.newTarget(type), argList, type, false);
     }
 
     private OllirExprResult visitMethodCallExpr(JmmNode node, Void unused) {
 
         var caller = visit(node.getChild(0));
 
-        StringBuilder computation = new StringBuilder();
-        computation.append(caller.getComputation());
-
-        List<String> argCodes = new ArrayList<>();
+        var args = new ArrayList<Element>();
         var numArgNodes = node.getChildren().size() - 1;
         for (int i = 1; i <= numArgNodes; i++) {
-            var arg = visit(node.getChild(i));
-            computation.append(arg.getComputation());
-            argCodes.add(arg.getCode());
+            args.add(visit(node.getChild(i)).getValue());
         }
 
         var methodName = node.get("name");
-        var methodType = TypeUtils.getTypeFromString(node.get("type"));
-
-        var isVarargs = false;
-        var params = table.getParameters(methodName);
-        if (params != null && !params.isEmpty())
-            isVarargs = (boolean) params.getLast().getType().getObject("isVarargs");
-
-        if (isVarargs) {
-            String ollirIntArrayType = ollirTypes.toOllirType(TypeUtils.newArrayIntType());
-            String ollirIntType = ollirTypes.toOllirType(TypeUtils.newIntType());
+        var methodType = TypeUtils.getType(node);
+
+        // Arguments passed to the varargs parameter go into a new array
+        var callerType = TypeUtils.getType(node.getChild(0));
+        if (!callerType.getName().equals("imported") && methodResolver.packsVarargs(node)) {
+            var params = methodResolver.resolve(node).get().getParameterTypes();
+            var ollirIntArrayType = ollirTypes.toOllirType(TypeUtils.newArrayIntType());
+            var ollirIntType = ollirTypes.toOllirType(TypeUtils.newIntType());
             String tmp = ollirTypes.nextTemp();
-            String tmpCode = tmp + ollirIntArrayType;
             var numArrayElems = numArgNodes - params.size() + 1;
-            numArgNodes = params.size();
 
-            computation.append(tmpCode).append(SPACE).append(ASSIGN).append(ollirIntArrayType).append(SPACE)
-                    .append("new(array, ").append(numArrayElems).append(ollirIntType).append(")").append(ollirIntArrayType).append(END_STMT);
+            var size = builder.literal(Integer.toString(numArrayElems), ollirIntType);
+            var array = builder.assign(tmp, ollirIntArrayType, newInstruction(ollirIntArrayType, size));
 
             for (int i = 0; i < numArrayElems; i++) {
-                var elemCode = argCodes.get(argCodes.size() - numArrayElems + i);
-                computation.append(tmp).append("[").append(i).append(ollirIntType).append("]").append(ollirIntType).append(SPACE)
-                        .append(ASSIGN).append(ollirIntType).append(SPACE).append(elemCode).append(END_STMT);
+                var elem = args.get(args.size() - numArrayElems + i);
+                var index = builder.literal(Integer.toString(i), ollirIntType);
+                builder.assign(builder.arrayOperand(tmp, ollirIntType, index), ollirIntType,
+                        new SingleOpInstruction(elem));
             }
 
-            argCodes.subList(argCodes.size() - numArrayElems, argCodes.size()).clear();
-            argCodes.add(tmpCode);
+            args.subList(args.size() - numArrayElems, args.size()).clear();
+            args.add(array);
         }
 
         // if method type is imported, we try to get the type from the assign statement
@@ -212,77 +206,69 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         var assignStmt = node.getAncestor(ASSIGN_STMT);
         if (methodType.getName().equals("imported")) {
             if (assignStmt.isPresent())
-                methodType = TypeUtils.getTypeFromString(assignStmt.get().get("type"));
+                methodType = TypeUtils.getType(assignStmt.get());
             else
                 methodType = TypeUtils.newVoidType();
         }
         var methodOllirType = ollirTypes.toOllirType(methodType);
 
         // if the method is void or the return value is not used, we don't need to assign the result to tmp
-        boolean isVoid = methodOllirType.equals(".V");
+        boolean isVoid = methodType.getName().equals("void") && !methodType.isArray();
         boolean isReturnUsed = !node.getParent().getKind().equals(EXPR_STMT.toString());
-        String code = (isVoid || !isReturnUsed) ? "" : ollirTypes.nextTemp() + methodOllirType;
-        if (!isVoid && isReturnUsed)
-            computation.append(code).append(SPACE).append(ASSIGN).append(methodOllirType).append(SPACE);
+        boolean isIsolated = isVoid || !isReturnUsed;
 
-        var callerType = TypeUtils.getTypeFromString(node.getChild(0).get("type"));
+        var name = builder.methodName(methodName);
+        CallInstruction call;
         if (callerType.getName().equals("imported"))
-            computation.append("invokestatic");
+            call = new InvokeStaticInstruction(caller.getValue(), name, args, methodOllirType, isIsolated);
         else if (methodName.equals(table.getClassName()))
-            computation.append("invokespecial");
+            call = new InvokeSpecialInstruction(builder.objectRef(caller.getValue()), name, null, args, methodOllirType,
+                    isIsolated);
         else
-            computation.append("invokevirtual");
+            call = new InvokeVirtualInstruction(builder.objectRef(caller.getValue()), name, args, methodOllirType,
+                    isIsolated);
 
-        computation.append("(").append(caller.getCode()).append(", ").append(String.format("\"%s\"", methodName));
-        for (int i = 1; i <= numArgNodes; i++) {
-            computation.append(", ");
-            computation.append(argCodes.get(i - 1));
+        if (isIsolated) {
+            builder.add(call);
+            return OllirExprResult.EMPTY;
         }
-        computation.append(")").append(methodOllirType).append(END_STMT);
 
-        return new OllirExprResult(code, computation.toString());
+        return new OllirExprResult(builder.assign(ollirTypes.nextTemp(), methodOllirType, call));
     }
 
 
     private OllirExprResult visitInteger(JmmNode node, Void unused) {
         var intType = TypeUtils.newIntType();
-        String ollirIntType = ollirTypes.toOllirType(intType);
-        String code = node.get("value") + ollirIntType;
-        return new OllirExprResult(code);
+        return new OllirExprResult(builder.literal(node.get("value"), ollirTypes.toOllirType(intType)));
     }
 
     private OllirExprResult visitBoolean(JmmNode node, Void unused) {
         var booleanType = TypeUtils.newBooleanType();
-        String ollirBooleanType = ollirTypes.toOllirType(booleanType);
-        String code = (node.get("value").equals("true") ? "1" : "0") + ollirBooleanType;
-        return new OllirExprResult(code);
+        var literal = node.get("value").equals("true") ? "1" : "0";
+        return new OllirExprResult(builder.literal(literal, ollirTypes.toOllirType(booleanType)));
     }
 
     private OllirExprResult visitShortCircuitAnd(JmmNode node) {
         var lhs = visit(node.getChild(0));
-        var rhs = visit(node.getChild(1));
 
-        StringBuilder computation = new StringBuilder();
-        computation.append(lhs.getComputation());
-
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
-        String code = ollirTypes.nextTemp() + ollirType;
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
+        String tmp = ollirTypes.nextTemp();
 
         int num = ollirTypes.nextIfLabelNumber();
         String thenLabel = "then" + num;
         String endIfLabel = "endif" + num;
 
-        computation.append("if (").append(lhs.getCode()).append(") goto ").append(thenLabel).append(END_STMT);
-        computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                .append("0").append(ollirType).append(END_STMT);
-        computation.append("goto ").append(endIfLabel).append(END_STMT);
-        computation.append(thenLabel).append(":").append(NL);
-        computation.append(rhs.getComputation());
-        computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                .append(rhs.getCode()).append(END_STMT);
-        computation.append(endIfLabel).append(":").append(NL);
-
-        return new OllirExprResult(code, computation);
+        builder.addBranch(new SingleOpInstruction(lhs.getValue()), thenLabel);
+        builder.assign(tmp, ollirType, new SingleOpInstruction(builder.literal("0", ollirType)));
+        builder.add(new GotoInstruction(endIfLabel));
+        builder.addLabel(thenLabel);
+
+        // The right operand is only computed when the left one is true
+        var rhs = visit(node.getChild(1));
+        builder.assign(tmp, ollirType, new SingleOpInstruction(rhs.getValue()));
+        builder.addLabel(endIfLabel);
+
+        return new OllirExprResult(builder.operand(tmp, ollirType));
     }
 
 
@@ -295,48 +281,22 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         var lhs = visit(node.getChild(0));
         var rhs = visit(node.getChild(1));
 
-        StringBuilder computation = new StringBuilder();
-
-        // code to compute the children
-        computation.append(lhs.getComputation());
-        computation.append(rhs.getComputation());
-
-        // code to compute self
+        // instruction to compute self
         Type resType = types.getExprType(node);
-        String resOllirType = ollirTypes.toOllirType(resType);
-        String code = ollirTypes.nextTemp() + resOllirType;
-
-        computation.append(code).append(SPACE)
-                .append(ASSIGN).append(resOllirType).append(SPACE)
-                .append(lhs.getCode()).append(SPACE);
+        var resOllirType = ollirTypes.toOllirType(resType);
+        var operation = new Operation(OllirBuilder.toOperationType(op), ollirTypes.toOllirType(resType));
+        var binaryOp = new BinaryOpInstruction(lhs.getValue(), operation, rhs.getValue());
 
-        Type type = types.getExprType(node);
-        computation.append(op).append(ollirTypes.toOllirType(type)).append(SPACE)
-                .append(rhs.getCode()).append(END_STMT);
-
-        return new OllirExprResult(code, computation);
+        return new OllirExprResult(builder.assign(ollirTypes.nextTemp(), resOllirType, binaryOp));
     }
 
     private boolean isField(JmmNode node) {
         String methodName = node.getAncestor(METHOD_DECL).get().get("name");
         String varRefExprName = node.get("name");
 
-        for (var localVar: table.getLocalVariables(methodName)) {
-            if (localVar.getName().equals(varRefExprName))
-                return false;
-        }
-
-        for (var param: table.getParameters(methodName)) {
-            if (param.getName().equals(varRefExprName))
-                return false;
-        }
-
-        for (var field: table.getFields()) {
-            if (field.getName().equals(varRefExprName))
-                return true;
-        }
-
-        return false;
+        return ((JmmSymbolTable) table).lookup(methodName, varRefExprName)
+                .map(symbol -> symbol.getScope() == ScopedSymbol.Scope.FIELD)
+                .orElse(false);
     }
 
 
@@ -345,26 +305,23 @@ public class OllirExprGeneratorVisitor extends PreorderJmmVisitor<Void, OllirExp
         var id = node.get("name");
         Type type = types.getExprType(node);
 
+        // Imported classes are only used as the class of static calls
         if (type.getName().equals("imported"))
-            return new OllirExprResult(id);
-
-        String ollirType = ollirTypes.toOllirType(type);
-        String code = id + ollirType;
+            return new OllirExprResult(builder.classRef(id));
 
-        StringBuilder computation = new StringBuilder();
-        if(isField(node)) {
-            String tmp = ollirTypes.nextTemp() + ollirType;
+        var ollirType = ollirTypes.toOllirType(type);
 
-            computation.append(tmp).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE)
-                    .append("getfield(this, ").append(code).append(")").append(ollirType).append(END_STMT);
-            code = tmp;
+        if (isField(node)) {
+            var getField = new GetFieldInstruction(builder.thisRef(), builder.operand(id, ollirType), ollirType);
+            return new OllirExprResult(builder.assign(ollirTypes.nextTemp(), ollirType, getField));
         }
 
-        return new OllirExprResult(code, computation);
+        return new OllirExprResult(builder.operand(id, ollirType));
     }
 
     /**
      * Default visitor. Visits every child node and return an empty result.
+     * The instructions of the children are still generated.
      *
      * @param node
      * @param unused
@@ -1,38 +1,31 @@
 package pt.up.fe.comp2025.optimization;
 
-public class OllirExprResult {
-
-    public static final OllirExprResult EMPTY = new OllirExprResult("", "");
+import org.specs.comp.ollir.Element;
 
-    private final String computation;
-    private final String code;
-
-    public OllirExprResult(String code, String computation) {
-        this.code = code;
-        this.computation = computation;
-    }
+/**
+ * Value of an expression. The instructions that compute it were already added to the method by the generator.
+ */
+public class OllirExprResult {
 
-    public OllirExprResult(String code) {
-        this(code, "");
-    }
+    public static final OllirExprResult EMPTY = new OllirExprResult(null);
 
-    public OllirExprResult(String code, StringBuilder computation) {
-        this(code, computation.toString());
-    }
+    private final Element value;
 
-    public String getComputation() {
-        return computation;
+    /**
+     * @param value operand or literal with the value, or null if the expression has no value
+     */
+    public OllirExprResult(Element value) {
+        this.value = value;
     }
 
-    public String getCode() {
-        return code;
+    public Element getValue() {
+        return value;
     }
 
     @Override
     public String toString() {
-        return "OllirNodeResult{" +
-                "computation='" + computation + '\'' +
-                ", code='" + code + '\'' +
+        return "OllirExprResult{" +
+                "value=" + value +
                 '}';
     }
 }
@@ -1,27 +1,30 @@
 package pt.up.fe.comp2025.optimization;
 
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.Operation;
+import org.specs.comp.ollir.OperationType;
+import org.specs.comp.ollir.inst.*;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.MethodSignature;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol;
 
-import java.util.stream.Collectors;
+import java.util.ArrayList;
 
 import static pt.up.fe.comp2025.ast.Kind.*;
 
 /**
- * Generates OLLIR code from JmmNodes that are not expressions.
+ * Generates OLLIR from JmmNodes that are not expressions.
+ * <p>
+ * Every handler adds its instructions to a single {@link OllirBuilder}, shared with the expression generator, so the
+ * OLLIR class is built directly, without printing and parsing OLLIR code.
  */
-public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
-
-    private static final String SPACE = " ";
-    private static final String ASSIGN = ":=";
-    private final String END_STMT = ";\n";
-    private final String NL = "\n";
-    private final String L_BRACKET = " {\n";
-    private final String R_BRACKET = "}\n";
-
+public class OllirGeneratorVisitor extends AJmmVisitor<Void, Void> {
 
     private final SymbolTable table;
 
@@ -29,13 +32,26 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     private final OptUtils ollirTypes;
 
 
+    private final OllirBuilder builder;
     private final OllirExprGeneratorVisitor exprVisitor;
 
     public OllirGeneratorVisitor(SymbolTable table) {
         this.table = table;
         this.types = new TypeUtils(table);
         this.ollirTypes = new OptUtils(types);
-        exprVisitor = new OllirExprGeneratorVisitor(table, ollirTypes);
+        this.builder = new OllirBuilder(table.getClassName());
+        exprVisitor = new OllirExprGeneratorVisitor(table, ollirTypes, builder);
+    }
+
+    /**
+     * Generates the OLLIR class of the program.
+     *
+     * @return the class, with the tables of variables of its methods built
+     */
+    public ClassUnit build(JmmNode root) {
+        visit(root);
+
+        return builder.build();
     }
 
 
@@ -45,7 +61,6 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         addVisit(PROGRAM, this::visitProgram);
         addVisit(CLASS_DECL, this::visitClass);
         addVisit(METHOD_DECL, this::visitMethodDecl);
-        addVisit(PARAM, this::visitParam);
         addVisit(RETURN_STMT, this::visitReturn);
         addVisit(ASSIGN_STMT, this::visitAssignStmt);
         addVisit(EXPR_STMT, this::visitExprStmt);
@@ -57,69 +72,70 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         setDefaultVisit(this::defaultVisit);
     }
 
-    private String visitBlockStmt(JmmNode node, Void unused) {
-        StringBuilder code = new StringBuilder();
-
+    private Void visitBlockStmt(JmmNode node, Void unused) {
         for (var child : node.getChildren()) {
-            code.append(visit(child));
+            visit(child);
         }
 
-        return code.toString();
+        return null;
     }
 
-    private String visitArrayAssignStmt(JmmNode node, Void unused) {
+    private Void visitArrayAssignStmt(JmmNode node, Void unused) {
         var arrayId = node.getChild(0).get("name");
         var array = exprVisitor.visit(node.getChild(0));
         var index = exprVisitor.visit(node.getChild(1));
         var value = exprVisitor.visit(node.getChild(2));
 
-        String ollirType = ollirTypes.toOllirType(node.get("type"));
-
-        StringBuilder code = new StringBuilder();
-
-        code.append(array.getComputation());
-        code.append(index.getComputation());
-        code.append(value.getComputation());
+        var ollirType = ollirTypes.toOllirType(TypeUtils.getType(node));
 
         if (isField(node.getChild(0)))
-            arrayId = array.getCode();
+            arrayId = ((Operand) array.getValue()).getName();
 
-        code.append(arrayId).append("[").append(index.getCode()).append("]").append(ollirType).append(SPACE);
-        code.append(ASSIGN).append(ollirType).append(SPACE);
-        code.append(value.getCode()).append(END_STMT);
+        builder.assign(builder.arrayOperand(arrayId, ollirType, index.getValue()), ollirType,
+                new SingleOpInstruction(value.getValue()));
 
-        return code.toString();
+        return null;
     }
 
-    private String visitWhileStmt(JmmNode node, Void unused) {
+    private Void visitWhileStmt(JmmNode node, Void unused) {
         int num = ollirTypes.nextWhileLabelNumber();
         String whileLabel = "while" + num;
         num = ollirTypes.nextIfLabelNumber();
         String endIfLabel = "endif" + num;
         var loopBlockStmt = node.getChild(1);
 
-        var condition = exprVisitor.visit(node.getChild(0));
-        StringBuilder code = new StringBuilder();
-
-        code.append(whileLabel).append(":").append(NL);
-        code.append(condition.getComputation());
+        // Loop invariant lengths are computed once, before the loop
+        for (var length : node.getChild(0).getDescendants(LENGTH_EXPR)) {
+            if (!length.hasAttribute(LoopBoundsAnalysis.HOISTED))
+                continue;
 
-        var boolenType = TypeUtils.newBooleanType();
-        String ollirBooleanType = ollirTypes.toOllirType(boolenType);
-        code.append("if (!").append(ollirBooleanType).append(" ").append(condition.getCode()).append(") goto ").append(endIfLabel).append(END_STMT);
-        code.append(visit(loopBlockStmt));
-        code.append("goto ").append(whileLabel).append(END_STMT);
-        code.append(endIfLabel).append(":").append(NL);
+            var hoisted = exprVisitor.visit(length);
+            exprVisitor.hoist(length, hoisted.getValue());
 
-        return code.toString();
-    }
+            // The same array in the body shares the hoisted length
+            var arrayName = length.getChild(0).get("name");
+            for (var bodyLength : loopBlockStmt.getDescendants(LENGTH_EXPR)) {
+                if (bodyLength.hasAttribute(LoopBoundsAnalysis.HOISTED)
+                        && bodyLength.getChild(0).get("name").equals(arrayName))
+                    exprVisitor.hoist(bodyLength, hoisted.getValue());
+            }
+        }
 
-    private String visitIfStmt(JmmNode node, Void unused) {
+        builder.addLabel(whileLabel);
         var condition = exprVisitor.visit(node.getChild(0));
 
-        StringBuilder code = new StringBuilder();
+        var booleanType = ollirTypes.toOllirType(TypeUtils.newBooleanType());
+        var notCondition = new UnaryOpInstruction(new Operation(OperationType.NOTB, booleanType), condition.getValue());
+        builder.addBranch(notCondition, endIfLabel);
+        visit(loopBlockStmt);
+        builder.add(new GotoInstruction(whileLabel));
+        builder.addLabel(endIfLabel);
+
+        return null;
+    }
 
-        code.append(condition.getComputation());
+    private Void visitIfStmt(JmmNode node, Void unused) {
+        var condition = exprVisitor.visit(node.getChild(0));
 
         int num = ollirTypes.nextIfLabelNumber();
         String thenLabel = "then" + num;
@@ -127,52 +143,37 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var thenBlockStmt = node.getChild(1);
         var elseBlockStmt = node.getChild(2);
 
-        code.append("if (").append(condition.getCode()).append(") goto ").append(thenLabel).append(END_STMT);
-        code.append(visit(elseBlockStmt));
-        code.append("goto ").append(endIfLabel).append(END_STMT);
-        code.append(thenLabel).append(":").append(NL);
-        code.append(visit(thenBlockStmt));
-        code.append(endIfLabel).append(":").append(NL);
+        builder.addBranch(new SingleOpInstruction(condition.getValue()), thenLabel);
+        visit(elseBlockStmt);
+        builder.add(new GotoInstruction(endIfLabel));
+        builder.addLabel(thenLabel);
+        visit(thenBlockStmt);
+        builder.addLabel(endIfLabel);
 
-        return code.toString();
+        return null;
     }
 
-    private String visitExprStmt(JmmNode node, Void unused) {
-        var expr = exprVisitor.visit(node.getChild(0));
+    private Void visitExprStmt(JmmNode node, Void unused) {
+        exprVisitor.visit(node.getChild(0));
 
-        return expr.getComputation();
+        return null;
     }
 
     private boolean isField(JmmNode node) {
         String methodName = node.getAncestor(METHOD_DECL).get().get("name");
         String varRefExprName = node.get("name");
 
-        for (var localVar : table.getLocalVariables(methodName)) {
-            if (localVar.getName().equals(varRefExprName))
-                return false;
-        }
-
-        for (var param : table.getParameters(methodName)) {
-            if (param.getName().equals(varRefExprName))
-                return false;
-        }
-
-        for (var field : table.getFields()) {
-            if (field.getName().equals(varRefExprName))
-                return true;
-        }
-
-        return false;
+        return ((JmmSymbolTable) table).lookup(methodName, varRefExprName)
+                .map(symbol -> symbol.getScope() == ScopedSymbol.Scope.FIELD)
+                .orElse(false);
     }
 
 
-    private String visitAssignStmt(JmmNode node, Void unused) {
-        StringBuilder code = new StringBuilder();
-
+    private Void visitAssignStmt(JmmNode node, Void unused) {
         var rhsNode = node.getChild(0);
-        var thisType = node.get("type");
-        String typeString = ollirTypes.toOllirType(thisType);
-        var varCode = node.get("name") + typeString;
+        var thisType = TypeUtils.getType(node);
+        var ollirType = ollirTypes.toOllirType(thisType);
+        var name = node.get("name");
 
         // Check for direct binary assignments (e.g., i = i + 1, i = 1 + i or i = i - 1)
         if (rhsNode.getKind().equals("BinaryExpr") && !isField(node)) {
@@ -185,208 +186,133 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
                     left.getKind().equals("IntegerLiteral"));
 
             if (isDirectAssign) {
-                var op = rhsNode.get("op");
+                var op = OllirBuilder.toOperationType(rhsNode.get("op"));
                 var leftExpr = exprVisitor.visit(left);
                 var rightExpr = exprVisitor.visit(right);
 
-                code.append(leftExpr.getComputation());
-                code.append(rightExpr.getComputation());
-                code.append(varCode).append(SPACE).append(ASSIGN).append(typeString).append(SPACE);
-                code.append(leftExpr.getCode()).append(SPACE).append(op);
-                code.append(typeString).append(SPACE).append(rightExpr.getCode()).append(END_STMT);
-                return code.toString();
+                var operation = new Operation(op, ollirTypes.toOllirType(thisType));
+                builder.assign(name, ollirType, new BinaryOpInstruction(leftExpr.getValue(), operation,
+                        rightExpr.getValue()));
+                return null;
             }
         }
 
+        // instructions to compute the children
         var rhs = exprVisitor.visit(rhsNode);
 
-        // code to compute the children
-        code.append(rhs.getComputation());
-
         if (isField(node)) {
-            code.append("putfield(this, ").append(varCode).append(", ")
-                    .append(rhs.getCode()).append(").V").append(END_STMT);
+            builder.add(new PutFieldInstruction(builder.thisRef(), builder.operand(name, ollirType), rhs.getValue(),
+                    ollirTypes.toOllirType(TypeUtils.newVoidType())));
 
-            return code.toString();
+            return null;
         }
 
-        code.append(varCode);
-        code.append(SPACE);
-
-        code.append(ASSIGN);
-        code.append(typeString);
-        code.append(SPACE);
-
-        code.append(rhs.getCode());
+        builder.assign(name, ollirType, new SingleOpInstruction(rhs.getValue()));
 
-        code.append(END_STMT);
-
-        return code.toString();
+        return null;
     }
 
 
-    private String visitReturn(JmmNode node, Void unused) {
+    private Void visitReturn(JmmNode node, Void unused) {
         String methodName = node.getAncestor(METHOD_DECL).map(method -> method.get("name")).orElseThrow();
         Type retType = table.getReturnType(methodName);
 
-        StringBuilder code = new StringBuilder();
-
-
         var expr = node.getNumChildren() > 0 ? exprVisitor.visit(node.getChild(0)) : OllirExprResult.EMPTY;
 
+        var ret = expr.getValue() != null ? new ReturnInstruction(expr.getValue()) : new ReturnInstruction();
+        ret.setReturnType(ollirTypes.toOllirType(retType));
+        builder.add(ret);
 
-        code.append(expr.getComputation());
-        code.append("ret");
-        code.append(ollirTypes.toOllirType(retType));
-        code.append(SPACE);
-
-        code.append(expr.getCode());
-
-        code.append(END_STMT);
-
-        return code.toString();
-    }
-
-
-    private String visitParam(JmmNode node, Void unused) {
-
-        var typeCode = ollirTypes.toOllirType(node.getChild(0));
-        var id = node.get("name");
-
-        String code = id + typeCode;
-
-        return code;
+        return null;
     }
 
 
-    private String visitMethodDecl(JmmNode node, Void unused) {
-
-        StringBuilder code = new StringBuilder(".method ");
+    private Void visitMethodDecl(JmmNode node, Void unused) {
 
         boolean isPublic = node.getBoolean("isPublic", false);
-        if (isPublic) {
-            code.append("public ");
-        }
-
         boolean isStatic = node.getBoolean("isStatic", false);
-        if (isStatic) {
-            code.append("static ");
-        }
 
         var name = node.get("name");
         var params = table.getParameters(name);
 
         // varargs
-        if (!params.isEmpty()) {
-            var isVarargs = (boolean) params.getLast().getType().getObject("isVarargs");
-            if (isVarargs)
-                code.append("varargs ");
-        }
-
-        // name
-        code.append(name);
-
-        // params
-        var paramsCode = params.stream()
-                .map(param -> param.getName() + ollirTypes.toOllirType(param.getType()))
-                .collect(Collectors.joining(", "));
-        code.append("(").append(paramsCode).append(")");
+        var isVarargs = ((JmmSymbolTable) table).getSignatures(name).stream().anyMatch(MethodSignature::isVarargs);
 
         // type
         var retType = ollirTypes.toOllirType(table.getReturnType(name));
-        code.append(retType);
-        code.append(L_BRACKET);
+        builder.beginMethod(name, retType, isPublic, isStatic, isVarargs);
 
+        // params
+        for (var param : params)
+            builder.addParam(param.getName(), ollirTypes.toOllirType(param.getType()));
 
         // rest of its children stmts
-        var stmtsCode = node.getChildren(STMT).stream()
-                .map(this::visit)
-                .collect(Collectors.joining("\n   ", "   ", ""));
-
-        code.append(stmtsCode);
+        for (var stmt : node.getChildren(STMT))
+            visit(stmt);
 
-        if (node.getChildren(RETURN_STMT).isEmpty())
-            code.append("ret.V").append(END_STMT);
+        if (node.getChildren(RETURN_STMT).isEmpty()) {
+            var ret = new ReturnInstruction();
+            ret.setReturnType(ollirTypes.toOllirType(TypeUtils.newVoidType()));
+            builder.add(ret);
+        }
 
-        code.append(R_BRACKET);
-        code.append(NL);
+        builder.endMethod();
 
-        return code.toString();
+        return null;
     }
 
 
-    private String visitClass(JmmNode node, Void unused) {
-
-        StringBuilder code = new StringBuilder();
-
-        code.append(NL);
-        code.append(table.getClassName());
+    private Void visitClass(JmmNode node, Void unused) {
 
         // super class
         if (table.getSuper() != null) {
-            code.append(" extends ").append(table.getSuper());
+            builder.setSuperClass(table.getSuper());
         }
 
-        code.append(L_BRACKET);
-        code.append(NL);
-        code.append(NL);
-
         // fields
         for (var field : table.getFields()) {
-            code.append(".field public ");
-            code.append(field.getName());
-            code.append(ollirTypes.toOllirType(field.getType()));
-            code.append(END_STMT);
+            builder.addField(field.getName(), ollirTypes.toOllirType(field.getType()));
         }
 
-        code.append(buildConstructor());
-        code.append(NL);
+        buildConstructor();
 
         for (var child : node.getChildren(METHOD_DECL)) {
-            var result = visit(child);
-            code.append(result);
+            visit(child);
         }
 
-        code.append(R_BRACKET);
-
-        return code.toString();
+        return null;
     }
 
-    private String buildConstructor() {
-
-        return """
-                .construct %s().V {
-                    invokespecial(this, "<init>").V;
-                }
-                """.formatted(table.getClassName());
+    private void buildConstructor() {
+        builder.beginConstructor();
+        builder.add(new InvokeSpecialInstruction(builder.thisRef(), builder.methodName("<init>"), null,
+                new ArrayList<>(), ollirTypes.toOllirType(TypeUtils.newVoidType()), true));
+        builder.endMethod();
     }
 
-    private String visitProgram(JmmNode node, Void unused) {
-
-        StringBuilder code = new StringBuilder();
+    private Void visitProgram(JmmNode node, Void unused) {
 
         for (String importPath : table.getImports())
-            code.append("import ").append(importPath).append(END_STMT);
+            builder.addImport(importPath);
 
-        node.getChildren().stream()
-                .map(this::visit)
-                .forEach(code::append);
+        for (var child : node.getChildren())
+            visit(child);
 
-        return code.toString();
+        return null;
     }
 
     /**
-     * Default visitor. Visits every child node and return an empty string.
+     * Default visitor. Visits every child node and returns null.
      *
      * @param node
      * @param unused
      * @return
      */
-    private String defaultVisit(JmmNode node, Void unused) {
+    private Void defaultVisit(JmmNode node, Void unused) {
         for (var child : node.getChildren()) {
             visit(child);
         }
 
-        return "";
+        return null;
     }
 }
@@ -0,0 +1,261 @@
+package pt.up.fe.comp2025.optimization;
+
+import org.specs.comp.ollir.AccessModifier;
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Element;
+import org.specs.comp.ollir.Field;
+import org.specs.comp.ollir.LiteralElement;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.Operation;
+import org.specs.comp.ollir.inst.*;
+import org.specs.comp.ollir.type.ArrayType;
+import org.specs.comp.ollir.type.BuiltinType;
+import org.specs.comp.ollir.type.ClassType;
+import org.specs.comp.ollir.type.Type;
+
+import java.util.List;
+
+/**
+ * Prints the OLLIR code of a class of the OLLIR object model.
+ * <p>
+ * Parsing the printed code gives back an equivalent class. The code is only needed to show the OLLIR of a
+ * compilation, the compiler itself uses the object model built by {@link OllirBuilder}.
+ */
+public class OllirPrinter {
+
+    private static final String NL = "\n";
+    private static final String END_STMT = ";\n";
+
+    private final StringBuilder code;
+
+    private OllirPrinter() {
+        this.code = new StringBuilder();
+    }
+
+    public static String print(ClassUnit classUnit) {
+        var printer = new OllirPrinter();
+        printer.printClass(classUnit);
+
+        return printer.code.toString();
+    }
+
+    private void printClass(ClassUnit classUnit) {
+        for (var importPath : classUnit.getImports())
+            code.append("import ").append(importPath).append(END_STMT);
+
+        code.append(NL).append(classUnit.getClassName());
+
+        if (classUnit.getSuperClass() != null)
+            code.append(" extends ").append(classUnit.getSuperClass());
+
+        code.append(" {").append(NL).append(NL);
+
+        for (var field : classUnit.getFields())
+            printField(field);
+
+        for (var method : classUnit.getMethods()) {
+            printMethod(method);
+            code.append(NL);
+        }
+
+        code.append("}").append(NL);
+    }
+
+    private void printField(Field field) {
+        code.append(".field ");
+        printAccess(field.getFieldAccessModifier());
+
+        if (field.isStaticField())
+            code.append("static ");
+
+        if (field.isFinalField())
+            code.append("final ");
+
+        code.append(field.getFieldName()).append(toCode(field.getFieldType()));
+
+        if (field.isInitialized())
+            code.append(" := ").append(field.getInitialValue());
+
+        code.append(END_STMT);
+    }
+
+    private void printMethod(Method method) {
+        code.append(method.isConstructMethod() ? ".construct " : ".method ");
+        printAccess(method.getMethodAccessModifier());
+
+        if (method.isStaticMethod())
+            code.append("static ");
+
+        if (method.isFinalMethod())
+            code.append("final ");
+
+        if (method.isVarargs())
+            code.append("varargs ");
+
+        code.append(method.getMethodName()).append("(");
+        printList(method.getParams());
+        code.append(")").append(toCode(method.getReturnType())).append(" {").append(NL);
+
+        for (var instruction : method.getInstructions()) {
+            for (var label : method.getLabels(instruction))
+                code.append(label).append(":").append(NL);
+
+            code.append("   ");
+            printInstruction(instruction);
+            code.append(END_STMT);
+        }
+
+        code.append("}").append(NL);
+    }
+
+    private void printAccess(AccessModifier access) {
+        if (access != AccessModifier.DEFAULT)
+            code.append(access.name().toLowerCase()).append(" ");
+    }
+
+    private void printInstruction(Instruction instruction) {
+        switch (instruction) {
+            case AssignInstruction assign -> {
+                printElement(assign.getDest());
+                code.append(" :=").append(toCode(assign.getTypeOfAssign())).append(" ");
+                printInstruction(assign.getRhs());
+            }
+            case SingleOpInstruction singleOp -> printElement(singleOp.getSingleOperand());
+            case BinaryOpInstruction binaryOp -> {
+                printElement(binaryOp.getLeftOperand());
+                code.append(" ");
+                printOperation(binaryOp.getOperation());
+                code.append(" ");
+                printElement(binaryOp.getRightOperand());
+            }
+            case UnaryOpInstruction unaryOp -> {
+                printOperation(unaryOp.getOperation());
+                code.append(" ");
+                printElement(unaryOp.getOperand());
+            }
+            case CallInstruction call -> printCall(call);
+            case GetFieldInstruction getField -> {
+                code.append("getfield(");
+                printList(List.of(getField.getObject(), getField.getField()));
+                code.append(")").append(toCode(getField.getFieldType()));
+            }
+            case PutFieldInstruction putField -> {
+                code.append("putfield(");
+                printList(List.of(putField.getObject(), putField.getField(), putField.getValue()));
+                code.append(")").append(toCode(putField.getFieldType()));
+            }
+            case GotoInstruction gotoInstruction -> code.append("goto ").append(gotoInstruction.getLabel());
+            case CondBranchInstruction branch -> {
+                code.append("if (");
+                printInstruction(branch.getCondition());
+                code.append(") goto ").append(branch.getLabel());
+            }
+            case ReturnInstruction ret -> {
+                code.append("ret").append(toCode(ret.getReturnType()));
+                ret.getOperand().ifPresent(operand -> {
+                    code.append(" ");
+                    printElement(operand);
+                });
+            }
+            default -> throw new RuntimeException("Cannot print instruction '" + instruction + "'");
+        }
+    }
+
+    private void printCall(CallInstruction call) {
+        switch (call) {
+            case NewInstruction ignored -> code.append("new(").append(((Operand) call.getCaller()).getName());
+            case ArrayLengthInstruction ignored -> {
+                code.append("arraylength(");
+                printElement(call.getCaller());
+            }
+            case InvokeStaticInstruction ignored -> {
+                // The class of a static call is only a name
+                code.append("invokestatic(").append(((Operand) call.getCaller()).getName());
+            }
+            default -> {
+                code.append(call.getInvocationKind().toLowerCase()).append("(");
+                printElement(call.getCaller());
+            }
+        }
+
+        call.getMethodNameTry().ifPresent(methodName ->
+                code.append(", \"").append(((LiteralElement) methodName).getLiteral()).append("\""));
+
+        if (call instanceof InvokeSpecialInstruction invokeSpecial)
+            invokeSpecial.getSuperClass().ifPresent(superClass -> code.append(", \"").append(superClass).append("\""));
+
+        for (var argument : call.getArguments()) {
+            code.append(", ");
+            printElement(argument);
+        }
+
+        code.append(")").append(toCode(call.getReturnType()));
+    }
+
+    private void printOperation(Operation operation) {
+        var symbol = switch (operation.getOpType()) {
+            case ADD -> "+";
+            case SUB -> "-";
+            case MUL -> "*";
+            case DIV -> "/";
+            case REM -> "%";
+            case AND -> "&";
+            case OR -> "|";
+            case XOR -> "^";
+            case ANDB -> "&&";
+            case ORB -> "||";
+            case NOTB -> "!";
+            case LTH -> "<";
+            case LTE -> "<=";
+            case GTH -> ">";
+            case GTE -> ">=";
+            case EQ -> "==";
+            case NEQ -> "!=";
+            default -> throw new RuntimeException("Cannot print operation '" + operation.getOpType() + "'");
+        };
+
+        code.append(symbol).append(toCode(operation.getTypeInfo()));
+    }
+
+    private void printList(List<? extends Element> elements) {
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0)
+                code.append(", ");
+
+            printElement(elements.get(i));
+        }
+    }
+
+    private void printElement(Element element) {
+        switch (element) {
+            case ArrayOperand arrayOperand -> {
+                code.append(arrayOperand.getName());
+                for (var index : arrayOperand.getIndexOperands()) {
+                    code.append("[");
+                    printElement(index);
+                    code.append("]");
+                }
+                code.append(toCode(arrayOperand.getType()));
+            }
+            case Operand operand -> code.append(operand.getName()).append(toCode(operand.getType()));
+            case LiteralElement literal -> code.append(literal.getLiteral()).append(toCode(literal.getType()));
+            default -> throw new RuntimeException("Cannot print element '" + element + "'");
+        }
+    }
+
+    private static String toCode(Type type) {
+        return switch (type) {
+            case ArrayType arrayType -> ".array".repeat(arrayType.getNumDimensions()) + toCode(arrayType.getElementType());
+            case ClassType classType -> "." + classType.getName();
+            case BuiltinType builtinType -> switch (builtinType.getKind()) {
+                case INT32 -> ".i32";
+                case BOOLEAN -> ".bool";
+                case STRING -> ".String";
+                case VOID -> ".V";
+            };
+            default -> throw new RuntimeException("Cannot print type '" + type + "'");
+        };
+    }
+}
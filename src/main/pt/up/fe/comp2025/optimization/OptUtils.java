@@ -1,10 +1,14 @@
 package pt.up.fe.comp2025.optimization;
 
+import org.specs.comp.ollir.type.ArrayType;
+import org.specs.comp.ollir.type.BuiltinKind;
+import org.specs.comp.ollir.type.BuiltinType;
+import org.specs.comp.ollir.type.ClassKind;
+import org.specs.comp.ollir.type.ClassType;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2025.ast.TypeUtils;
 import pt.up.fe.specs.util.collections.AccumulatorMap;
-import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
 import static pt.up.fe.comp2025.ast.Kind.TYPE;
 
@@ -52,34 +56,36 @@ public class OptUtils {
     }
 
 
-    public String toOllirType(JmmNode typeNode) {
+    public org.specs.comp.ollir.type.Type toOllirType(JmmNode typeNode) {
 
         TYPE.checkOrThrow(typeNode);
 
         return toOllirType(types.convertType(typeNode));
     }
 
-    public String toOllirType(Type type) {
-        return toOllirType(type.getName(), type.isArray());
-    }
+    /**
+     * Converts a type to a new instance of the OLLIR type, built as the OLLIR parser builds it.
+     */
+    public org.specs.comp.ollir.type.Type toOllirType(Type type) {
+        var elementType = switch (type.getName()) {
+            case "int" -> new BuiltinType(BuiltinKind.INT32);
+            case "boolean" -> new BuiltinType(BuiltinKind.BOOLEAN);
+            case "String" -> new BuiltinType(BuiltinKind.STRING);
+            case "void" -> new BuiltinType(BuiltinKind.VOID);
+            default -> new ClassType(ClassKind.OBJECTREF, type.getName());
+        };
 
-    public String toOllirType(String type) {
-        var typeName = TypeUtils.getNameType(type);
-        var isArray = TypeUtils.getIsArrayType(type);
-        return toOllirType(typeName, Boolean.parseBoolean(isArray));
-    }
+        if (!type.isArray())
+            return elementType;
 
-    private String toOllirType(String typeName, boolean isArray) {
+        var arrayType = new ArrayType(1);
+        arrayType.setElementType(elementType);
 
-        String type = (isArray ? ".array" : "") + "." + switch (typeName) {
-            case "int" -> "i32";
-            case "boolean" -> "bool";
-            case "String" -> "String";
-            case "void" -> "V";
-            default -> typeName;
-        };
+        return arrayType;
+    }
 
-        return type;
+    public org.specs.comp.ollir.type.Type toOllirType(String type) {
+        return toOllirType(TypeUtils.getTypeFromString(type));
     }
 
 
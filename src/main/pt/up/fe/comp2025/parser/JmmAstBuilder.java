@@ -0,0 +1,215 @@
+package pt.up.fe.comp2025.parser;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+import pt.up.fe.comp2025.JavammParser.*;
+import pt.up.fe.comp2025.ast.ArenaTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the JmmNode AST from the ANTLR parse tree in a single pass.
+ * <p>
+ * Produces the same tree as {@link pt.up.fe.comp.jmm.ast.antlr.AntlrToJmmNodeConverter}: same kinds, hierarchies,
+ * attributes and positions, and no nodes for tokens. The converter finds the kind and the attributes of each node by
+ * reflection over the context classes and keeps a map from every context to its node; here they come from the
+ * fields of the generated contexts, and nothing refers to the parse tree once the AST is built.
+ */
+public class JmmAstBuilder {
+
+    // Hierarchy of each context class, from the most specific kind
+    private static final List<String> PROGRAM = List.of("Program");
+    private static final List<String> IMPORT_DECL = List.of("ImportDecl");
+    private static final List<String> CLASS_DECL = List.of("ClassDecl");
+    private static final List<String> VAR_DECL = List.of("VarDecl", "VarDeclaration");
+    private static final List<String> INT_TYPE = List.of("IntType", "Type");
+    private static final List<String> BOOLEAN_TYPE = List.of("BooleanType", "Type");
+    private static final List<String> CLASS_TYPE = List.of("ClassType", "Type");
+    private static final List<String> REGULAR_METHOD_DECL = List.of("RegularMethodDecl", "MethodDecl");
+    private static final List<String> MAIN_METHOD_DECL = List.of("MainMethodDecl", "MethodDecl");
+    private static final List<String> PARAM = List.of("Param");
+    private static final List<String> BLOCK_STMT = List.of("BlockStmt", "Stmt");
+    private static final List<String> IF_STMT = List.of("IfStmt", "Stmt");
+    private static final List<String> WHILE_STMT = List.of("WhileStmt", "Stmt");
+    private static final List<String> EXPR_STMT = List.of("ExprStmt", "Stmt");
+    private static final List<String> ARRAY_ASSIGN_STMT = List.of("ArrayAssignStmt", "Stmt");
+    private static final List<String> ASSIGN_STMT = List.of("AssignStmt", "Stmt");
+    private static final List<String> RETURN_STMT = List.of("ReturnStmt", "Stmt");
+    private static final List<String> PAREN_EXPR = List.of("ParenExpr", "Expr");
+    private static final List<String> ARRAY_ACCESS_EXPR = List.of("ArrayAccessExpr", "Expr");
+    private static final List<String> LENGTH_EXPR = List.of("LengthExpr", "Expr");
+    private static final List<String> METHOD_CALL_EXPR = List.of("MethodCallExpr", "Expr");
+    private static final List<String> NEW_INT_ARRAY_EXPR = List.of("NewIntArrayExpr", "Expr");
+    private static final List<String> NEW_OBJECT_EXPR = List.of("NewObjectExpr", "Expr");
+    private static final List<String> ARRAY_EXPR = List.of("ArrayExpr", "Expr");
+    private static final List<String> NOT_EXPR = List.of("NotExpr", "Expr");
+    private static final List<String> BINARY_EXPR = List.of("BinaryExpr", "Expr");
+    private static final List<String> INTEGER_LITERAL = List.of("IntegerLiteral", "Expr");
+    private static final List<String> BOOLEAN_LITERAL = List.of("BooleanLiteral", "Expr");
+    private static final List<String> VAR_REF_EXPR = List.of("VarRefExpr", "Expr");
+    private static final List<String> THIS_EXPR = List.of("ThisExpr", "Expr");
+
+    private JmmAstBuilder() {
+    }
+
+    public static JmmNode build(ParseTree tree) {
+        return build(tree, false);
+    }
+
+    /**
+     * @param compact if true, the nodes are stored in an {@link ArenaTree} instead of being {@link JmmNodeImpl}s
+     */
+    public static JmmNode build(ParseTree tree, boolean compact) {
+        if (!(tree instanceof ParserRuleContext context))
+            throw new RuntimeException("Expected the parse tree of a rule, got '" + tree.getClass() + "'");
+
+        if (!compact)
+            return buildNode(context, null);
+
+        // There are fewer nodes than tokens, as every node has at least one token
+        var arena = new ArenaTree(getTokenCount(context));
+        var root = buildNode(context, arena);
+        arena.finish();
+
+        return root;
+    }
+
+    private static int getTokenCount(ParserRuleContext context) {
+        if (context.getStart() == null || context.getStop() == null)
+            return 0;
+
+        return context.getStop().getTokenIndex() - context.getStart().getTokenIndex() + 1;
+    }
+
+    /**
+     * @param arena tree where the nodes are stored, or null for JmmNodeImpl nodes
+     */
+    private static JmmNode buildNode(ParserRuleContext context, ArenaTree arena) {
+        var node = switch (context) {
+            case ProgramContext ctx -> newNode(PROGRAM, ctx, arena);
+            case ImportDeclContext ctx -> {
+                var n = newNode(IMPORT_DECL, ctx, arena);
+                putToken(n, "ID", ctx.ID);
+                n.putObject("path", getTexts(ctx.path));
+                yield n;
+            }
+            case ClassDeclContext ctx -> {
+                var n = newNode(CLASS_DECL, ctx, arena);
+                putToken(n, "name", ctx.name);
+                putToken(n, "superClass", ctx.superClass);
+                yield n;
+            }
+            case VarDeclContext ctx -> withName(newNode(VAR_DECL, ctx, arena), ctx.name);
+            case IntTypeContext ctx -> withType(newNode(INT_TYPE, ctx, arena), ctx, ctx.name);
+            case BooleanTypeContext ctx -> withType(newNode(BOOLEAN_TYPE, ctx, arena), ctx, ctx.name);
+            case ClassTypeContext ctx -> withType(newNode(CLASS_TYPE, ctx, arena), ctx, ctx.name);
+            case RegularMethodDeclContext ctx -> {
+                var n = withMethod(newNode(REGULAR_METHOD_DECL, ctx, arena), ctx);
+                putToken(n, "name", ctx.name);
+                yield n;
+            }
+            case MainMethodDeclContext ctx -> {
+                var n = withMethod(newNode(MAIN_METHOD_DECL, ctx, arena), ctx);
+                putToken(n, "name", ctx.name);
+                putToken(n, "string", ctx.string);
+                putToken(n, "argName", ctx.argName);
+                yield n;
+            }
+            case ParamContext ctx -> withName(newNode(PARAM, ctx, arena), ctx.name);
+            case BlockStmtContext ctx -> newNode(BLOCK_STMT, ctx, arena);
+            case IfStmtContext ctx -> newNode(IF_STMT, ctx, arena);
+            case WhileStmtContext ctx -> newNode(WHILE_STMT, ctx, arena);
+            case ExprStmtContext ctx -> newNode(EXPR_STMT, ctx, arena);
+            case ArrayAssignStmtContext ctx -> newNode(ARRAY_ASSIGN_STMT, ctx, arena);
+            case AssignStmtContext ctx -> withName(newNode(ASSIGN_STMT, ctx, arena), ctx.name);
+            case ReturnStmtContext ctx -> newNode(RETURN_STMT, ctx, arena);
+            case ParenExprContext ctx -> newNode(PAREN_EXPR, ctx, arena);
+            case ArrayAccessExprContext ctx -> newNode(ARRAY_ACCESS_EXPR, ctx, arena);
+            case LengthExprContext ctx -> withName(newNode(LENGTH_EXPR, ctx, arena), ctx.name);
+            case MethodCallExprContext ctx -> withName(newNode(METHOD_CALL_EXPR, ctx, arena), ctx.name);
+            case NewIntArrayExprContext ctx -> newNode(NEW_INT_ARRAY_EXPR, ctx, arena);
+            case NewObjectExprContext ctx -> withName(newNode(NEW_OBJECT_EXPR, ctx, arena), ctx.name);
+            case ArrayExprContext ctx -> newNode(ARRAY_EXPR, ctx, arena);
+            case NotExprContext ctx -> newNode(NOT_EXPR, ctx, arena);
+            case BinaryExprContext ctx -> {
+                var n = newNode(BINARY_EXPR, ctx, arena);
+                putToken(n, "op", ctx.op);
+                yield n;
+            }
+            case IntegerLiteralContext ctx -> {
+                var n = newNode(INTEGER_LITERAL, ctx, arena);
+                putToken(n, "value", ctx.value);
+                yield n;
+            }
+            case BooleanLiteralContext ctx -> {
+                var n = newNode(BOOLEAN_LITERAL, ctx, arena);
+                putToken(n, "value", ctx.value);
+                yield n;
+            }
+            case VarRefExprContext ctx -> withName(newNode(VAR_REF_EXPR, ctx, arena), ctx.name);
+            case ThisExprContext ctx -> newNode(THIS_EXPR, ctx, arena);
+            default -> throw new RuntimeException("Unexpected parse tree node '" + context.getClass() + "'");
+        };
+
+        // Tokens do not become nodes
+        if (context.children != null) {
+            for (var child : context.children) {
+                if (child instanceof ParserRuleContext childContext)
+                    node.add(buildNode(childContext, arena));
+            }
+        }
+
+        return node;
+    }
+
+    private static JmmNode newNode(List<String> hierarchy, ParserRuleContext context, ArenaTree arena) {
+        var node = arena != null ? arena.newNode(hierarchy) : new JmmNodeImpl(hierarchy);
+
+        var start = context.getStart();
+        var stop = context.getStop() != null ? context.getStop() : start;
+
+        node.put(NodePosition.LINE_START.getKey(), Integer.toString(start.getLine()));
+        node.put(NodePosition.COL_START.getKey(), Integer.toString(start.getCharPositionInLine()));
+        node.put(NodePosition.LINE_END.getKey(), Integer.toString(stop.getLine()));
+        node.put(NodePosition.COL_END.getKey(), Integer.toString(stop.getCharPositionInLine()));
+
+        return node;
+    }
+
+    private static JmmNode withName(JmmNode node, Token name) {
+        putToken(node, "name", name);
+        return node;
+    }
+
+    private static JmmNode withType(JmmNode node, TypeContext context, Token name) {
+        putToken(node, "name", name);
+        node.putObject("isArray", context.isArray);
+        node.putObject("isVarargs", context.isVarargs);
+        return node;
+    }
+
+    private static JmmNode withMethod(JmmNode node, MethodDeclContext context) {
+        node.putObject("isPublic", context.isPublic);
+        node.putObject("isStatic", context.isStatic);
+        return node;
+    }
+
+    // Absent optional tokens are not added, as in the converter
+    private static void putToken(JmmNode node, String attribute, Token token) {
+        if (token != null)
+            node.put(attribute, token.getText());
+    }
+
+    private static List<String> getTexts(List<Token> tokens) {
+        var texts = new ArrayList<String>(tokens.size());
+        for (var token : tokens)
+            texts.add(token.getText());
+
+        return texts;
+    }
+}
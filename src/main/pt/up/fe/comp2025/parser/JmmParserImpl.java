@@ -1,15 +1,30 @@
 package pt.up.fe.comp2025.parser;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
-import pt.up.fe.comp.jmm.ast.antlr.AntlrParser;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import pt.up.fe.comp.jmm.ast.antlr.JmmErrorListener;
 import pt.up.fe.comp.jmm.parser.JmmParser;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.CompilerConfig;
 import pt.up.fe.comp2025.JavammParser;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Map;
 
 /**
@@ -27,6 +42,18 @@ import java.util.Map;
 
 public class JmmParserImpl implements JmmParser {
 
+    private static final ParseStatistics STATISTICS = new ParseStatistics();
+
+    // Characters read from a Reader at a time
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * @return how many parses needed the LL fallback, shared by all parser instances
+     */
+    public static ParseStatistics getStatistics() {
+        return STATISTICS;
+    }
+
     @Override
     public String getDefaultRule() {
         return "program";
@@ -34,30 +61,162 @@ public class JmmParserImpl implements JmmParser {
 
     @Override
     public JmmParserResult parse(String jmmCode, String startingRule, Map<String, String> config) {
+        return parse(new ANTLRInputStream(jmmCode), startingRule, config);
+    }
 
+    /**
+     * Parses the code read from the reader, without building an intermediate String.
+     *
+     * @param expectedSize number of characters expected, used to size the buffer, or -1 if unknown
+     */
+    public JmmParserResult parse(Reader reader, int expectedSize, String startingRule, Map<String, String> config) {
+        CharStream input;
         try {
-            // Convert code string into a character stream
-            var input = new ANTLRInputStream(jmmCode);
-            // Transform characters into tokens using the lexer
-            var lex = new JavammLexer(input);
-            // Wrap lexer around a token stream
-            var tokens = new CommonTokenStream(lex);
-            // Transforms tokens into a parse tree
-            var parser = new JavammParser(tokens);
+            input = readStream(reader, expectedSize);
+        } catch (IOException e) {
+            return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Could not read input", e), config);
+        }
+
+        return parse(input, startingRule, config);
+    }
+
+    /**
+     * Parses the UTF-8 file at the given path, using the default rule.
+     */
+    public JmmParserResult parse(Path path, Map<String, String> config) {
+        try (var reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            // A UTF-8 file never has more characters than bytes
+            var size = Files.size(path);
+            return parse(reader, size < Integer.MAX_VALUE - READ_CHUNK_SIZE ? (int) size : -1, getDefaultRule(), config);
+        } catch (IOException e) {
+            return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1,
+                    "Could not read file '" + path + "'", e), config);
+        }
+    }
+
+    private JmmParserResult parse(CharStream input, String startingRule, Map<String, String> config) {
 
+        try {
+            // First try the faster SLL prediction, which is enough for almost every valid input
+            long sllStart = System.nanoTime();
+            var sllResult = parseSll(input, startingRule, config);
+            long sllTime = System.nanoTime() - sllStart;
 
-            // Convert ANTLR CST to JmmNode AST
-            var r = AntlrParser.parse(lex, parser, startingRule, config);
+            if (sllResult != null) {
+                STATISTICS.addSllParse(sllTime);
+            } else {
+                // SLL failed, either because of a syntax error or because the input needs full LL prediction
+                long llStart = System.nanoTime();
+                input.seek(0);
+                sllResult = parseLl(input, startingRule, config);
+                STATISTICS.addLlParse(sllTime, System.nanoTime() - llStart);
+            }
 
-            //if (r.getRootNode() != null) {
-            //    System.out.println("AST:\n" + r.getRootNode().toTree());
-            //}
+            ParserCache.getInstance().clearIfLargerThan(CompilerConfig.getParserCacheLimit(config));
 
-            return r;
+            return sllResult;
 
         } catch (Exception e) {
             // There was an uncaught exception during parsing, create an error JmmParserResult without root node
             return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Exception during parsing", e), config);
         }
     }
+
+    /**
+     * Parses with SLL prediction, bailing out on the first error.
+     *
+     * @return the parser result, or null if the input could not be parsed in SLL mode
+     */
+    private JmmParserResult parseSll(CharStream input, String startingRule, Map<String, String> config) {
+        var lex = new JavammLexer(input);
+        lex.removeErrorListeners();
+        var lexerListener = new JmmErrorListener(Stage.LEXICAL);
+        lex.addErrorListener(lexerListener);
+
+        var parser = new JavammParser(new CommonTokenStream(lex));
+        parser.removeErrorListeners();
+        ParserCache.getInstance().install(lex, parser);
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        ParseTree tree;
+        try {
+            tree = invokeRule(parser, startingRule);
+        } catch (ParseCancellationException e) {
+            return null;
+        }
+
+        // Lexical errors are reported by the LL parse
+        if (!lexerListener.getReports().isEmpty())
+            return null;
+
+        // The parse tree is only referenced until the AST is built
+        var root = JmmAstBuilder.build(tree, CompilerConfig.getCompactAst(config));
+
+        return new JmmParserResult(root, new ArrayList<>(), config);
+    }
+
+    /**
+     * Parses with full LL prediction and the default error reporting.
+     */
+    private JmmParserResult parseLl(CharStream input, String startingRule, Map<String, String> config) {
+        // Transform characters into tokens using the lexer
+        var lex = new JavammLexer(input);
+        // Wrap lexer around a token stream
+        var tokens = new CommonTokenStream(lex);
+        // Transforms tokens into a parse tree
+        var parser = new JavammParser(tokens);
+        ParserCache.getInstance().install(lex, parser);
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+        // Same error reporting as AntlrParser
+        lex.removeErrorListeners();
+        var lexerListener = new JmmErrorListener(Stage.LEXICAL);
+        lex.addErrorListener(lexerListener);
+
+        parser.removeErrorListeners();
+        var parserListener = new JmmErrorListener(Stage.SYNTATIC);
+        parser.addErrorListener(parserListener);
+
+        var tree = invokeRule(parser, startingRule);
+
+        var reports = new ArrayList<Report>();
+        reports.addAll(lexerListener.getReports());
+        reports.addAll(parserListener.getReports());
+
+        if (reports.stream().anyMatch(report -> report.getType() == ReportType.ERROR)) {
+            return new JmmParserResult(null, reports, config);
+        }
+
+        // Convert ANTLR CST to JmmNode AST
+        var root = JmmAstBuilder.build(tree, CompilerConfig.getCompactAst(config));
+
+        //System.out.println("AST:\n" + root.toTree());
+
+        return new JmmParserResult(root, reports, config);
+    }
+
+    /**
+     * Reads the whole reader into the character buffer of the stream. Tokens refer to intervals of this buffer, their
+     * text is only copied when requested.
+     */
+    private static CharStream readStream(Reader reader, int expectedSize) throws IOException {
+        // ANTLRInputStream doubles the buffer once when less than a chunk is left, so it must be at least a chunk
+        // larger than the input to avoid copies
+        int initialSize = Math.max(expectedSize, 0) + READ_CHUNK_SIZE;
+        return new ANTLRInputStream(reader, initialSize, READ_CHUNK_SIZE);
+    }
+
+    private static ParseTree invokeRule(Parser parser, String ruleName) {
+        try {
+            return (ParseTree) parser.getClass().getMethod(ruleName).invoke(parser);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+
+            throw new RuntimeException("Exception while parsing rule '" + ruleName + "'", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Could not find parser rule '" + ruleName + "'", e);
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package pt.up.fe.comp2025.parser;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how many parses were completed by the fast SLL prediction mode and how many needed the full LL fallback,
+ * and the time spent in each.
+ */
+public class ParseStatistics {
+
+    private final AtomicLong sllParses;
+    private final AtomicLong llParses;
+    private final AtomicLong sllNanos;
+    private final AtomicLong llNanos;
+
+    public ParseStatistics() {
+        this.sllParses = new AtomicLong();
+        this.llParses = new AtomicLong();
+        this.sllNanos = new AtomicLong();
+        this.llNanos = new AtomicLong();
+    }
+
+    void addSllParse(long nanos) {
+        sllParses.incrementAndGet();
+        sllNanos.addAndGet(nanos);
+    }
+
+    /**
+     * @param sllNanos time spent in the SLL attempt that failed
+     * @param llNanos  time spent in the LL parse
+     */
+    void addLlParse(long sllNanos, long llNanos) {
+        this.llParses.incrementAndGet();
+        this.sllNanos.addAndGet(sllNanos);
+        this.llNanos.addAndGet(llNanos);
+    }
+
+    /**
+     * @return number of parses completed in SLL mode
+     */
+    public long getSllParses() {
+        return sllParses.get();
+    }
+
+    /**
+     * @return number of parses where SLL failed and LL was used
+     */
+    public long getLlParses() {
+        return llParses.get();
+    }
+
+    /**
+     * @return time spent in SLL mode, including failed attempts
+     */
+    public long getSllNanos() {
+        return sllNanos.get();
+    }
+
+    public long getLlNanos() {
+        return llNanos.get();
+    }
+
+    public void clear() {
+        sllParses.set(0);
+        llParses.set(0);
+        sllNanos.set(0);
+        llNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SLL parses: %d (%.3f ms), LL fallbacks: %d (%.3f ms)",
+                getSllParses(), getSllNanos() / 1e6, getLlParses(), getLlNanos() / 1e6);
+    }
+}
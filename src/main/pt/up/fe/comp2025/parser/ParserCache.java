@@ -0,0 +1,118 @@
+package pt.up.fe.comp2025.parser;
+
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * DFA cache of the ANTLR prediction, shared by every lexer and parser created by {@link JmmParserImpl}.
+ * <p>
+ * ANTLR builds the DFA of each decision lazily, while parsing, so the first parses of a process are the slowest. The
+ * generated lexer and parser already share their DFAs across instances, in static fields. This class replaces them
+ * with DFAs it owns, so that they can be filled in advance by parsing a bundled corpus ({@link #warmUp()}), and
+ * dropped when they grow too large.
+ */
+public class ParserCache {
+
+    private static final ParserCache INSTANCE = new ParserCache();
+
+    private static final String WARM_UP_CORPUS = "pt/up/fe/comp2025/parser/WarmUp.jmm";
+
+    private volatile Caches caches;
+
+    private ParserCache() {
+        this.caches = new Caches();
+    }
+
+    public static ParserCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Makes the lexer and the parser use the shared caches.
+     */
+    public void install(JavammLexer lexer, JavammParser parser) {
+        var current = caches;
+
+        lexer.setInterpreter(new LexerATNSimulator(lexer, JavammLexer._ATN, current.lexerDfa,
+                current.lexerContextCache));
+        parser.setInterpreter(new ParserATNSimulator(parser, JavammParser._ATN, current.parserDfa,
+                current.parserContextCache));
+    }
+
+    /**
+     * @return the number of DFA states currently cached, for the lexer and the parser
+     */
+    public int getDfaStates() {
+        var current = caches;
+        return countStates(current.lexerDfa) + countStates(current.parserDfa);
+    }
+
+    /**
+     * Drops every cached DFA state. Parses already running keep using the old caches.
+     */
+    public void clear() {
+        caches = new Caches();
+    }
+
+    /**
+     * Clears the cache if it has more than the given number of DFA states.
+     *
+     * @return true if the cache was cleared
+     */
+    public boolean clearIfLargerThan(int maxStates) {
+        if (maxStates < 0 || getDfaStates() <= maxStates)
+            return false;
+
+        clear();
+        return true;
+    }
+
+    /**
+     * Fills the cache by parsing a bundled corpus that uses every construct of the grammar.
+     */
+    public void warmUp() {
+        var corpus = SpecsIo.getResource(WARM_UP_CORPUS);
+        var result = new JmmParserImpl().parse(corpus, new HashMap<>());
+
+        if (result.getRootNode() == null)
+            throw new RuntimeException("Could not parse warm-up corpus '" + WARM_UP_CORPUS + "': " + result.getReports());
+    }
+
+    private static int countStates(DFA[] dfas) {
+        return Arrays.stream(dfas)
+                .mapToInt(dfa -> dfa.states.size())
+                .sum();
+    }
+
+    private static DFA[] newDfas(ATN atn) {
+        var dfas = new DFA[atn.getNumberOfDecisions()];
+        for (int i = 0; i < dfas.length; i++) {
+            dfas[i] = new DFA(atn.getDecisionState(i), i);
+        }
+
+        return dfas;
+    }
+
+    private static class Caches {
+        private final DFA[] lexerDfa;
+        private final DFA[] parserDfa;
+        private final PredictionContextCache lexerContextCache;
+        private final PredictionContextCache parserContextCache;
+
+        private Caches() {
+            this.lexerDfa = newDfas(JavammLexer._ATN);
+            this.parserDfa = newDfas(JavammParser._ATN);
+            this.lexerContextCache = new PredictionContextCache();
+            this.parserContextCache = new PredictionContextCache();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package pt.up.fe.comp2025.profiling;
+
+/**
+ * Accumulated cost of a compiler stage, over all the times it was executed.
+ */
+public class StageMeasurement {
+
+    private final String name;
+    private final int depth;
+    private int calls;
+    private long wallNanos;
+    private long cpuNanos;
+    private long allocatedBytes;
+
+    public StageMeasurement(String name, int depth) {
+        this.name = name;
+        this.depth = depth;
+        this.calls = 0;
+        this.wallNanos = 0;
+        this.cpuNanos = 0;
+        this.allocatedBytes = 0;
+    }
+
+    void add(long wallNanos, long cpuNanos, long allocatedBytes) {
+        this.calls++;
+        this.wallNanos += wallNanos;
+        this.cpuNanos = cpuNanos < 0 ? -1 : this.cpuNanos + cpuNanos;
+        this.allocatedBytes = allocatedBytes < 0 ? -1 : this.allocatedBytes + allocatedBytes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return how many stages enclose this one
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return CPU time of the executing thread, or -1 if not supported by the JVM
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /**
+     * @return bytes allocated by the executing thread, or -1 if not supported by the JVM
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
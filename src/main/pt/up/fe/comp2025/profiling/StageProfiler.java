@@ -0,0 +1,163 @@
+package pt.up.fe.comp2025.profiling;
+
+import com.google.gson.GsonBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Records wall time, CPU time and allocated bytes of the compiler stages.
+ * <p>
+ * Stages can be nested, e.g. the symbol table inside the semantic analysis stage. A stage is identified by its name
+ * and the names of the stages that enclose it, so executing the same stage several times in the same place
+ * accumulates its measurements, and the same stage in another place is measured apart, with its own depth. When
+ * disabled (the default), stages are executed without being measured.
+ * <p>
+ * The compiler stages are given the profiler to use, e.g. {@link pt.up.fe.comp2025.analysis.JmmAnalysisImpl}.
+ */
+public class StageProfiler {
+
+    private final ThreadMXBean threadBean;
+    private final Map<List<String>, StageMeasurement> measurements;
+    private final ThreadLocal<List<String>> enclosing;
+    private volatile boolean enabled;
+
+    public StageProfiler() {
+        this.threadBean = ManagementFactory.getThreadMXBean();
+        this.measurements = new LinkedHashMap<>();
+        this.enclosing = ThreadLocal.withInitial(ArrayList::new);
+        this.enabled = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public <T> T measure(String stage, Supplier<T> action) {
+        if (!enabled)
+            return action.get();
+
+        // Register the stage before running it, so that enclosing stages come first
+        var stages = enclosing.get();
+        stages.add(stage);
+        var measurement = getMeasurement(stages);
+
+        long cpuStart = getCpuTime();
+        long allocStart = getAllocatedBytes();
+        long wallStart = System.nanoTime();
+
+        try {
+            return action.get();
+        } finally {
+            long wall = System.nanoTime() - wallStart;
+            long cpu = cpuStart < 0 ? -1 : getCpuTime() - cpuStart;
+            long alloc = allocStart < 0 ? -1 : getAllocatedBytes() - allocStart;
+
+            stages.remove(stages.size() - 1);
+            synchronized (measurements) {
+                measurement.add(wall, cpu, alloc);
+            }
+        }
+    }
+
+    public void measure(String stage, Runnable action) {
+        measure(stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Adds a cost measured by the caller as a stage nested in the stages the current thread is measuring, e.g. the
+     * sum of the handlers of an analysis pass, which run interleaved with the other passes.
+     *
+     * @param cpuNanos       -1 if not known
+     * @param allocatedBytes -1 if not known
+     */
+    public void record(String stage, long wallNanos, long cpuNanos, long allocatedBytes) {
+        if (!enabled)
+            return;
+
+        var stages = enclosing.get();
+        stages.add(stage);
+        var measurement = getMeasurement(stages);
+        stages.remove(stages.size() - 1);
+
+        synchronized (measurements) {
+            measurement.add(wallNanos, cpuNanos, allocatedBytes);
+        }
+    }
+
+    public List<StageMeasurement> getMeasurements() {
+        synchronized (measurements) {
+            return new ArrayList<>(measurements.values());
+        }
+    }
+
+    public void clear() {
+        synchronized (measurements) {
+            measurements.clear();
+        }
+    }
+
+    /**
+     * @return the measurements as a text table, nested stages indented under their enclosing stage
+     */
+    public String toTable() {
+        var table = new StringBuilder();
+        table.append(String.format("%-40s %6s %12s %12s %14s%n", "Stage", "Calls", "Wall (ms)", "CPU (ms)", "Alloc (KB)"));
+
+        for (var measurement : getMeasurements()) {
+            var name = "  ".repeat(measurement.getDepth()) + measurement.getName();
+            table.append(String.format("%-40s %6d %12.3f %12s %14s%n",
+                    name,
+                    measurement.getCalls(),
+                    measurement.getWallNanos() / 1e6,
+                    measurement.getCpuNanos() < 0 ? "n/a" : String.format("%.3f", measurement.getCpuNanos() / 1e6),
+                    measurement.getAllocatedBytes() < 0 ? "n/a" : Long.toString(measurement.getAllocatedBytes() / 1024)));
+        }
+
+        return table.toString();
+    }
+
+    public String toJson() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(getMeasurements());
+    }
+
+    // The stage is the last of the list, after the stages that enclose it
+    private StageMeasurement getMeasurement(List<String> stages) {
+        synchronized (measurements) {
+            return measurements.computeIfAbsent(List.copyOf(stages),
+                    path -> new StageMeasurement(path.get(path.size() - 1), path.size() - 1));
+        }
+    }
+
+    /**
+     * @return CPU time of the current thread, or -1 if not supported by the JVM
+     */
+    public long getCpuTime() {
+        if (!threadBean.isCurrentThreadCpuTimeSupported())
+            return -1;
+
+        return threadBean.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, or -1 if not supported by the JVM
+     */
+    public long getAllocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported())
+            return sunBean.getCurrentThreadAllocatedBytes();
+
+        return -1;
+    }
+}
@@ -0,0 +1,56 @@
+package pt.up.fe.comp2025.symboltable;
+
+import java.util.List;
+
+/**
+ * A class that is not compiled by jmm, with the methods that jmm programs can call.
+ */
+public class ExternalClass {
+
+    private final String name;
+    private final String superName;
+    private final List<ExternalMethod> methods;
+
+    /**
+     * @param name      binary name, e.g. "foo.bar.A"
+     * @param superName binary name of the superclass
+     */
+    public ExternalClass(String name, String superName, List<ExternalMethod> methods) {
+        this.name = name;
+        this.superName = superName;
+        this.methods = methods;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the last part of the name, which jmm programs use after importing the class
+     */
+    public String getSimpleName() {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<ExternalMethod> getMethods() {
+        return methods;
+    }
+
+    /**
+     * @return the methods with the given name, in declaration order
+     */
+    public List<ExternalMethod> getMethods(String methodName) {
+        return methods.stream()
+                .filter(method -> method.getName().equals(methodName))
+                .toList();
+    }
+
+    @Override
+    public String toString() {
+        return name + " extends " + superName + " " + methods;
+    }
+}
@@ -0,0 +1,37 @@
+package pt.up.fe.comp2025.symboltable;
+
+/**
+ * A method of a class that is not compiled by jmm, e.g. of the runtime library, with its JVM descriptor.
+ */
+public class ExternalMethod {
+
+    private final String name;
+    private final String descriptor;
+    private final boolean isStatic;
+
+    /**
+     * @param descriptor JVM method descriptor, e.g. "(I)V"
+     */
+    public ExternalMethod(String name, String descriptor, boolean isStatic) {
+        this.name = name;
+        this.descriptor = descriptor;
+        this.isStatic = isStatic;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    @Override
+    public String toString() {
+        return (isStatic ? "static " : "") + name + descriptor;
+    }
+}
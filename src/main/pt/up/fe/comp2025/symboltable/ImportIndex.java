@@ -0,0 +1,370 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.ast.TypeUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Signatures of the classes in the classpath of the compiled program (option "-p"), so that calls to imported classes
+ * can be checked and compiled with the exact types of the methods.
+ * <p>
+ * Each jar or folder of the classpath is scanned once: jars built with {@link SignatureMetadata#RESOURCE} are read
+ * directly, other jars and folders through reflection, with the whole classpath available to their classes. The
+ * signatures of each entry are cached in memory and on disk, both checked against a hash of the path, size and
+ * modification time of its files, so only entries that changed are scanned again. The disk cache keeps the
+ * {@value #MAX_CACHE_FILES} entries used last. Classes that cannot be loaded (e.g. their superclass is missing) are
+ * left out of the index, and their entry is not cached.
+ */
+public class ImportIndex {
+
+    private static final ImportIndex EMPTY = new ImportIndex(List.of());
+
+    private static final Path DEFAULT_CACHE_DIR = Path.of(System.getProperty("java.io.tmpdir"), "jmm-import-index");
+
+    private static final int MAX_CACHE_FILES = 64;
+
+    // Signatures of the entries read by this process, by path, with the key of the files they were read from
+    private static final Map<Path, LoadedEntry> LOADED = new ConcurrentHashMap<>();
+
+    // Methods every class inherits from Object, which are not part of the signatures
+    private static final Set<String> OBJECT_METHODS = Arrays.stream(Object.class.getMethods())
+            .map(java.lang.reflect.Method::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final Map<String, ExternalClass> classes;
+
+    public ImportIndex(List<ExternalClass> classes) {
+        this.classes = new HashMap<>();
+
+        // The first entry of the classpath with a class wins, as in the JVM
+        for (var aClass : classes)
+            this.classes.putIfAbsent(aClass.getName(), aClass);
+    }
+
+    /**
+     * @return an index without classes, where every import is unknown
+     */
+    public static ImportIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the index of the classpath given in the config, empty if there is none
+     */
+    public static ImportIndex fromConfig(Map<String, String> config) {
+        var classpath = CompilerConfig.getClasspath(config);
+        if (classpath.isEmpty())
+            return EMPTY;
+
+        return load(classpath, DEFAULT_CACHE_DIR);
+    }
+
+    /**
+     * @param cacheDir folder where the signatures of each classpath entry are kept between runs
+     */
+    public static ImportIndex load(List<Path> classpath, Path cacheDir) {
+        for (var entry : classpath) {
+            if (!Files.exists(entry))
+                throw new RuntimeException("Classpath entry '" + entry + "' does not exist");
+        }
+
+        var classes = new ArrayList<ExternalClass>();
+        for (var entry : classpath)
+            classes.addAll(loadEntry(entry, classpath, cacheDir));
+
+        return new ImportIndex(classes);
+    }
+
+    private static List<ExternalClass> loadEntry(Path entry, List<Path> classpath, Path cacheDir) {
+        // Entries already read by this process are used while their files do not change
+        var path = entry.toAbsolutePath().normalize();
+        var key = getKey(path);
+        var loaded = LOADED.get(path);
+        if (loaded != null && loaded.key().equals(key))
+            return loaded.classes();
+
+        var cacheFile = cacheDir.resolve(key + ".txt");
+
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                var classes = SignatureMetadata.read(new StringReader(Files.readString(cacheFile)));
+                LOADED.put(path, new LoadedEntry(key, classes));
+                markUsed(cacheFile);
+
+                return classes;
+            } catch (IOException | RuntimeException e) {
+                // Scanned again below, and the cache file replaced
+            }
+        }
+
+        var metadata = Files.isDirectory(entry) ? Optional.<List<ExternalClass>>empty() : SignatureMetadata.readJar(entry);
+        if (metadata.isPresent()) {
+            writeCache(metadata.get(), cacheFile);
+            LOADED.put(path, new LoadedEntry(key, metadata.get()));
+
+            return metadata.get();
+        }
+
+        var skipped = new ArrayList<String>();
+        var classes = SignatureMetadata.fromClasses(entry, classpath, skipped);
+
+        // Classes that could not be loaded may load with another classpath, so the entry is not cached
+        if (!skipped.isEmpty())
+            return classes;
+
+        writeCache(classes, cacheFile);
+        LOADED.put(path, new LoadedEntry(key, classes));
+
+        return classes;
+    }
+
+    // Written to a temporary file and moved, so that compilers running at the same time never read part of a file
+    private static void writeCache(List<ExternalClass> classes, Path cacheFile) {
+        Path tempFile = null;
+
+        try {
+            Files.createDirectories(cacheFile.getParent());
+
+            tempFile = Files.createTempFile(cacheFile.getParent(), "index", ".tmp");
+            Files.writeString(tempFile, SignatureMetadata.toText(classes));
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            pruneCache(cacheFile.getParent());
+        } catch (IOException e) {
+            // The cache only saves time, the index is still correct without it
+        } finally {
+            // Only left when the write or the move failed
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    // Nothing else to do
+                }
+            }
+        }
+    }
+
+    // The modification time of cache files is the last time they were used, for pruneCache
+    private static void markUsed(Path cacheFile) {
+        try {
+            Files.setLastModifiedTime(cacheFile, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            // Only makes the file more likely to be pruned
+        }
+    }
+
+    /**
+     * Deletes the cache files used least recently beyond {@link #MAX_CACHE_FILES}, e.g. those of entries that were
+     * rebuilt since.
+     */
+    private static void pruneCache(Path cacheDir) throws IOException {
+        List<Path> cacheFiles;
+        try (var files = Files.list(cacheDir)) {
+            cacheFiles = files.filter(file -> file.toString().endsWith(".txt")).toList();
+        }
+
+        if (cacheFiles.size() <= MAX_CACHE_FILES)
+            return;
+
+        // Read once, since other compilers may change them while sorting
+        var lastUsed = new HashMap<Path, FileTime>();
+        for (var file : cacheFiles) {
+            try {
+                lastUsed.put(file, Files.getLastModifiedTime(file));
+            } catch (IOException e) {
+                // Deleted by another compiler
+            }
+        }
+
+        var oldestFirst = lastUsed.keySet().stream()
+                .sorted(Comparator.comparing(lastUsed::get))
+                .toList();
+
+        for (var file : oldestFirst.subList(0, Math.max(0, oldestFirst.size() - MAX_CACHE_FILES)))
+            Files.deleteIfExists(file);
+    }
+
+    /**
+     * @return a hash of the path of the entry and of the name, size and modification time of its files
+     */
+    private static String getKey(Path entry) {
+        var stamp = new StringBuilder(entry.toAbsolutePath().normalize().toString()).append('\n');
+
+        try {
+            if (Files.isDirectory(entry)) {
+                try (var files = Files.walk(entry)) {
+                    var classFiles = files.filter(file -> file.toString().endsWith(".class")).sorted().toList();
+                    for (var file : classFiles)
+                        appendStamp(stamp, entry.relativize(file), file);
+                }
+            } else {
+                appendStamp(stamp, entry.getFileName(), entry);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read classpath entry '" + entry + "'", e);
+        }
+
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(stamp.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void appendStamp(StringBuilder stamp, Path name, Path file) throws IOException {
+        stamp.append(name).append(' ')
+                .append(Files.size(file)).append(' ')
+                .append(Files.getLastModifiedTime(file).toMillis()).append('\n');
+    }
+
+    public boolean isEmpty() {
+        return classes.isEmpty();
+    }
+
+    /**
+     * @param name binary name, e.g. "foo.bar.A"
+     */
+    public Optional<ExternalClass> getClass(String name) {
+        return Optional.ofNullable(classes.get(name));
+    }
+
+    /**
+     * @param simpleName name of an imported class, as used in the program
+     * @param imports    imports of the program, e.g. "foo.bar.A"
+     * @return the imported class with that name
+     */
+    public Optional<ExternalClass> resolveImport(String simpleName, List<String> imports) {
+        for (var importPath : imports) {
+            if (importPath.equals(simpleName) || importPath.endsWith("." + simpleName))
+                return getClass(importPath);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * @return the methods with the name declared by the class or by its superclasses in the index, nearest first
+     */
+    public List<ExternalMethod> getMethods(ExternalClass aClass, String methodName) {
+        var methods = new ArrayList<ExternalMethod>();
+
+        for (var current = Optional.of(aClass); current.isPresent();
+             current = getClass(current.get().getSuperName()))
+            methods.addAll(current.get().getMethods(methodName));
+
+        return methods;
+    }
+
+    /**
+     * @return the method with the name and the parameters of the JVM descriptor, e.g. "(I)", declared by the class or
+     * by its superclasses in the index
+     */
+    public Optional<ExternalMethod> findMethod(String className, String methodName, String parametersDescriptor) {
+        return getClass(className).stream()
+                .flatMap(aClass -> getMethods(aClass, methodName).stream())
+                .filter(method -> method.getDescriptor().startsWith(parametersDescriptor))
+                .findFirst();
+    }
+
+    /**
+     * @return true if every method of the class is known, i.e. all its superclasses up to Object are in the index and
+     * the name is not one of the methods of Object
+     */
+    public boolean knowsAllMethods(ExternalClass aClass, String methodName) {
+        if (OBJECT_METHODS.contains(methodName))
+            return false;
+
+        var current = aClass;
+        while (!current.getSuperName().equals("java.lang.Object")) {
+            var superClass = getClass(current.getSuperName());
+            if (superClass.isEmpty())
+                return false;
+
+            current = superClass.get();
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the jmm types of the parameters of the method, or empty if a type has no jmm equivalent (e.g. long)
+     */
+    public static Optional<List<Type>> getParameterTypes(ExternalMethod method) {
+        var descriptor = method.getDescriptor();
+        var types = new ArrayList<Type>();
+
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            int end = getTypeEnd(descriptor, i);
+            var type = toType(descriptor.substring(i, end));
+            if (type.isEmpty())
+                return Optional.empty();
+
+            types.add(type.get());
+            i = end;
+        }
+
+        return Optional.of(types);
+    }
+
+    /**
+     * @return the jmm return type of the method, or empty if it has no jmm equivalent
+     */
+    public static Optional<Type> getReturnType(ExternalMethod method) {
+        var descriptor = method.getDescriptor();
+        return toType(descriptor.substring(descriptor.indexOf(')') + 1));
+    }
+
+    /**
+     * @return the jmm type of a JVM field descriptor: int, boolean, void, String, classes by their simple name, and
+     * arrays of those
+     */
+    public static Optional<Type> toType(String descriptor) {
+        boolean isArray = descriptor.startsWith("[");
+        var element = isArray ? descriptor.substring(1) : descriptor;
+
+        String name = switch (element.charAt(0)) {
+            case 'I' -> "int";
+            case 'Z' -> "boolean";
+            case 'V' -> isArray ? null : "void";
+            case 'L' -> {
+                var className = element.substring(1, element.length() - 1);
+                yield className.equals("java/lang/String") ? "String" : className.substring(className.lastIndexOf('/') + 1);
+            }
+            default -> null;
+        };
+
+        if (name == null)
+            return Optional.empty();
+
+        return Optional.of(isArray ? TypeUtils.newArrayType(name) : TypeUtils.newType(name));
+    }
+
+    // End of the type that starts at the position of the descriptor
+    private static int getTypeEnd(String descriptor, int start) {
+        int i = start;
+        while (descriptor.charAt(i) == '[')
+            i++;
+
+        if (descriptor.charAt(i) == 'L')
+            return descriptor.indexOf(';', i) + 1;
+
+        return i + 1;
+    }
+
+    private record LoadedEntry(String key, List<ExternalClass> classes) {
+    }
+}
@@ -20,6 +20,16 @@ public class JmmSymbolTable extends AJmmSymbolTable {
     private List<String> imports;
     private String superClassName;
 
+    // Indices of the lists above by name, the first declaration of each name wins
+    private final Map<String, Map<String, ScopedSymbol>> localIndex;
+    private final Map<String, Map<String, ScopedSymbol>> paramIndex;
+    private final Map<String, ScopedSymbol> fieldIndex;
+    private final Map<String, ScopedSymbol> importIndex;
+
+    // Methods by name and parameter types, and by name alone
+    private final Map<String, MethodSignature> signatures;
+    private final Map<String, List<MethodSignature>> signaturesByName;
+
 
     public JmmSymbolTable(String className,
                           List<String> methods,
@@ -38,6 +48,57 @@ public class JmmSymbolTable extends AJmmSymbolTable {
         this.fields = fields;
         this.imports = imports;
         this.superClassName = superClassName;
+
+        this.localIndex = indexByMethod(locals, ScopedSymbol.Scope.LOCAL);
+        this.paramIndex = indexByMethod(params, ScopedSymbol.Scope.PARAM);
+        this.fieldIndex = index(fields, ScopedSymbol.Scope.FIELD);
+        this.importIndex = indexImports(imports);
+
+        this.signatures = new HashMap<>();
+        this.signaturesByName = new HashMap<>();
+        for (var method : methods) {
+            var signature = buildSignature(method, params.getOrDefault(method, List.of()), returnTypes.get(method));
+            signatures.putIfAbsent(signature.getKey(), signature);
+            signaturesByName.computeIfAbsent(method, name -> new ArrayList<>()).add(signature);
+        }
+    }
+
+    /**
+     * @return the method with exactly the given name and parameter types
+     */
+    public Optional<MethodSignature> getSignature(String name, List<Type> parameterTypes) {
+        return Optional.ofNullable(signatures.get(MethodSignature.getKey(name, parameterTypes)));
+    }
+
+    /**
+     * @return the methods with the given name, empty if there are none
+     */
+    public List<MethodSignature> getSignatures(String name) {
+        return signaturesByName.getOrDefault(name, List.of());
+    }
+
+    /**
+     * Finds the declaration a name refers to inside a method: a local variable, then a parameter, then a field, then
+     * an imported class, matched by its simple name.
+     *
+     * @param methodSignature the method where the name is used, or null outside methods
+     */
+    public Optional<ScopedSymbol> lookup(String methodSignature, String name) {
+        if (methodSignature != null) {
+            var local = localIndex.getOrDefault(methodSignature, Map.of()).get(name);
+            if (local != null)
+                return Optional.of(local);
+
+            var param = paramIndex.getOrDefault(methodSignature, Map.of()).get(name);
+            if (param != null)
+                return Optional.of(param);
+        }
+
+        var field = fieldIndex.get(name);
+        if (field != null)
+            return Optional.of(field);
+
+        return Optional.ofNullable(importIndex.get(name));
     }
 
     @Override
@@ -88,5 +149,48 @@ public class JmmSymbolTable extends AJmmSymbolTable {
         return print();
     }
 
+    private static MethodSignature buildSignature(String name, List<Symbol> params, Type returnType) {
+        var parameterTypes = params.stream().map(Symbol::getType).toList();
+
+        // Only the last parameter can be varargs, which is checked by the analysis
+        var varargs = !params.isEmpty() && params.getLast().getType().getOptionalObject("isVarargs")
+                .map(Boolean.TRUE::equals)
+                .orElse(false);
+
+        return new MethodSignature(name, parameterTypes, returnType, varargs);
+    }
+
+    private static Map<String, Map<String, ScopedSymbol>> indexByMethod(Map<String, List<Symbol>> symbols,
+                                                                        ScopedSymbol.Scope scope) {
+        var index = new HashMap<String, Map<String, ScopedSymbol>>();
+        symbols.forEach((method, methodSymbols) -> index.put(method, index(methodSymbols, scope)));
+
+        return index;
+    }
+
+    private static Map<String, ScopedSymbol> index(List<Symbol> symbols, ScopedSymbol.Scope scope) {
+        var index = new HashMap<String, ScopedSymbol>();
+        if (symbols == null)
+            return index;
+
+        for (var symbol : symbols)
+            index.putIfAbsent(symbol.getName(), new ScopedSymbol(symbol.getName(), symbol.getType(), scope));
+
+        return index;
+    }
+
+    // Imports are referred to by the last part of their path
+    private static Map<String, ScopedSymbol> indexImports(List<String> imports) {
+        var index = new HashMap<String, ScopedSymbol>();
+        var importedType = TypeUtils.newType("imported");
+
+        for (var importPath : imports) {
+            var simpleName = importPath.substring(importPath.lastIndexOf('.') + 1);
+            index.putIfAbsent(simpleName, new ScopedSymbol(simpleName, importedType, ScopedSymbol.Scope.IMPORT));
+        }
+
+        return index;
+    }
+
 
 }
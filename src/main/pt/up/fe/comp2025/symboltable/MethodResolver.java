@@ -0,0 +1,99 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2025.ast.TypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Finds the method of the class a call refers to, from the name and the argument types of the call.
+ * <p>
+ * The signature found is kept in the call node, so the analysis and the code generation resolve each call once. The
+ * rules of varargs methods, for their declaration and for their calls, are checked here.
+ */
+public class MethodResolver {
+
+    public static final String SIGNATURE = "signature";
+
+    private final JmmSymbolTable table;
+
+    public MethodResolver(JmmSymbolTable table) {
+        this.table = table;
+    }
+
+    /**
+     * @return the method called, or empty if no method of the class accepts the arguments
+     */
+    public Optional<MethodSignature> resolve(JmmNode methodCallExpr) {
+        var cached = methodCallExpr.getOptionalObject(SIGNATURE);
+        if (cached.isPresent() && cached.get() instanceof MethodSignature signature)
+            return Optional.of(signature);
+
+        var name = methodCallExpr.get("name");
+        var argumentTypes = getArgumentTypes(methodCallExpr);
+
+        // Exact match first, then any method that accepts the arguments, e.g. varargs
+        var signature = table.getSignature(name, argumentTypes)
+                .or(() -> table.getSignatures(name).stream()
+                        .filter(candidate -> candidate.checkArguments(argumentTypes) == null)
+                        .findFirst());
+
+        signature.ifPresent(found -> methodCallExpr.putObject(SIGNATURE, found));
+
+        return signature;
+    }
+
+    /**
+     * @return why the call does not match any method with its name
+     */
+    public String getMismatch(JmmNode methodCallExpr) {
+        var name = methodCallExpr.get("name");
+        var argumentTypes = getArgumentTypes(methodCallExpr);
+        var candidates = table.getSignatures(name);
+
+        if (candidates.size() == 1)
+            return candidates.getFirst().checkArguments(argumentTypes);
+
+        return String.format("No method '%s' accepts arguments of types %s.", name, argumentTypes);
+    }
+
+    /**
+     * @return null if the varargs of the method are declared correctly, only in its last parameter, otherwise the
+     * reason why not
+     */
+    public String checkVarargsDeclaration(String methodName) {
+        var parameters = table.getParameters(methodName);
+
+        for (int i = 0; i < parameters.size() - 1; i++) {
+            var isVarargs = parameters.get(i).getType().getOptionalObject("isVarargs")
+                    .map(Boolean.TRUE::equals)
+                    .orElse(false);
+
+            if (isVarargs)
+                return String.format("Found varargs before the last parameter of the method '%s'.", methodName);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true if the call passes a variable number of arguments to a varargs method
+     */
+    public boolean packsVarargs(JmmNode methodCallExpr) {
+        return resolve(methodCallExpr)
+                .map(signature -> signature.packsVarargs(getArgumentTypes(methodCallExpr)))
+                .orElse(false);
+    }
+
+    // The first child is the object of the call
+    private static List<Type> getArgumentTypes(JmmNode methodCallExpr) {
+        var types = new ArrayList<Type>(methodCallExpr.getNumChildren() - 1);
+        for (int i = 1; i < methodCallExpr.getNumChildren(); i++)
+            types.add(TypeUtils.getType(methodCallExpr.getChild(i)));
+
+        return types;
+    }
+}
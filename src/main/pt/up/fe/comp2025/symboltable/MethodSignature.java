@@ -0,0 +1,109 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Name, parameter types and return type of a method of the class.
+ * <p>
+ * A varargs method has an array as its last parameter type, and also accepts any number (including none) of
+ * arguments of the element type in its place.
+ */
+public class MethodSignature {
+
+    private final String name;
+    private final List<Type> parameterTypes;
+    private final Type returnType;
+    private final boolean varargs;
+    private final String key;
+
+    public MethodSignature(String name, List<Type> parameterTypes, Type returnType, boolean varargs) {
+        this.name = name;
+        this.parameterTypes = parameterTypes;
+        this.returnType = returnType;
+        this.varargs = varargs;
+        this.key = getKey(name, parameterTypes);
+    }
+
+    /**
+     * @return the key of a method in the signature index: its name and the types of its parameters, e.g. "foo(int,int[])"
+     */
+    public static String getKey(String name, List<Type> parameterTypes) {
+        return parameterTypes.stream()
+                .map(type -> type.getName() + (type.isArray() ? "[]" : ""))
+                .collect(Collectors.joining(",", name + "(", ")"));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Type> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public int getArity() {
+        return parameterTypes.size();
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public boolean isVarargs() {
+        return varargs;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return true if the arguments are passed as a variable number of elements, which must be put in an array
+     */
+    public boolean packsVarargs(List<Type> argumentTypes) {
+        if (!varargs)
+            return false;
+
+        // The array itself
+        return !(argumentTypes.size() == getArity() && argumentTypes.getLast().equals(parameterTypes.getLast()));
+    }
+
+    /**
+     * @return null if a call with arguments of the given types matches this method, otherwise the reason why not
+     */
+    public String checkArguments(List<Type> argumentTypes) {
+        int fixedParameters = varargs ? getArity() - 1 : getArity();
+
+        if (argumentTypes.size() < fixedParameters || (!varargs && argumentTypes.size() > getArity()))
+            return String.format("Expected method to receive '%d' arguments, but got '%d'",
+                    fixedParameters, argumentTypes.size());
+
+        for (int i = 0; i < fixedParameters; i++) {
+            if (!parameterTypes.get(i).equals(argumentTypes.get(i)))
+                return String.format("Incompatible argument type. " +
+                                "Method '%s': Parameter '%d' expects '%s' but received '%s'.",
+                        name, i, parameterTypes.get(i), argumentTypes.get(i));
+        }
+
+        if (!varargs || !packsVarargs(argumentTypes))
+            return null;
+
+        var elementType = new Type(parameterTypes.getLast().getName(), false);
+        for (int i = fixedParameters; i < argumentTypes.size(); i++) {
+            if (!elementType.equals(argumentTypes.get(i)))
+                return String.format("Varargs are limited to type '%s'." +
+                                "Method '%s': Parameter '%d' expects '%s' but received '%s'.",
+                        elementType.getName(), name, i, elementType.getName(), argumentTypes.get(i));
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return key + (varargs ? " varargs" : "") + " : " + returnType;
+    }
+}
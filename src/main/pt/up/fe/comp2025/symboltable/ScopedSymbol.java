@@ -0,0 +1,46 @@
+package pt.up.fe.comp2025.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Type;
+
+/**
+ * A name found by {@link JmmSymbolTable#lookup}, with the scope where it is declared.
+ */
+public class ScopedSymbol {
+
+    public enum Scope {
+        LOCAL,
+        PARAM,
+        FIELD,
+        IMPORT
+    }
+
+    private final String name;
+    private final Type type;
+    private final Scope scope;
+
+    public ScopedSymbol(String name, Type type, Scope scope) {
+        this.name = name;
+        this.type = type;
+        this.scope = scope;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the declared type, or the type "imported" for imported classes
+     */
+    public Type getType() {
+        return type;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public String toString() {
+        return "ScopedSymbol [name=" + name + ", type=" + type + ", scope=" + scope + "]";
+    }
+}
@@ -0,0 +1,226 @@
+package pt.up.fe.comp2025.symboltable;
+
+import java.io.*;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+/**
+ * Method signatures of the classes of a library, stored in its jar so that the compiler can resolve imports of the
+ * library without loading its classes.
+ * <p>
+ * The metadata is a text file with a line for each class and for each method that jmm programs can call (not
+ * private), sorted by name:
+ * <pre>
+ * class io java.lang.Object
+ * method io static println (I)V
+ * method Quicksort virtual sort ([I)Z
+ * </pre>
+ */
+public class SignatureMetadata {
+
+    /**
+     * Path of the metadata inside the jar of the library.
+     */
+    public static final String RESOURCE = "META-INF/jmm/signatures.txt";
+
+    private static final String HEADER = "# jmm signatures 1";
+
+    /**
+     * Writes the metadata of the classes in a folder, used by the build of the runtime library.
+     * <p>
+     * Arguments: the folder with the class files, and the metadata file to write.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2)
+            throw new RuntimeException("Expected arguments '<classes folder> <metadata file>', got " + args.length);
+
+        write(fromClasses(Path.of(args[0])), Path.of(args[1]));
+    }
+
+    /**
+     * Reads the signatures of the class files in the folder or jar through reflection, without initializing the
+     * classes.
+     */
+    public static List<ExternalClass> fromClasses(Path classesDir) {
+        var skipped = new ArrayList<String>();
+        var classes = fromClasses(classesDir, List.of(classesDir), skipped);
+
+        if (!skipped.isEmpty())
+            throw new RuntimeException("Could not load the classes " + skipped + " of '" + classesDir + "'");
+
+        return classes;
+    }
+
+    /**
+     * Reads the signatures of the class files in the folder or jar through reflection, without initializing the
+     * classes. The classes they use (e.g. their superclass) are loaded from the classpath, and the classes that cannot
+     * be loaded are skipped.
+     *
+     * @param classpath entries where the classes used by the classes of the folder or jar are found
+     * @param skipped   receives the names of the classes that could not be loaded
+     */
+    public static List<ExternalClass> fromClasses(Path classesDir, List<Path> classpath, List<String> skipped) {
+        List<String> classNames;
+        try {
+            classNames = listClasses(classesDir).stream()
+                    .map(file -> file.substring(0, file.length() - ".class".length()).replace('/', '.'))
+                    .filter(name -> !name.contains("$") && !name.endsWith("module-info"))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not list the classes of '" + classesDir + "'", e);
+        }
+
+        // The folder or jar first, so that its classes are the ones loaded
+        var urls = new ArrayList<URL>();
+        urls.add(toUrl(classesDir));
+        for (var entry : classpath) {
+            if (!entry.equals(classesDir))
+                urls.add(toUrl(entry));
+        }
+
+        try (var loader = new URLClassLoader(urls.toArray(URL[]::new), ClassLoader.getPlatformClassLoader())) {
+            var classes = new ArrayList<ExternalClass>();
+            for (var className : classNames) {
+                try {
+                    classes.add(fromClass(Class.forName(className, false, loader)));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    // E.g. a superclass that is not in the classpath
+                    skipped.add(className);
+                }
+            }
+
+            return classes;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not close the class loader of '" + classesDir + "'", e);
+        }
+    }
+
+    // Paths of the class files, relative to the folder or the root of the jar, with '/' as separator
+    private static List<String> listClasses(Path classpathEntry) throws IOException {
+        if (!Files.isDirectory(classpathEntry)) {
+            try (var jarFile = new JarFile(classpathEntry.toFile())) {
+                return jarFile.stream()
+                        .map(JarEntry::getName)
+                        .filter(name -> name.endsWith(".class") && !name.startsWith("META-INF/"))
+                        .toList();
+            }
+        }
+
+        try (var files = Files.walk(classpathEntry)) {
+            return files
+                    .filter(file -> file.toString().endsWith(".class"))
+                    .map(file -> classpathEntry.relativize(file).toString().replace(File.separatorChar, '/'))
+                    .toList();
+        }
+    }
+
+    private static ExternalClass fromClass(Class<?> aClass) {
+        var methods = Arrays.stream(aClass.getDeclaredMethods())
+                .filter(method -> !Modifier.isPrivate(method.getModifiers()) && !method.isSynthetic())
+                .map(method -> new ExternalMethod(method.getName(),
+                        MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+                                .toMethodDescriptorString(),
+                        Modifier.isStatic(method.getModifiers())))
+                .sorted(Comparator.comparing(ExternalMethod::getName).thenComparing(ExternalMethod::getDescriptor))
+                .toList();
+
+        var superClass = aClass.getSuperclass();
+
+        return new ExternalClass(aClass.getName(), superClass == null ? "java.lang.Object" : superClass.getName(),
+                methods);
+    }
+
+    public static void write(List<ExternalClass> classes, Path file) {
+        try {
+            if (file.getParent() != null)
+                Files.createDirectories(file.getParent());
+
+            Files.writeString(file, toText(classes));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write signature metadata '" + file + "'", e);
+        }
+    }
+
+    public static String toText(List<ExternalClass> classes) {
+        var text = new StringBuilder(HEADER).append('\n');
+
+        for (var aClass : classes) {
+            text.append("class ").append(aClass.getName()).append(' ').append(aClass.getSuperName()).append('\n');
+
+            for (var method : aClass.getMethods())
+                text.append("method ").append(aClass.getName())
+                        .append(method.isStatic() ? " static " : " virtual ")
+                        .append(method.getName()).append(' ').append(method.getDescriptor()).append('\n');
+        }
+
+        return text.toString();
+    }
+
+    public static List<ExternalClass> read(Reader reader) {
+        var supers = new LinkedHashMap<String, String>();
+        var methods = new HashMap<String, List<ExternalMethod>>();
+
+        try (var lines = new BufferedReader(reader)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#"))
+                    continue;
+
+                var tokens = line.strip().split(" ");
+                if (tokens[0].equals("class") && tokens.length == 3) {
+                    supers.put(tokens[1], tokens[2]);
+                } else if (tokens[0].equals("method") && tokens.length == 5 && supers.containsKey(tokens[1])) {
+                    methods.computeIfAbsent(tokens[1], name -> new ArrayList<>())
+                            .add(new ExternalMethod(tokens[3], tokens[4], tokens[2].equals("static")));
+                } else {
+                    throw new RuntimeException("Invalid signature metadata at line " + lineNumber + ": '" + line + "'");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read signature metadata", e);
+        }
+
+        return supers.entrySet().stream()
+                .map(entry -> new ExternalClass(entry.getKey(), entry.getValue(),
+                        methods.getOrDefault(entry.getKey(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the metadata stored in the jar, or empty if the jar has none
+     */
+    public static Optional<List<ExternalClass>> readJar(Path jar) {
+        try (var jarFile = new JarFile(jar.toFile())) {
+            var entry = jarFile.getJarEntry(RESOURCE);
+            if (entry == null)
+                return Optional.empty();
+
+            try (var reader = new InputStreamReader(jarFile.getInputStream(entry), StandardCharsets.UTF_8)) {
+                return Optional.of(read(reader));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read jar '" + jar + "'", e);
+        }
+    }
+
+    private static URL toUrl(Path folder) {
+        try {
+            return folder.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new RuntimeException("Invalid classpath entry '" + folder + "'", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package pt.up.fe.comp;
+
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compilation results shared by the tests of a JVM, so that a resource compiled by several tests, or by several
+ * assertions of the same test, is only read and compiled once.
+ * <p>
+ * Only resource contents and Jasmin results are kept: they are not changed by the tests, unlike the AST and the OLLIR
+ * classes, which later stages modify. The cache is safe to use from tests running in parallel.
+ */
+public class CompilationCache {
+
+    private static final Map<String, String> RESOURCES = new ConcurrentHashMap<>();
+    private static final Map<List<Object>, JasminResult> JASMIN_RESULTS = new ConcurrentHashMap<>();
+
+    /**
+     * @return the contents of the resource
+     */
+    public static String getResource(String resource) {
+        return RESOURCES.computeIfAbsent(resource, SpecsIo::getResource);
+    }
+
+    /**
+     * @return the Jasmin result of the jmm resource, compiled with the given config
+     */
+    public static JasminResult backend(String resource, Map<String, String> config) {
+        // Configs are compared by contents, independently of the map type
+        var key = List.<Object>of("jmm", resource, new TreeMap<>(config));
+
+        return JASMIN_RESULTS.computeIfAbsent(key, k -> TestUtils.backend(getResource(resource), config));
+    }
+
+    /**
+     * @return the Jasmin result of the jmm resource, compiled with the default config
+     */
+    public static JasminResult backend(String resource) {
+        return backend(resource, Collections.emptyMap());
+    }
+
+    /**
+     * @return the Jasmin result of the OLLIR resource
+     */
+    public static JasminResult backendOllir(String resource) {
+        var key = List.<Object>of("ollir", resource);
+
+        return JASMIN_RESULTS.computeIfAbsent(key,
+                k -> TestUtils.backend(new OllirResult(getResource(resource), Collections.emptyMap())));
+    }
+}
@@ -0,0 +1,271 @@
+package pt.up.fe.comp;
+
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2025.backend.JasminAssembler;
+import pt.up.fe.specs.util.system.ProcessOutputAsString;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the classes generated by the compiler inside the JVM of the tests, instead of launching a new JVM for each one.
+ * <p>
+ * The Jasmin code is assembled in memory by {@link JasminAssembler} and the class is defined by a new class loader, which also loads the runtime
+ * classes of jmm programs (e.g. io) from {@link TestUtils#getLibsClasspath()}. Each run gets its own copy of those
+ * classes and of their static state, and only sees the classes of the Java platform besides them.
+ * <p>
+ * The program runs in a thread of its own, whose System.out, System.err and System.in are replaced by buffers, so that
+ * several programs can run at the same time. A program that does not finish in time is reported as an error; its
+ * thread cannot be stopped and is left running as a daemon.
+ */
+public class JasminRunner {
+
+    // Same limit as JasminResult
+    private static final long TIMEOUT_MS = 5_000;
+
+    // Runtime class that buffers the output of programs
+    private static final String IO_CLASS = "io";
+    private static final String IO_FLUSH_ON_EXIT = "jmm.io.flushOnExit";
+
+    private static final ThreadLocal<OutputStream> STDOUT = new InheritableThreadLocal<>();
+    private static final ThreadLocal<OutputStream> STDERR = new InheritableThreadLocal<>();
+    private static final ThreadLocal<InputStream> STDIN = new InheritableThreadLocal<>();
+
+    /**
+     * Assembles and runs the Jasmin code of the result.
+     *
+     * @return the output of the program, with return value 1 if it threw an exception and -1 if it timed out
+     */
+    public static ProcessOutputAsString run(JasminResult result) {
+        return run(result, Collections.emptyList(), null);
+    }
+
+    /**
+     * Assembles and runs the Jasmin code of the result.
+     *
+     * @param args  arguments of the main method
+     * @param input contents of the standard input, or null
+     * @return the output of the program, with return value 1 if it threw an exception and -1 if it timed out
+     */
+    public static ProcessOutputAsString run(JasminResult result, List<String> args, String input) {
+        var classes = JasminAssembler.assemble(result.getJasminCode());
+        var className = classes.keySet().iterator().next();
+
+        return runMain(classes, className, args, input);
+    }
+
+    /**
+     * Runs the main method of the class, loaded together with the given classes and the runtime classes of jmm.
+     */
+    public static ProcessOutputAsString runMain(Map<String, byte[]> classes, String className, List<String> args,
+                                                String input) {
+        installStreams();
+
+        // The output of io is flushed when main returns, without a shutdown hook that would keep the class loader
+        System.setProperty(IO_FLUSH_ON_EXIT, "false");
+
+        var stdout = new ByteArrayOutputStream();
+        var stderr = new ByteArrayOutputStream();
+        var stdin = new ByteArrayInputStream(input == null ? new byte[0] : input.getBytes());
+        var returnValue = new int[]{0};
+
+        try (var loader = new ProgramClassLoader(classes)) {
+            var thread = new Thread(() -> {
+                STDOUT.set(stdout);
+                STDERR.set(stderr);
+                STDIN.set(stdin);
+
+                returnValue[0] = invokeMain(loader, className, args, stderr);
+            }, "jmm-" + className);
+
+            thread.setDaemon(true);
+            thread.start();
+            thread.join(TIMEOUT_MS);
+
+            if (thread.isAlive()) {
+                stderr.writeBytes(("Timeout: program did not finish in " + TIMEOUT_MS + "ms\n").getBytes());
+                return newOutput(-1, stdout, stderr);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running class '" + className + "'", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not close the class loader of class '" + className + "'", e);
+        }
+
+        return newOutput(returnValue[0], stdout, stderr);
+    }
+
+    private static int invokeMain(ProgramClassLoader loader, String className, List<String> args, OutputStream stderr) {
+        try {
+            var mainClass = Class.forName(className, true, loader);
+            var main = mainClass.getMethod("main", String[].class);
+
+            // Generated classes are not public, which the java launcher accepts
+            main.setAccessible(true);
+            main.invoke(null, (Object) args.toArray(new String[0]));
+
+            return 0;
+        } catch (InvocationTargetException e) {
+            printException(e.getCause(), stderr);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            printException(e, stderr);
+        } finally {
+            flushIo(loader);
+        }
+
+        return 1;
+    }
+
+    /**
+     * The io class of the runtime writes its buffered output when the JVM exits, which programs running here do not
+     * do, so the output is written when main returns, and io does not register its own hook (property
+     * "jmm.io.flushOnExit").
+     */
+    private static void flushIo(ProgramClassLoader loader) {
+        var io = loader.getLoadedClass(IO_CLASS);
+        if (io == null)
+            return;
+
+        try {
+            var flush = io.getDeclaredMethod("flush");
+            flush.setAccessible(true);
+            flush.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Could not flush the output of class '" + IO_CLASS + "'", e);
+        }
+    }
+
+    // Same message as the JVM for an uncaught exception
+    private static void printException(Throwable exception, OutputStream stderr) {
+        var printer = new PrintStream(stderr, true);
+        printer.print("Exception in thread \"main\" ");
+        exception.printStackTrace(printer);
+    }
+
+    private static ProcessOutputAsString newOutput(int returnValue, ByteArrayOutputStream stdout,
+                                                   ByteArrayOutputStream stderr) {
+        var charset = Charset.defaultCharset();
+
+        return new ProcessOutputAsString(returnValue, stdout.toString(charset), stderr.toString(charset));
+    }
+
+    /**
+     * Replaces the standard streams by streams that use the buffers of the current program, or the previous streams
+     * outside programs. Done again if something else replaced them in the meantime.
+     */
+    private static synchronized void installStreams() {
+        if (!(System.out instanceof ProgramPrintStream))
+            System.setOut(new ProgramPrintStream(new ProgramOutputStream(STDOUT, System.out)));
+
+        if (!(System.err instanceof ProgramPrintStream))
+            System.setErr(new ProgramPrintStream(new ProgramOutputStream(STDERR, System.err)));
+
+        if (!(System.in instanceof ProgramInputStream))
+            System.setIn(new ProgramInputStream(System.in));
+    }
+
+    private static class ProgramPrintStream extends PrintStream {
+        private ProgramPrintStream(OutputStream out) {
+            super(out, true);
+        }
+    }
+
+    private static class ProgramOutputStream extends OutputStream {
+        private final ThreadLocal<OutputStream> target;
+        private final OutputStream fallback;
+
+        private ProgramOutputStream(ThreadLocal<OutputStream> target, OutputStream fallback) {
+            this.target = target;
+            this.fallback = fallback;
+        }
+
+        private OutputStream current() {
+            var out = target.get();
+            return out != null ? out : fallback;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            current().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            current().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            current().flush();
+        }
+    }
+
+    private static class ProgramInputStream extends InputStream {
+        private final InputStream fallback;
+
+        private ProgramInputStream(InputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        private InputStream current() {
+            var in = STDIN.get();
+            return in != null ? in : fallback;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return current().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return current().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current().available();
+        }
+    }
+
+    /**
+     * Loads the classes of a program from memory, and the runtime classes of jmm from their folder.
+     */
+    private static class ProgramClassLoader extends URLClassLoader {
+        private final Map<String, byte[]> classes;
+
+        private ProgramClassLoader(Map<String, byte[]> classes) {
+            super(new URL[]{getLibsUrl()}, ClassLoader.getPlatformClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            var bytes = classes.get(name);
+            if (bytes != null)
+                return defineClass(name, bytes, 0, bytes.length);
+
+            return super.findClass(name);
+        }
+
+        private Class<?> getLoadedClass(String name) {
+            return findLoadedClass(name);
+        }
+
+        private static URL getLibsUrl() {
+            try {
+                return new File(TestUtils.getLibsClasspath()).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new RuntimeException("Could not find the runtime classes of jmm", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.report.ReportType;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AllErrorsTest {
+
+    private static final String CODE = """
+            class Foo {
+                public int a(int x) { return x + b; }
+                public int c(int x) { return true + 1; }
+                public int d(int x) { return x + b; }
+                public int e(boolean x) { if (1) { } else { } return 0; }
+            }""";
+
+    @Test
+    public void stopsAtFirstPassByDefault() {
+        var result = TestUtils.analyse(CODE);
+
+        // Only the undeclared variables, found by the first pass
+        assertEquals(2, result.getReports().size());
+    }
+
+    @Test
+    public void allErrors() {
+        var result = TestUtils.analyse(CODE, Map.of("allErrors", "true"));
+
+        var lines = result.getReports().stream()
+                .filter(report -> report.getType() == ReportType.ERROR)
+                .map(report -> report.getLine())
+                .distinct()
+                .toList();
+
+        // Errors of the independent passes in every method, sorted by position
+        assertEquals(List.of(2, 3, 4, 5), lines);
+    }
+
+    @Test
+    public void maxReports() {
+        var result = TestUtils.analyse(CODE, Map.of("allErrors", "true", "maxReports", "2"));
+
+        // The first two reports and a warning with the number of omitted reports
+        assertEquals(3, result.getReports().size());
+        assertEquals(2, result.getReports().get(0).getLine());
+        assertEquals(ReportType.WARNING, result.getReports().get(2).getType());
+        TestUtils.mustFail(result);
+    }
+
+    @Test
+    public void noLimitByDefault() {
+        var code = new StringBuilder("class Foo {\n    public int a(int x) {\n");
+        for (int i = 0; i < 150; i++)
+            code.append("        x = y").append(i).append(";\n");
+        code.append("        return x;\n    }\n}");
+
+        // Without "-e", every undeclared variable is reported
+        var result = TestUtils.analyse(code.toString());
+        assertEquals(150, result.getReports().size());
+        assertTrue(result.getReports().stream().allMatch(report -> report.getType() == ReportType.ERROR));
+
+        // With "-e", 100 reports by default
+        var allErrors = TestUtils.analyse(code.toString(), Map.of("allErrors", "true"));
+        assertEquals(101, allErrors.getReports().size());
+        assertEquals(ReportType.WARNING, allErrors.getReports().get(100).getType());
+    }
+}
@@ -0,0 +1,76 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.analysis.AnalysisPassManager;
+import pt.up.fe.comp2025.analysis.passes.AddType;
+import pt.up.fe.comp2025.analysis.passes.OperatorType;
+import pt.up.fe.comp2025.analysis.passes.Statement;
+import pt.up.fe.comp2025.analysis.passes.UndeclaredVariable;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AnalysisPassManagerTest {
+
+    @Test
+    public void dependenciesRunFirst() {
+        var table = TestUtils.analyse("class Foo { }").getSymbolTable();
+        var manager = new AnalysisPassManager(() -> List.of(new OperatorType(), new UndeclaredVariable(),
+                new AddType(table)));
+
+        assertEquals(List.of(AddType.class, OperatorType.class, UndeclaredVariable.class), manager.getPassOrder());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void missingDependency() {
+        new AnalysisPassManager(() -> List.of(new Statement()));
+    }
+
+    @Test
+    public void stopsAtFirstPassWithErrors() {
+        // AddType reports the undeclared variable, OperatorType would also report the invalid operand
+        var result = TestUtils.analyse("class Foo { public int foo(int a) { return a + b; } }");
+
+        TestUtils.mustFail(result);
+        assertEquals(1, result.getReports().size());
+    }
+
+    @Test
+    public void methodsInParallel() {
+        // Enough methods to be analyzed in parallel, the reports must still follow the source
+        var code = new StringBuilder("class Foo {\n");
+        for (int i = 0; i < 16; i++)
+            code.append("public int m").append(i).append("(int a) { return a + b").append(i).append("; }\n");
+        code.append("}");
+
+        var result = TestUtils.analyse(code.toString());
+
+        TestUtils.mustFail(result);
+        assertEquals(16, result.getReports().size());
+
+        for (int i = 0; i < 16; i++) {
+            var report = result.getReports().get(i);
+            assertEquals(i + 2, report.getLine());
+            assertTrue(report.getMessage(), report.getMessage().contains("b" + i));
+        }
+    }
+
+    @Test
+    public void currentMethodPerMethod() {
+        // Only main cannot access the fields
+        var result = TestUtils.analyse("""
+                class Foo {
+                    int f;
+                    public int a() { return f; }
+                    public int b() { return f; }
+                    public static void main(String[] args) { f = 1; }
+                    public int c() { return f; }
+                }""");
+
+        TestUtils.mustFail(result);
+        assertEquals(1, result.getReports().size());
+        assertEquals(5, result.getReports().get(0).getLine());
+    }
+}
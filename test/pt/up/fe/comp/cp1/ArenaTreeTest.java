@@ -0,0 +1,133 @@
+package pt.up.fe.comp.cp1;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.comp2025.ast.ArenaNode;
+import pt.up.fe.comp2025.ast.ArenaTree;
+import pt.up.fe.comp2025.parser.JmmAstBuilder;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ArenaTreeTest {
+
+    @Test
+    public void sameTreeAsNodes() {
+        int compared = 0;
+
+        for (var file : SpecsIo.getFilesRecursive(new File("test"), "jmm")) {
+            var lexer = new JavammLexer(new ANTLRInputStream(SpecsIo.read(file)));
+            var parser = new JavammParser(new CommonTokenStream(lexer));
+            lexer.removeErrorListeners();
+            parser.removeErrorListeners();
+            parser.addErrorListener(new BaseErrorListener());
+
+            var tree = parser.program();
+            if (parser.getNumberOfSyntaxErrors() > 0)
+                continue;
+
+            var root = JmmAstBuilder.build(tree, true);
+            assertTrue(root instanceof ArenaNode);
+            assertNull(root.getParent());
+
+            assertSameTree(file.getName(), JmmAstBuilder.build(tree, false), root);
+            compared++;
+        }
+
+        assertTrue(compared > 0);
+    }
+
+    @Test
+    public void sameCodeWithOptimizations() {
+        // Constant folding and propagation replace nodes of the tree
+        var compact = Map.of(ConfigOptions.getOptimize(), "true", ConfigOptions.getCompactAst(), "true");
+        var nodes = Map.of(ConfigOptions.getOptimize(), "true");
+
+        for (var file : SpecsIo.getFilesRecursive(new File("test/pt/up/fe/comp/cp2/optimizations"), "jmm")) {
+            var code = SpecsIo.read(file);
+
+            var expected = TestUtils.backend(code, nodes);
+            var actual = TestUtils.backend(code, compact);
+            TestUtils.noErrors(actual);
+
+            assertEquals(file.getName(), expected.getJasminCode(), actual.getJasminCode());
+        }
+    }
+
+    @Test
+    public void changes() {
+        var arena = new ArenaTree();
+        var root = arena.newNode(List.of("BinaryExpr", "Expr"));
+        var left = arena.newNode(List.of("IntegerLiteral", "Expr"));
+        var right = arena.newNode(List.of("IntegerLiteral", "Expr"));
+        root.put("op", "+");
+        left.put("value", "1");
+        right.put("value", "1");
+        root.add(left);
+        root.add(right);
+        arena.finish();
+
+        // Equal strings are stored once
+        assertSame(left.get("value"), right.get("value"));
+        assertEquals(List.of(left, right), root.getChildren());
+        assertSame(root, right.getParent());
+        assertEquals("BinaryExpr (op: +)", root.toString());
+
+        var folded = new JmmNodeImpl(List.of("IntegerLiteral", "Expr"));
+        folded.put("value", "2");
+        var parent = new JmmNodeImpl(List.of("ExprStmt", "Stmt"));
+        parent.add(root);
+        root.replace(folded);
+
+        assertEquals(List.of(folded), parent.getChildren());
+        assertNull(root.getParent());
+
+        // The node that is replaced takes the old position of the new one, as in JmmNodeImpl
+        root.setChild(folded, 1);
+        assertEquals(List.of(left, folded), root.getChildren());
+        assertSame(root, folded.getParent());
+        assertEquals(List.of(right), parent.getChildren());
+        assertSame(parent, right.getParent());
+
+        assertSame(left, root.removeChild(0));
+        assertNull(left.getParent());
+        root.add(left, 0);
+        assertEquals(List.of(left, folded), root.getChildren());
+        assertSame(root, left.getParent());
+
+        // The copy is a regular node with the same attributes
+        var copy = root.copy(root.getHierarchy());
+        assertTrue(copy instanceof JmmNodeImpl);
+        assertEquals("+", copy.get("op"));
+    }
+
+    private static void assertSameTree(String file, JmmNode expected, JmmNode actual) {
+        var location = file + ", " + expected.getKind() + " at line " + expected.getLine();
+
+        assertEquals(location, expected.getHierarchy(), actual.getHierarchy());
+        assertEquals(location, expected.getLine(), actual.getLine());
+        assertEquals(location, new HashSet<>(expected.getAttributes()), new HashSet<>(actual.getAttributes()));
+        for (var attribute : expected.getAttributes())
+            assertEquals(location + ", " + attribute, expected.getObject(attribute), actual.getObject(attribute));
+
+        assertEquals(location, expected.getNumChildren(), actual.getNumChildren());
+        for (int i = 0; i < expected.getNumChildren(); i++) {
+            assertSame(location, actual, actual.getChild(i).getParent());
+            assertSame(location, actual.getChild(i), actual.getChildren().get(i));
+            assertSameTree(file, expected.getChild(i), actual.getChild(i));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package pt.up.fe.comp.cp1;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.antlr.AntlrToJmmNodeConverter;
+import pt.up.fe.comp2025.JavammLexer;
+import pt.up.fe.comp2025.JavammParser;
+import pt.up.fe.comp2025.parser.JmmAstBuilder;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class AstBuilderTest {
+
+    @Test
+    public void sameTreeAsConverter() {
+        int compared = 0;
+
+        for (var file : SpecsIo.getFilesRecursive(new File("test"), "jmm")) {
+            var lexer = new JavammLexer(new ANTLRInputStream(SpecsIo.read(file)));
+            var parser = new JavammParser(new CommonTokenStream(lexer));
+            lexer.removeErrorListeners();
+            parser.removeErrorListeners();
+            parser.addErrorListener(new BaseErrorListener());
+
+            var tree = parser.program();
+            if (parser.getNumberOfSyntaxErrors() > 0)
+                continue;
+
+            assertSameTree(file.getName(), AntlrToJmmNodeConverter.convert(tree, parser), JmmAstBuilder.build(tree));
+            compared++;
+        }
+
+        assertTrue(compared > 0);
+    }
+
+    private static void assertSameTree(String file, JmmNode expected, JmmNode actual) {
+        var location = file + ", " + expected.getKind() + " at line " + expected.getLine();
+
+        assertEquals(location, expected.getHierarchy(), actual.getHierarchy());
+        assertEquals(location, new HashSet<>(expected.getAttributes()), new HashSet<>(actual.getAttributes()));
+        for (var attribute : expected.getAttributes())
+            assertEquals(location + ", " + attribute, expected.getObject(attribute), actual.getObject(attribute));
+
+        assertEquals(location, expected.getNumChildren(), actual.getNumChildren());
+        for (int i = 0; i < expected.getNumChildren(); i++)
+            assertSameTree(file, expected.getChild(i), actual.getChild(i));
+    }
+}
@@ -0,0 +1,236 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp.JasminRunner;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp2025.symboltable.ImportIndex;
+import pt.up.fe.comp2025.symboltable.SignatureMetadata;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ImportIndexTest {
+
+    private static final Map<String, String> CONFIG = Map.of("classpath", TestUtils.getLibsClasspath());
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void validCalls() {
+        var result = TestUtils.analyse("""
+                import io;
+                import Quicksort;
+                import Unknown;
+                class Foo {
+                    public int foo(int[] a) {
+                        int x;
+                        boolean b;
+                        Quicksort q;
+                        q = new Quicksort();
+                        x = io.read();
+                        io.println(x);
+                        io.println(io.read());
+                        b = q.quicksort(a, 0, x);
+                        Unknown.bar(x, b);
+                        return x;
+                    }
+                    public static void main(String[] args) {
+                    }
+                }""", CONFIG);
+
+        TestUtils.noErrors(result);
+    }
+
+    @Test
+    public void invalidCalls() {
+        assertEquals(List.of("Class 'io' has no method named 'printline'."),
+                getErrors("io.printline(1);"));
+        assertEquals(List.of("No method 'println' of class 'io' accepts arguments of types [Type [name=boolean, "
+                        + "isArray=false], Type [name=int, isArray=false]]."),
+                getErrors("io.println(true, 1);"));
+        assertEquals(List.of("Method 'printL' of class 'Quicksort' is not static and is called on the class."),
+                getErrors("Quicksort.printL(a);"));
+
+        // Type of the result, void
+        assertEquals(1, getErrors("x = io.println(1);").size());
+    }
+
+    @Test
+    public void exactReturnType() {
+        // The value of the call is assigned to an array element, where the type was not known before
+        var code = """
+                import MathUtils;
+                class Foo {
+                    public static void main(String[] args) {
+                        int[] a;
+                        a = new int[2];
+                        a[1] = MathUtils.random(0, 10);
+                    }
+                }""";
+
+        var result = TestUtils.backend(code, CONFIG);
+        assertTrue(result.getJasminCode(), result.getJasminCode().contains("invokestatic MathUtils/random(II)I"));
+    }
+
+    @Test
+    public void backendDescriptor() {
+        // OLLIR that ignores the result of a method that returns int
+        var ollir = """
+                Foo {
+                    .construct Foo().V {
+                        invokespecial(this, "<init>").V;
+                    }
+                    .method public static main(args.array.String).V {
+                        invokestatic(io, "read").V;
+                        ret.V;
+                    }
+                }
+                """;
+
+        var result = TestUtils.backend(new OllirResult(ollir, CONFIG));
+        var code = result.getJasminCode();
+        assertTrue(code, code.contains("invokestatic io/read()I\n   pop"));
+
+        var output = JasminRunner.run(result, List.of(), "5\n");
+        assertEquals(output.getOutput() + output.getStdErr(), 0, output.getReturnValue());
+    }
+
+    @Test
+    public void diskCache() throws IOException {
+        var classes = temp.newFolder("classes").toPath();
+        Files.copy(Path.of(TestUtils.getLibsClasspath(), "io.class"), classes.resolve("io.class"));
+        var cacheDir = temp.newFolder("cache").toPath();
+
+        var index = ImportIndex.load(List.of(classes), cacheDir);
+        assertTrue(index.getClass("io").isPresent());
+        assertTrue(index.getClass("Quicksort").isEmpty());
+
+        // The signatures of the folder are kept for the next runs
+        try (var files = Files.list(cacheDir)) {
+            var cacheFiles = files.toList();
+            assertEquals(1, cacheFiles.size());
+
+            var cached = SignatureMetadata.read(new StringReader(Files.readString(cacheFiles.getFirst())));
+            assertEquals(SignatureMetadata.toText(SignatureMetadata.fromClasses(classes)),
+                    SignatureMetadata.toText(cached));
+        }
+    }
+
+    @Test
+    public void rebuiltEntry() throws IOException {
+        var classes = temp.newFolder("classes").toPath();
+        copyClass("io.class", classes);
+        var cacheDir = temp.newFolder("cache").toPath();
+
+        assertTrue(ImportIndex.load(List.of(classes), cacheDir).getClass("io").isPresent());
+
+        // The same folder with other classes is scanned again by the same process
+        Files.delete(classes.resolve("io.class"));
+        copyClass("Quicksort.class", classes);
+
+        var index = ImportIndex.load(List.of(classes), cacheDir);
+        assertTrue(index.getClass("io").isEmpty());
+        assertTrue(index.getClass("Quicksort").isPresent());
+    }
+
+    @Test
+    public void cacheLimit() throws IOException {
+        var cacheDir = temp.newFolder("cache").toPath();
+
+        // Files of entries that were rebuilt or deleted, used a day ago
+        var dayAgo = FileTime.from(Instant.now().minus(1, ChronoUnit.DAYS));
+        for (int i = 0; i < 70; i++) {
+            var file = Files.writeString(cacheDir.resolve("old" + i + ".txt"), "");
+            Files.setLastModifiedTime(file, dayAgo);
+        }
+
+        var classes = temp.newFolder("classes").toPath();
+        copyClass("io.class", classes);
+        ImportIndex.load(List.of(classes), cacheDir);
+
+        // The oldest files are deleted, the file of the new entry is kept
+        try (var files = Files.list(cacheDir)) {
+            var names = files.map(file -> file.getFileName().toString()).toList();
+            assertEquals(64, names.size());
+            assertEquals(63, names.stream().filter(name -> name.startsWith("old")).count());
+        }
+    }
+
+    @Test
+    public void superclassInOtherEntry() throws IOException {
+        // inheritanceAB.B extends inheritanceAB.A, which is in the next entry
+        var subclasses = temp.newFolder("sub").toPath();
+        var superclasses = temp.newFolder("super").toPath();
+        copyClass("inheritanceAB/B.class", subclasses);
+        copyClass("inheritanceAB/A.class", superclasses);
+        var cacheDir = temp.newFolder("cache").toPath();
+
+        var index = ImportIndex.load(List.of(subclasses, superclasses), cacheDir);
+        assertEquals("inheritanceAB.A", index.getClass("inheritanceAB.B").orElseThrow().getSuperName());
+        assertTrue(index.getClass("inheritanceAB.A").isPresent());
+        assertTrue(index.knowsAllMethods(index.getClass("inheritanceAB.B").get(), "foo"));
+
+        // Both entries are cached
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void missingSuperclass() throws IOException {
+        var classes = temp.newFolder("classes").toPath();
+        copyClass("inheritanceAB/B.class", classes);
+        copyClass("io.class", classes);
+        var cacheDir = temp.newFolder("cache").toPath();
+
+        // The class that cannot be loaded is left out, and the compilation goes on
+        var index = ImportIndex.load(List.of(classes), cacheDir);
+        assertTrue(index.getClass("inheritanceAB.B").isEmpty());
+        assertTrue(index.getClass("io").isPresent());
+
+        // The entry could give other signatures with another classpath, it is not cached
+        try (var files = Files.list(cacheDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static void copyClass(String file, Path folder) throws IOException {
+        var target = folder.resolve(file);
+        Files.createDirectories(target.getParent());
+        Files.copy(Path.of(TestUtils.getLibsClasspath(), file), target);
+    }
+
+    private static List<String> getErrors(String statement) {
+        var code = """
+                import io;
+                import Quicksort;
+                class Foo {
+                    public int foo(int[] a) {
+                        int x;
+                        x = 0;
+                        %s
+                        return x;
+                    }
+                }""".formatted(statement);
+
+        return TestUtils.analyse(code, CONFIG).getReports().stream()
+                .filter(report -> report.getType() == ReportType.ERROR)
+                .map(Report::getMessage)
+                .toList();
+    }
+}
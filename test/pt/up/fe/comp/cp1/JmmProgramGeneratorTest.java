@@ -0,0 +1,42 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.benchmark.JmmProgramGenerator;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JmmProgramGeneratorTest {
+
+    @Test
+    public void generatedProgramsCompile() {
+        var generators = List.of(
+                new JmmProgramGenerator().setStatements(10).setLiveVariables(2),
+                new JmmProgramGenerator().setMethods(3).setStatements(50).setNestingDepth(2).setArrays(2),
+                new JmmProgramGenerator().setMethods(2).setStatements(200).setNestingDepth(3).setLiveVariables(40)
+                        .setArrays(4).setSeed(7));
+
+        for (var generator : generators) {
+            var code = generator.generate();
+
+            var semanticsResult = TestUtils.analyse(code);
+            assertEquals(code, List.of(), semanticsResult.getReports());
+
+            // The programs also run without exceptions, and print nothing
+            var jasminResult = TestUtils.backend(code);
+            assertEquals(code, List.of(), jasminResult.getReports());
+            CpUtils.runJasmin(jasminResult, "");
+        }
+    }
+
+    @Test
+    public void sameSeedSameProgram() {
+        var generator = new JmmProgramGenerator().setStatements(30).setNestingDepth(2).setArrays(1).setSeed(3);
+
+        assertEquals(generator.generate(), generator.generate());
+        assertNotEquals(generator.generate(), generator.setSeed(4).generate());
+    }
+}
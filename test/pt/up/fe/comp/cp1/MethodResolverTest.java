@@ -0,0 +1,133 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.ast.TypeUtils;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.MethodResolver;
+import pt.up.fe.comp2025.symboltable.MethodSignature;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MethodResolverTest {
+
+    private static final String CODE = """
+            class Foo {
+                public int sum(int... values) { return 0; }
+                public boolean both(int a, boolean b) { return b; }
+                public int calls(int[] array) {
+                    int a;
+                    a = this.sum(1, 2, 3);
+                    a = this.sum(array);
+                    return a;
+                }
+            }""";
+
+    @Test
+    public void signatureIndex() {
+        var table = (JmmSymbolTable) TestUtils.analyse(CODE).getSymbolTable();
+
+        var both = table.getSignature("both", List.of(TypeUtils.newIntType(), TypeUtils.newBooleanType()));
+        assertTrue(both.isPresent());
+        assertEquals("both(int,boolean)", both.get().getKey());
+        assertFalse(both.get().isVarargs());
+
+        assertTrue(table.getSignatures("sum").getFirst().isVarargs());
+        assertTrue(table.getSignature("both", List.of(TypeUtils.newIntType())).isEmpty());
+        assertTrue(table.getSignatures("missing").isEmpty());
+    }
+
+    @Test
+    public void varargsCalls() {
+        var result = TestUtils.analyse(CODE);
+        TestUtils.noErrors(result);
+
+        var resolver = new MethodResolver((JmmSymbolTable) result.getSymbolTable());
+        var calls = result.getRootNode().getDescendants(Kind.METHOD_CALL_EXPR);
+
+        // The analysis already resolved the calls
+        var signature = calls.getFirst().getObject(MethodResolver.SIGNATURE, MethodSignature.class);
+        assertSame(signature, resolver.resolve(calls.get(1)).get());
+
+        // Elements are put in an array, an array is passed as is
+        assertTrue(resolver.packsVarargs(calls.get(0)));
+        assertFalse(resolver.packsVarargs(calls.get(1)));
+    }
+
+    @Test
+    public void tooManyArguments() {
+        var result = TestUtils.analyse("""
+                class Foo {
+                    public int one(int a) { return this.one(1, 2); }
+                }""");
+
+        TestUtils.mustFail(result);
+        assertTrue(result.getReports().getFirst().getMessage().contains("'1' arguments, but got '2'"));
+    }
+
+    @Test
+    public void varargsElementType() {
+        var result = TestUtils.analyse("""
+                class Foo {
+                    public int sum(int... values) { return this.sum(1, true); }
+                }""");
+
+        TestUtils.mustFail(result);
+    }
+
+    @Test
+    public void noVarargs() {
+        var code = """
+                import io;
+                class Foo {
+                    public int count(int start, int... values) { return start + values.length; }
+                    public static void main(String[] args) {
+                        Foo foo;
+                        foo = new Foo();
+                        io.println(foo.count(1));
+                        io.println(foo.count(1, 5, 6));
+                    }
+                }""";
+
+        var result = TestUtils.analyse(code);
+        TestUtils.noErrors(result);
+
+        // No argument for the varargs parameter is an empty array
+        var resolver = new MethodResolver((JmmSymbolTable) result.getSymbolTable());
+        var call = result.getRootNode().getDescendants(Kind.METHOD_CALL_EXPR).get(1);
+        assertTrue(resolver.resolve(call).isPresent());
+        assertTrue(resolver.packsVarargs(call));
+
+        CpUtils.runJasmin(TestUtils.backend(code), "1\n3");
+    }
+
+    @Test
+    public void missingFixedArgument() {
+        var result = TestUtils.analyse("""
+                class Foo {
+                    public int count(int start, int... values) { return this.count(); }
+                }""");
+
+        TestUtils.mustFail(result);
+        assertTrue(result.getReports().getFirst().getMessage().contains("'1' arguments, but got '0'"));
+    }
+
+    @Test
+    public void varargsDeclaration() {
+        var result = TestUtils.analyse("""
+                class Foo {
+                    public int first(int... values, int last) { return last; }
+                    public int last(int first, int... values) { return first; }
+                }""");
+
+        var resolver = new MethodResolver((JmmSymbolTable) result.getSymbolTable());
+        assertEquals("Found varargs before the last parameter of the method 'first'.",
+                resolver.checkVarargsDeclaration("first"));
+        assertNull(resolver.checkVarargsDeclaration("last"));
+        TestUtils.mustFail(result);
+    }
+}
@@ -0,0 +1,43 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.parser.ParserCache;
+
+import static org.junit.Assert.*;
+
+public class ParserCacheTest {
+
+    // The cache is shared by the whole JVM, each test starts and ends with it empty so that the order does not matter
+    @Before
+    @After
+    public void clearCache() {
+        ParserCache.getInstance().clear();
+    }
+
+    @Test
+    public void warmUpFillsCache() {
+        var cache = ParserCache.getInstance();
+        assertEquals(0, cache.getDfaStates());
+
+        cache.warmUp();
+        assertTrue(cache.getDfaStates() > 0);
+    }
+
+    @Test
+    public void clearIfLargerThan() {
+        var cache = ParserCache.getInstance();
+        cache.warmUp();
+
+        assertFalse(cache.clearIfLargerThan(-1));
+        assertFalse(cache.clearIfLargerThan(Integer.MAX_VALUE));
+        assertTrue(cache.clearIfLargerThan(0));
+        assertEquals(0, cache.getDfaStates());
+
+        // Parsing still works after the cache is dropped
+        var result = TestUtils.parse("class Foo { public int foo(int x) { return x; } }");
+        assertNotNull(result.getRootNode());
+    }
+}
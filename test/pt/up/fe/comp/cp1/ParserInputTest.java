@@ -0,0 +1,57 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ParserInputTest {
+
+    private static final String FILE = "pt/up/fe/comp/cp1/semanticanalysis/SymbolTable.jmm";
+
+    @Test
+    public void pathMatchesString() {
+        var parser = new JmmParserImpl();
+        var fromString = parser.parse(SpecsIo.getResource(FILE), new HashMap<>());
+        var fromPath = parser.parse(Path.of("test", FILE), new HashMap<>());
+
+        TestUtils.noErrors(fromPath);
+        assertEquals(fromString.getRootNode().toTree(), fromPath.getRootNode().toTree());
+    }
+
+    @Test
+    public void readerWithoutSize() {
+        var code = "class Foo { public int foo(int x) { return x + 1; } }";
+        var parser = new JmmParserImpl();
+        var fromReader = parser.parse(new StringReader(code), -1, parser.getDefaultRule(), new HashMap<>());
+
+        TestUtils.noErrors(fromReader);
+        assertEquals(parser.parse(code, new HashMap<>()).getRootNode().toTree(), fromReader.getRootNode().toTree());
+    }
+
+    @Test
+    public void readerSyntaxError() {
+        var parser = new JmmParserImpl();
+        var result = parser.parse(new StringReader("class Foo { int a; public int foo() { return 1 + ; } }"), 10,
+                parser.getDefaultRule(), new HashMap<>());
+
+        // The LL fallback reads the same buffer again
+        assertNull(result.getRootNode());
+        TestUtils.mustFail(result);
+    }
+
+    @Test
+    public void missingFile() {
+        var result = new JmmParserImpl().parse(Path.of("test", "DoesNotExist.jmm"), new HashMap<>());
+
+        assertNull(result.getRootNode());
+        TestUtils.mustFail(result);
+    }
+}
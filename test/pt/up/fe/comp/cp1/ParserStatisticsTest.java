@@ -0,0 +1,38 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.parser.JmmParserImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ParserStatisticsTest {
+
+    @Test
+    public void validCodeUsesSll() {
+        var statistics = JmmParserImpl.getStatistics();
+        long sllParses = statistics.getSllParses();
+        long llParses = statistics.getLlParses();
+
+        var result = TestUtils.parse("class Foo { int a; public int foo(int x) { return x + 1 * a; } }");
+
+        assertNotNull(result.getRootNode());
+        assertEquals(sllParses + 1, statistics.getSllParses());
+        assertEquals(llParses, statistics.getLlParses());
+    }
+
+    @Test
+    public void syntaxErrorFallsBackToLl() {
+        var statistics = JmmParserImpl.getStatistics();
+        long llParses = statistics.getLlParses();
+
+        var result = TestUtils.parse("class Foo { int a; public int foo(int x) { return x + ; } }");
+
+        // Errors are still reported by the LL parse
+        assertNull(result.getRootNode());
+        TestUtils.mustFail(result);
+        assertEquals(llParses + 1, statistics.getLlParses());
+    }
+}
@@ -0,0 +1,80 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.symboltable.ExternalClass;
+import pt.up.fe.comp2025.symboltable.SignatureMetadata;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.*;
+
+public class SignatureMetadataTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void runtimeClasses() {
+        var classes = SignatureMetadata.fromClasses(Path.of(TestUtils.getLibsClasspath()));
+
+        var io = find(classes, "io");
+        assertEquals("java.lang.Object", io.getSuperName());
+        assertTrue(io.getMethods("println").stream()
+                .anyMatch(method -> method.isStatic() && method.getDescriptor().equals("(I)V")));
+        assertTrue(io.getMethods("read").getFirst().isStatic());
+
+        var quicksort = find(classes, "Quicksort");
+        assertEquals(2, quicksort.getMethods("quicksort").size());
+        assertFalse(quicksort.getMethods("printL").getFirst().isStatic());
+
+        var b = find(classes, "inheritanceAB.B");
+        assertEquals("inheritanceAB.A", b.getSuperName());
+        assertEquals("B", b.getSimpleName());
+    }
+
+    @Test
+    public void readJar() throws IOException {
+        var text = SignatureMetadata.toText(SignatureMetadata.fromClasses(Path.of(TestUtils.getLibsClasspath())));
+
+        var jar = temp.newFile("runtime.jar");
+        try (var out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry(SignatureMetadata.RESOURCE));
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        var classes = SignatureMetadata.readJar(jar.toPath());
+        assertTrue(classes.isPresent());
+        assertEquals(text, SignatureMetadata.toText(classes.get()));
+
+        assertEquals(text, SignatureMetadata.toText(SignatureMetadata.read(new StringReader(text))));
+    }
+
+    @Test
+    public void jarWithoutMetadata() throws IOException {
+        var jar = temp.newFile("empty.jar");
+        try (var out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("Foo.class"));
+            out.closeEntry();
+        }
+
+        assertTrue(SignatureMetadata.readJar(jar.toPath()).isEmpty());
+    }
+
+    private static ExternalClass find(List<ExternalClass> classes, String name) {
+        return classes.stream()
+                .filter(aClass -> aClass.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Class '" + name + "' not found"));
+    }
+}
@@ -0,0 +1,134 @@
+package pt.up.fe.comp.cp1;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+import pt.up.fe.comp2025.CompilerConfig;
+import pt.up.fe.comp2025.Launcher;
+import pt.up.fe.comp2025.profiling.StageMeasurement;
+import pt.up.fe.comp2025.profiling.StageProfiler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class StageProfilerTest {
+
+    private static final String INPUT = "test/pt/up/fe/comp/cp2/optimizations/const_prop_fold/PropSimple.jmm";
+
+    // Passes of the semantic analysis, in the order they run
+    private static final List<String> PASSES = List.of("AddType", "UndeclaredVariable", "OperatorType", "Array",
+            "MethodVerification", "Statement");
+
+    @Test
+    public void disabled() {
+        var profiler = new StageProfiler();
+
+        assertEquals(Integer.valueOf(1), profiler.measure("stage", () -> 1));
+        assertTrue(profiler.getMeasurements().isEmpty());
+    }
+
+    @Test
+    public void nesting() {
+        var profiler = new StageProfiler();
+        profiler.setEnabled(true);
+
+        profiler.measure("outer", () -> {
+            profiler.measure("inner", () -> {
+            });
+            profiler.measure("inner", () -> {
+            });
+        });
+
+        // The same stage outside 'outer' is measured apart, with its own depth
+        profiler.measure("inner", () -> {
+        });
+
+        var measurements = profiler.getMeasurements();
+        assertEquals(List.of("outer", "inner", "inner"), measurements.stream().map(StageMeasurement::getName).toList());
+        assertEquals(List.of(0, 1, 0), measurements.stream().map(StageMeasurement::getDepth).toList());
+        assertEquals(List.of(1, 2, 1), measurements.stream().map(StageMeasurement::getCalls).toList());
+
+        var table = profiler.toTable().lines().toList();
+        assertEquals(4, table.size());
+        assertTrue(table.get(0), table.get(0).matches("Stage\\s+Calls\\s+Wall \\(ms\\)\\s+CPU \\(ms\\)\\s+Alloc \\(KB\\)"));
+        assertTrue(table.get(1), table.get(1).matches("outer\\s+1\\s+.*"));
+        assertTrue(table.get(2), table.get(2).matches("  inner\\s+2\\s+.*"));
+        assertTrue(table.get(3), table.get(3).matches("inner\\s+1\\s+.*"));
+    }
+
+    @Test
+    public void record() {
+        var profiler = new StageProfiler();
+        profiler.setEnabled(true);
+
+        profiler.measure("outer", () -> {
+            profiler.record("part", 2_000_000, -1, 1024);
+            profiler.record("part", 1_000_000, -1, 2048);
+        });
+
+        var part = profiler.getMeasurements().get(1);
+        assertEquals("part", part.getName());
+        assertEquals(1, part.getDepth());
+        assertEquals(2, part.getCalls());
+        assertTrue(profiler.toTable(), profiler.toTable().lines()
+                .anyMatch(line -> line.matches("  part\\s+2\\s+3\\.000\\s+n/a\\s+3")));
+    }
+
+    @Test
+    public void launcherTable() {
+        var output = runLauncher("-i=" + INPUT, "-o", "-t");
+
+        assertTrue(output, output.contains("Stage measurements:"));
+        for (var stage : List.of("parsing", "semantic analysis", "  symbol table", "  analysis passes",
+                "AST optimization", "  constant propagation", "  constant folding", "OLLIR generation",
+                "Jasmin generation")) {
+            var line = Pattern.compile("^" + Pattern.quote(stage) + "\\s+\\d+\\s+\\d+\\.\\d{3}\\s", Pattern.MULTILINE);
+            assertTrue("Expected stage '" + stage + "' in:\n" + output, line.matcher(output).find());
+        }
+
+        // Each pass of the fused traversal has its own row, under the analysis passes
+        for (var pass : PASSES) {
+            var line = Pattern.compile("^    " + pass + "\\s+1\\s+\\d+\\.\\d{3}\\s", Pattern.MULTILINE);
+            assertTrue("Expected pass '" + pass + "' in:\n" + output, line.matcher(output).find());
+        }
+    }
+
+    @Test
+    public void launcherJson() {
+        var output = runLauncher("-i=" + INPUT, "-t=json");
+
+        // The JSON array is after the title, followed by the parser statistics
+        int start = output.indexOf('[');
+        var json = output.substring(start, output.indexOf("\n]", start) + 2);
+        List<Map<String, Object>> stages = new Gson().fromJson(json, new TypeToken<List<Map<String, Object>>>() {
+        }.getType());
+
+        var depths = stages.stream()
+                .collect(Collectors.toMap(stage -> (String) stage.get("name"),
+                        stage -> ((Number) stage.get("depth")).intValue()));
+
+        assertEquals(Integer.valueOf(0), depths.get("semantic analysis"));
+        assertEquals(Integer.valueOf(1), depths.get("symbol table"));
+        assertEquals(Integer.valueOf(1), depths.get("analysis passes"));
+        assertEquals(Integer.valueOf(0), depths.get("Jasmin generation"));
+        for (var pass : PASSES)
+            assertEquals(pass, Integer.valueOf(2), depths.get(pass));
+        for (var stage : stages)
+            assertEquals(stage.toString(), 1, ((Number) stage.get("calls")).intValue());
+    }
+
+    // Same as the launcher, without the redirection of the standard output to the logger
+    private static String runLauncher(String... args) {
+        var config = CompilerConfig.parseArgs(args);
+
+        var profiler = new StageProfiler();
+        profiler.setEnabled(CompilerConfig.getTiming(config));
+        Launcher.compile(config, profiler);
+
+        return Launcher.getTimingReport(config, profiler);
+    }
+}
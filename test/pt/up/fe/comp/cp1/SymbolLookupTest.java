@@ -0,0 +1,58 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2025.symboltable.ScopedSymbol.Scope;
+
+import static org.junit.Assert.*;
+
+public class SymbolLookupTest {
+
+    private static JmmSymbolTable getTable() {
+        var result = TestUtils.analyse("""
+                import a.b.Imported;
+                class Foo {
+                    int field;
+                    boolean shadowed;
+                    public int foo(int param, int[] shadowed) {
+                        int local;
+                        int param2;
+                        return 0;
+                    }
+                }""");
+
+        TestUtils.noErrors(result);
+        return (JmmSymbolTable) result.getSymbolTable();
+    }
+
+    @Test
+    public void scopes() {
+        var table = getTable();
+
+        assertEquals(Scope.LOCAL, table.lookup("foo", "local").get().getScope());
+        assertEquals(Scope.PARAM, table.lookup("foo", "param").get().getScope());
+        assertEquals(Scope.FIELD, table.lookup("foo", "field").get().getScope());
+        assertEquals(Scope.IMPORT, table.lookup("foo", "Imported").get().getScope());
+        assertEquals("imported", table.lookup("foo", "Imported").get().getType().getName());
+        assertTrue(table.lookup("foo", "missing").isEmpty());
+    }
+
+    @Test
+    public void parametersHideFields() {
+        var symbol = getTable().lookup("foo", "shadowed").get();
+
+        assertEquals(Scope.PARAM, symbol.getScope());
+        assertTrue(symbol.getType().isArray());
+    }
+
+    @Test
+    public void outsideMethods() {
+        var table = getTable();
+
+        assertEquals(Scope.FIELD, table.lookup(null, "shadowed").get().getScope());
+        assertTrue(table.lookup(null, "local").isEmpty());
+        assertTrue(table.lookup("unknown", "param").isEmpty());
+        assertFalse(table.lookup(null, "b").isPresent());
+    }
+}
@@ -0,0 +1,70 @@
+package pt.up.fe.comp.cp1;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp2025.ast.TypeUtils;
+
+import static org.junit.Assert.*;
+
+public class TypeAttributeTest {
+
+    @Test
+    public void typesAreInterned() {
+        var result = TestUtils.analyse("class Foo { public int foo(int x) { int y; y = x + 1; return y * 2; } }");
+        TestUtils.noErrors(result);
+
+        var typed = result.getRootNode().getDescendantsAndSelfStream()
+                .filter(node -> node.hasAttribute(TypeUtils.TYPE))
+                .toList();
+        assertFalse(typed.isEmpty());
+
+        var intType = TypeUtils.intern(TypeUtils.newIntType());
+        for (var node : typed) {
+            var type = node.getObject(TypeUtils.TYPE);
+            assertTrue(type instanceof Type);
+
+            if (type.equals(intType))
+                assertSame(intType, type);
+        }
+    }
+
+    @Test
+    public void typeFromCopiedNode() {
+        var result = TestUtils.analyse("class Foo { public int[] foo(int[] x) { return x; } }");
+        TestUtils.noErrors(result);
+
+        var ret = result.getRootNode().getDescendants("ReturnStmt").getFirst();
+
+        // Copies keep attributes as strings
+        var copy = ret.copy(ret.getHierarchy());
+        assertEquals(TypeUtils.newArrayIntType(), TypeUtils.getType(copy));
+    }
+
+    @Test
+    public void internedTypesAreNotChanged() {
+        var varargs = TypeUtils.newArrayIntType();
+        varargs.putObject("isVarargs", true);
+
+        // The attributes of the given type are not shared
+        var interned = TypeUtils.intern(varargs);
+        assertTrue(interned.getAttributes().isEmpty());
+        assertNotSame(varargs, interned);
+
+        var node = TestUtils.parse("class Foo { }").getRootNode();
+        TypeUtils.putType(node, varargs);
+        assertSame(interned, TypeUtils.getType(node));
+
+        // A change to the shared instance is detected when it is read again
+        var changed = TypeUtils.intern(TypeUtils.newType("Changed"));
+        changed.putObject("isVarargs", true);
+        try {
+            TypeUtils.intern(TypeUtils.newType("Changed"));
+            fail("Expected the change to the interned type to be detected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("isVarargs"));
+        } finally {
+            changed.getAttributes().clear();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package pt.up.fe.comp.cp2;
+
+import org.junit.Test;
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.inst.AssignInstruction;
+import org.specs.comp.ollir.inst.CallInstruction;
+import org.specs.comp.ollir.inst.Instruction;
+import org.specs.comp.ollir.inst.OpInstruction;
+import org.specs.comp.ollir.inst.ReturnInstruction;
+import org.specs.comp.ollir.tree.TreeNode;
+import org.specs.comp.ollir.type.ClassKind;
+import org.specs.comp.ollir.type.ClassType;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirUtils;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2025.backend.JasminBackendImpl;
+import pt.up.fe.comp2025.optimization.JmmOptimizationImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class OllirBuilderTest {
+
+    private static final List<String> FOLDERS = List.of("test/pt/up/fe/comp/cp2", "test/pt/up/fe/comp/cp3",
+            "test/pt/up/fe/comp/initial");
+
+    private static final Pattern CLASS_REFERENCE = Pattern.compile("([\\w.]+)\\.CLASS\\([\\w.]+\\)");
+
+    @Test
+    public void sameClassAsParsedCode() {
+        checkAll(new HashMap<>());
+    }
+
+    @Test
+    public void sameClassAsParsedCodeOptimized() {
+        var config = new HashMap<String, String>();
+        config.put(ConfigOptions.getOptimize(), "true");
+
+        checkAll(config);
+    }
+
+    @Test
+    public void printedCode() {
+        var config = new HashMap<String, String>();
+        config.put(ConfigOptions.getDumpOllir(), "true");
+        var code = """
+                class Foo {
+                    int field;
+                    public int get(int a) {
+                        field = a;
+                        return field;
+                    }
+                }""";
+
+        var ollirResult = TestUtils.optimize(code, config);
+
+        assertTrue(ollirResult.getOllirCode().contains("putfield(this.Foo, field.i32, a.i32).V"));
+        assertEquals("Foo", ollirResult.getOllirClass().getClassName());
+    }
+
+    @Test
+    public void importedClassReference() {
+        var code = """
+                import io;
+                class Foo {
+                    public static void main(String[] args) {
+                        io.println(1);
+                    }
+                }""";
+
+        var builtOllir = new JmmOptimizationImpl().build(TestUtils.analyse(code));
+
+        var call = (CallInstruction) builtOllir.getOllirClass().getMethod(1).getInstructions().getFirst();
+        var caller = (Operand) call.getCaller();
+        assertEquals("io", caller.getName());
+        assertEquals("io", ((ClassType) caller.getType()).getName());
+        assertEquals(ClassKind.CLASS, ((ClassType) caller.getType()).getKind());
+    }
+
+    @Test
+    public void builtResult() {
+        var config = new HashMap<String, String>();
+        config.put(ConfigOptions.getOptimize(), "true");
+
+        var semanticsResult = TestUtils.analyse("class Foo { public int get(int a) { return a; } }", config);
+        var builtOllir = new JmmOptimizationImpl().build(semanticsResult);
+
+        // Built without parsing any OLLIR code, with the reports and config of the analysis
+        assertEquals("Foo", builtOllir.getOllirClass().getClassName());
+        assertEquals(new ArrayList<>(semanticsResult.getReports()), new ArrayList<>(builtOllir.getReports()));
+        assertSame(semanticsResult.getConfig(), builtOllir.getConfig());
+        assertTrue(builtOllir.getOllirCode(), builtOllir.getOllirCode().contains(".method public get(a.i32).i32"));
+
+        // The OllirResult of the stage interface is parsed from the same code, and both give the same Jasmin code
+        var ollirResult = builtOllir.toOllirResult();
+        assertEquals(builtOllir.getOllirCode(), ollirResult.getOllirCode());
+        assertEquals(new ArrayList<>(builtOllir.getReports()), new ArrayList<>(ollirResult.getReports()));
+        assertSame(semanticsResult.getConfig(), ollirResult.getConfig());
+
+        var backend = new JasminBackendImpl();
+        assertEquals(backend.toJasmin(ollirResult).getJasminCode(), backend.toJasmin(builtOllir).getJasminCode());
+    }
+
+    private static void checkAll(Map<String, String> config) {
+        int checked = 0;
+
+        for (var folder : FOLDERS) {
+            for (var file : SpecsIo.getFilesRecursive(new File(folder), "jmm")) {
+                var parserResult = TestUtils.parse(SpecsIo.read(file), config);
+                if (parserResult.getRootNode() == null)
+                    continue;
+
+                var semanticsResult = new JmmAnalysisImpl().semanticAnalysis(parserResult);
+                if (TestUtils.getNumErrors(semanticsResult.getReports()) > 0)
+                    continue;
+
+                var optimization = new JmmOptimizationImpl();
+                var builtOllir = optimization.build(optimization.optimize(semanticsResult));
+                var parsed = OllirUtils.parse(builtOllir.getOllirCode());
+
+                assertEquals("Built class differs from the parsed code of " + file + ":\n" + builtOllir.getOllirCode(),
+                        fixClassReferences(describe(parsed)), describe(builtOllir.getOllirClass()));
+                checked++;
+            }
+        }
+
+        assertTrue("Expected to check some files, checked " + checked, checked > 20);
+    }
+
+    // The OLLIR parser gives the classes of static calls (e.g. "io") the type of the current class, the builder
+    // gives them their own type, which importedClassReference checks
+    private static String fixClassReferences(String description) {
+        return CLASS_REFERENCE.matcher(description).replaceAll("$1.CLASS($1)");
+    }
+
+    // Everything the backend and the optimizations read from the class
+    private static String describe(ClassUnit classUnit) {
+        var description = new StringBuilder();
+
+        description.append(classUnit.getClassName()).append(" extends ").append(classUnit.getSuperClass())
+                .append(" imports ").append(classUnit.getImports()).append("\n");
+
+        for (var field : classUnit.getFields())
+            description.append("field ").append(field.getFieldName()).append(" ").append(field.getFieldType())
+                    .append(" ").append(field.getFieldAccessModifier()).append("\n");
+
+        for (var method : classUnit.getMethods()) {
+            description.append("method ").append(method.getMethodName())
+                    .append(" ").append(method.getMethodAccessModifier())
+                    .append(" static=").append(method.isStaticMethod())
+                    .append(" varargs=").append(method.isVarargs())
+                    .append(" construct=").append(method.isConstructMethod())
+                    .append(" returns ").append(method.getReturnType()).append("\n");
+
+            for (var param : method.getParams())
+                description.append("param ").append(param).append(" ").append(((Operand) param).getParamId()).append("\n");
+
+            for (var instruction : method.getInstructions()) {
+                var labels = new ArrayList<>(method.getLabels(instruction));
+                labels.sort(null);
+                description.append("labels ").append(labels).append("\n");
+                describe(instruction, description);
+            }
+
+            for (var entry : new TreeMap<>(method.getVarTable()).entrySet()) {
+                var descriptor = entry.getValue();
+                description.append("var ").append(entry.getKey()).append(" ").append(descriptor.getScope())
+                        .append(" ").append(descriptor.getVirtualReg()).append(" ").append(descriptor.getVarType())
+                        .append("\n");
+            }
+        }
+
+        return description.toString();
+    }
+
+    private static void describe(Instruction instruction, StringBuilder description) {
+        description.append(instruction.toTree());
+
+        instruction.getDescendantsAndSelfStream().forEach(node -> describeNode(node, description));
+    }
+
+    private static void describeNode(TreeNode node, StringBuilder description) {
+        switch (node) {
+            case CallInstruction call -> description.append("  isolated=").append(call.isIsolated())
+                    .append(" returns ").append(call.getReturnType()).append("\n");
+            case OpInstruction op -> description.append("  operation ").append(op.getOperation().getTypeInfo())
+                    .append("\n");
+            case AssignInstruction assign -> description.append("  assign ").append(assign.getTypeOfAssign())
+                    .append("\n");
+            case ReturnInstruction ret -> description.append("  returns ").append(ret.getReturnType()).append("\n");
+            default -> {
+            }
+        }
+    }
+}
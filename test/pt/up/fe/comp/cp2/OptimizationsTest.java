@@ -14,13 +14,19 @@
 package pt.up.fe.comp.cp2;
 
 import org.junit.Test;
+import org.specs.comp.ollir.inst.ArrayLengthInstruction;
+import org.specs.comp.ollir.inst.AssignInstruction;
 import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp2025.ConfigOptions;
+import pt.up.fe.comp2025.ast.Kind;
+import pt.up.fe.comp2025.optimization.LoopBoundsAnalysis;
 import pt.up.fe.specs.util.SpecsIo;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class OptimizationsTest {
@@ -180,4 +186,71 @@ public class OptimizationsTest {
         CpUtils.assertFindLiteral("15", method, optimized);
     }
 
+    @Test
+    public void loopBoundsHoistLength() {
+
+        String filename = "loop_bounds/HoistLength.jmm";
+
+        var original = getOllirResult(filename);
+        var optimized = getOllirResultOpt(filename);
+
+        CpUtils.assertTrue("Expected code to change with -o flag\n\nOriginal code:\n" + original.getOllirCode(),
+                !original.getOllirCode().equals(optimized.getOllirCode()), optimized);
+
+        for (var methodName : new String[]{"fill", "sum", "sumFrom"}) {
+            var method = CpUtils.getMethod(optimized, methodName);
+            var instructions = method.getInstructions();
+
+            var whileStart = method.getLabels().entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith("while"))
+                    .map(entry -> instructions.indexOf(entry.getValue()))
+                    .findFirst()
+                    .orElseThrow();
+
+            var firstLength = instructions.stream()
+                    .filter(inst -> inst instanceof AssignInstruction assign && assign.getRhs() instanceof ArrayLengthInstruction)
+                    .map(instructions::indexOf)
+                    .findFirst()
+                    .orElseThrow();
+
+            CpUtils.assertTrue("Expected 'arraylength' of the loop condition of '" + methodName + "' to be before the loop",
+                    firstLength < whileStart, optimized);
+        }
+
+        // Length in the body of 'fill' reuses the hoisted one
+        CpUtils.assertEquals("Expected one 'arraylength' in 'fill'", 1,
+                CpUtils.getOllirNodes(CpUtils.getMethod(optimized, "fill"), node -> node instanceof ArrayLengthInstruction).size(),
+                optimized);
+    }
+
+    @Test
+    public void loopBoundsInvariantLengths() {
+
+        Map<String, String> config = new HashMap<>();
+        config.put(ConfigOptions.getOptimize(), "true");
+
+        var semantics = TestUtils.analyse(SpecsIo.getResource(BASE_PATH + "loop_bounds/HoistLength.jmm"), config);
+        TestUtils.noErrors(semantics);
+        var optimized = TestUtils.optimize(semantics);
+
+        // Lengths marked in each method: all of them when the array is the same in every iteration, whatever the
+        // start of the index, and none when the array changes in the loop
+        var expected = Map.of("fill", List.of(true, true), "sum", List.of(true),
+                "sumFrom", List.of(true), "sumSwapped", List.of(false));
+
+        for (var method : semantics.getRootNode().getDescendants(Kind.METHOD_DECL)) {
+            var name = method.get("name");
+            if (!expected.containsKey(name))
+                continue;
+
+            var hoisted = method.getDescendants(Kind.LENGTH_EXPR).stream()
+                    .map(length -> length.hasAttribute(LoopBoundsAnalysis.HOISTED))
+                    .toList();
+
+            CpUtils.assertEquals("Hoisted lengths of '" + name + "'", expected.get(name), hoisted, optimized);
+        }
+
+        CpUtils.runJasmin(TestUtils.backend(optimized), "5\n15\n6\n5");
+    }
+
 }
@@ -0,0 +1,45 @@
+package pt.up.fe.comp.cp3;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2025.backend.JasminAssembler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class JasminAssemblerTest {
+
+    /**
+     * Same class file as the one written by JasminResult.
+     */
+    @Test
+    public void sameAsJasminResult() throws IOException {
+        var result = TestUtils.backend(SpecsIo.getResource("pt/up/fe/comp/cp3/jasmin/control_flow/SwitchStat.jmm"));
+
+        var classes = JasminAssembler.assemble(result.getJasminCode());
+        assertEquals(1, classes.size());
+
+        var expected = Files.readAllBytes(result.compile().toPath());
+        assertArrayEquals(expected, classes.get(result.getClassName()));
+    }
+
+    @Test
+    public void write() throws IOException {
+        var classes = JasminAssembler.assemble("""
+                .class pkg/Empty
+                .super java/lang/Object
+                """);
+
+        var outputDir = Files.createTempDirectory("jasmin-assembler");
+        JasminAssembler.write(classes, outputDir);
+
+        var classFile = outputDir.resolve("pkg/Empty.class");
+        assertArrayEquals(classes.get("pkg.Empty"), Files.readAllBytes(classFile));
+
+        SpecsIo.deleteFolder(outputDir.toFile());
+    }
+}
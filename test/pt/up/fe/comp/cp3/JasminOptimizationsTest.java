@@ -14,6 +14,7 @@
 package pt.up.fe.comp.cp3;
 
 import org.junit.Test;
+import pt.up.fe.comp.CompilationCache;
 import pt.up.fe.comp.CpUtils;
 import pt.up.fe.comp.TestUtils;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
@@ -21,8 +22,12 @@ import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.specs.util.SpecsIo;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 public class JasminOptimizationsTest {
 
     static OllirResult getOllirResult(String filename) {
@@ -30,20 +35,19 @@ public class JasminOptimizationsTest {
     }
 
     static JasminResult getJasminResult(String filename) {
-        String resource = SpecsIo.getResource("pt/up/fe/comp/cp3/optimizations/" + filename);
-        return TestUtils.backend(resource);
+        return CompilationCache.backend("pt/up/fe/comp/cp3/optimizations/" + filename);
     }
 
     static JasminResult getJasminResultOpt(String filename) {
         Map<String, String> config = new HashMap<>();
         config.put("optimize", "true");
-        return TestUtils.backend(SpecsIo.getResource("pt/up/fe/comp/cp3/optimizations/" + filename), config);
+        return CompilationCache.backend("pt/up/fe/comp/cp3/optimizations/" + filename, config);
     }
 
     static JasminResult getJasminResultReg(String filename, int numReg) {
         Map<String, String> config = new HashMap<>();
         config.put("registerAllocation", String.valueOf(numReg));
-        return TestUtils.backend(SpecsIo.getResource("pt/up/fe/comp/cp3/optimizations/" + filename), config);
+        return CompilationCache.backend("pt/up/fe/comp/cp3/optimizations/" + filename, config);
     }
 
     /**
@@ -101,6 +105,124 @@ public class JasminOptimizationsTest {
 
     }
 
+    /**
+     * Test if an if-else ladder on the same variable is compiled to a tableswitch
+     */
+    @Test
+    public void section1_InstSelection_tableswitch() {
+        JasminResult jasminResult = getJasminResult("InstSelection_tableswitch.jmm");
+        CpUtils.matches(jasminResult, "tableswitch\\s+1\\s+3");
+        CpUtils.runJasmin(jasminResult, "Result: 10\nResult: 10\nResult: 20\nResult: 30\nResult: 40\nResult: 50");
+    }
+
+    /**
+     * Test if a ladder of equality branches on sparse constants is compiled to a lookupswitch
+     */
+    @Test
+    public void section1_InstSelection_lookupswitch() {
+        var ollirCode = SpecsIo.getResource("pt/up/fe/comp/cp3/optimizations/InstSelection_lookupswitch.ollir");
+        JasminResult jasminResult = TestUtils.backend(new OllirResult(ollirCode, new HashMap<>()));
+        var methodCode = CpUtils.getJasminMethod(jasminResult, "static pick");
+
+        CpUtils.matches(methodCode, "lookupswitch\\s+1\\s*:\\s*one\\s+100\\s*:\\s*hundred\\s+500\\s*:\\s*fiveHundred"
+                + "\\s+default\\s*:");
+        assertFalse("Expected no tableswitch in:\n" + methodCode, methodCode.contains("tableswitch"));
+        CpUtils.runJasmin(jasminResult, "Result: 10\nResult: 20\nResult: 30\nResult: 0");
+    }
+
+    /**
+     * Test if ladders on different locals, or comparing against values that are not constants, are not compiled to a
+     * switch
+     */
+    @Test
+    public void section1_InstSelection_noSwitch() {
+        JasminResult jasminResult = getJasminResult("InstSelection_no_switch.jmm");
+
+        for (var method : List.of("locals", "bounds")) {
+            var methodCode = CpUtils.getJasminMethod(jasminResult, method);
+            assertFalse("Expected no switch in:\n" + methodCode, methodCode.contains("switch"));
+        }
+
+        CpUtils.runJasmin(jasminResult, "Result: 10\nResult: 20\nResult: 30\nResult: 40\n"
+                + "Result: 1\nResult: 2\nResult: 3\nResult: 4");
+    }
+
+    /**
+     * Test if single-use temporaries stay on the operand stack instead of being stored in locals
+     */
+    @Test
+    public void section1_InstSelection_stackTemps() {
+        JasminResult jasminResult = getJasminResult("InstSelection_stack_temps.jmm");
+        var methodCode = CpUtils.getJasminMethod(jasminResult, "compute");
+
+        // Only 'this' and the parameters
+        CpUtils.matches(methodCode, "\\.limit\\s+locals\\s+4\\s");
+        assertFalse("Expected no stores in:\n" + methodCode, methodCode.contains("store"));
+        CpUtils.runJasmin(jasminResult, "Result: 5");
+    }
+
+    /**
+     * Test if the temporaries of an array store stay on the stack, after the array and before the value
+     */
+    @Test
+    public void section1_InstSelection_stackTemps_arrayStore() {
+        JasminResult jasminResult = getJasminResult("InstSelection_stack_temps_array_store.jmm");
+        var methodCode = CpUtils.getJasminMethod(jasminResult, "store");
+
+        // Array, index computed on the stack, value computed on the stack
+        CpUtils.matches(methodCode, "aload_1\\s+iload_2\\s+iconst_1\\s+iadd\\s+iload_3\\s+iload\\s+4\\s+imul\\s+iastore");
+        CpUtils.matches(methodCode, "\\.limit\\s+locals\\s+5\\s");
+        assertFalse("Expected no stores in:\n" + methodCode, methodCode.contains("istore"));
+        CpUtils.runJasmin(jasminResult, "Result: 20");
+    }
+
+    /**
+     * Test if the arguments of invokestatic and invokevirtual are computed on the stack
+     */
+    @Test
+    public void section1_InstSelection_stackTemps_calls() {
+        JasminResult jasminResult = getJasminResult("InstSelection_stack_temps_calls.jmm");
+        var methodCode = CpUtils.getJasminMethod(jasminResult, "calls");
+
+        CpUtils.matches(methodCode, "iload_1\\s+iload_2\\s+imul\\s+invokestatic\\s+ioPlus/printResult");
+        // The object is pushed before the code of the arguments
+        CpUtils.matches(methodCode, "aload_0\\s+iload_1\\s+iload_2\\s+imul\\s+iload_3\\s+iload_1\\s+isub\\s+invokevirtual");
+        CpUtils.matches(methodCode, "\\.limit\\s+locals\\s+4\\s");
+        assertFalse("Expected no stores in:\n" + methodCode, methodCode.contains("store"));
+        CpUtils.runJasmin(jasminResult, "Result: 6\nResult: 11");
+    }
+
+    /**
+     * Test if the operands of branch conditions are computed on the stack, also when compared against zero
+     */
+    @Test
+    public void section1_InstSelection_stackTemps_branch() {
+        JasminResult jasminResult = getJasminResult("InstSelection_stack_temps_branch.jmm");
+        var methodCode = CpUtils.getJasminMethod(jasminResult, "compare");
+
+        CpUtils.matches(methodCode, "iload_1\\s+iload_2\\s+imul\\s+iload_3\\s+if_icmplt");
+        CpUtils.matches(methodCode, "iload_1\\s+iload_2\\s+isub\\s+iflt");
+        // Only the variable 'r' is stored
+        CpUtils.matches(methodCode, "\\.limit\\s+locals\\s+5\\s");
+        assertEquals("Expected a single store in:\n" + methodCode, 1, methodCode.split("store").length - 1);
+        CpUtils.runJasmin(jasminResult, "Result: 11\nResult: 0");
+    }
+
+    /**
+     * Test if a temporary whose use comes after a label is kept in a local, since the label can be reached with
+     * another stack
+     */
+    @Test
+    public void section1_InstSelection_stackTemps_label() {
+        JasminResult jasminResult = getJasminResult("InstSelection_stack_temps_label.jmm");
+        var methodCode = CpUtils.getJasminMethod(jasminResult, "label");
+
+        // a * b is computed before the code of 'p && q', which has labels, and used after it
+        CpUtils.matches(methodCode, "iload_1\\s+iload_2\\s+imul\\s+istore\\s+5");
+        CpUtils.matches(methodCode, "endif0:\\s+iload\\s+5\\s+aload_0");
+        CpUtils.runJasmin(jasminResult, "Result: 7\nResult: 6");
+    }
+
     /**
      * Test if iload_1 is used.
      */
@@ -0,0 +1,178 @@
+package pt.up.fe.comp.cp3;
+
+import org.junit.Test;
+import pt.up.fe.comp.JasminRunner;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.specs.util.SpecsStrings;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JasminRunnerTest {
+
+    private static final String DIVISION_BY_ZERO = """
+            .class DivisionByZero
+            .super java/lang/Object
+
+            .method public static main([Ljava/lang/String;)V
+               .limit stack 2
+               .limit locals 1
+               iconst_1
+               iconst_0
+               idiv
+               invokestatic ioPlus/printResult(I)V
+               return
+            .end method
+            """;
+
+    private static final String PRINT_NUMBERS = """
+            .class PrintNumbers
+            .super java/lang/Object
+
+            .method public static main([Ljava/lang/String;)V
+               .limit stack 2
+               .limit locals 2
+               iconst_0
+               istore_1
+            Loop:
+               iload_1
+               invokestatic io/println(I)V
+               iinc 1 1
+               iload_1
+               sipush 20000
+               if_icmplt Loop
+               return
+            .end method
+            """;
+
+    private static final String READ_NUMBERS = """
+            .class ReadNumbers
+            .super java/lang/Object
+
+            .method public static main([Ljava/lang/String;)V
+               .limit stack 2
+               .limit locals 1
+               invokestatic io/read()I
+               invokestatic io/println(I)V
+               invokestatic io/read()I
+               invokestatic io/println(I)V
+               invokestatic io/read()I
+               invokestatic io/println(I)V
+               invokestatic io/read()I
+               invokestatic io/println(I)V
+               return
+            .end method
+            """;
+
+    @Test
+    public void exception() {
+        var output = JasminRunner.run(new JasminResult(DIVISION_BY_ZERO));
+
+        assertEquals(1, output.getReturnValue());
+        assertTrue(output.getStdErr(),
+                output.getStdErr().startsWith("Exception in thread \"main\" java.lang.ArithmeticException"));
+    }
+
+    /**
+     * Programs running at the same time get only their own output.
+     */
+    @Test
+    public void parallelOutput() {
+        var resource = SpecsIo.getResource("pt/up/fe/comp/cp3/jasmin/control_flow/SimpleWhileStat.jmm");
+        var result = TestUtils.backend(resource);
+
+        var outputs = IntStream.range(0, 16).parallel()
+                .mapToObj(i -> JasminRunner.run(result))
+                .toList();
+
+        for (var output : outputs) {
+            assertEquals(0, output.getReturnValue());
+            assertEquals("Result: 0\nResult: 1\nResult: 2", SpecsStrings.normalizeFileContents(output.getOutput(), true));
+        }
+    }
+
+    /**
+     * Output kept in the buffer of io is written when main returns, also when it exceeded the buffer before.
+     */
+    @Test
+    public void ioOutput() {
+        var output = JasminRunner.run(new JasminResult(PRINT_NUMBERS));
+
+        assertEquals(0, output.getReturnValue());
+
+        var lines = SpecsStrings.normalizeFileContents(output.getOutput(), true).split("\n");
+        assertEquals(20000, lines.length);
+        assertEquals("0", lines[0]);
+        assertEquals("19999", lines[lines.length - 1]);
+    }
+
+    /**
+     * io.read returns the integers of the input in order, skipping empty lines, and 0 at the end of the input.
+     */
+    @Test
+    public void ioInput() {
+        var output = JasminRunner.run(new JasminResult(READ_NUMBERS), List.of(), "12  -3\n\n+7\n");
+
+        assertEquals(0, output.getReturnValue());
+        assertEquals("12\n-3\n7\n0", SpecsStrings.normalizeFileContents(output.getOutput(), true));
+    }
+
+    /**
+     * Bytes above 127 in the input are not integers, like any other character, instead of ending the input.
+     */
+    @Test
+    public void ioNonAsciiInput() {
+        var output = JasminRunner.run(new JasminResult(READ_NUMBERS), List.of(), "1\n\u00e9 2\n");
+
+        assertEquals(1, output.getReturnValue());
+        assertEquals("1", SpecsStrings.normalizeFileContents(output.getStdOut(), true));
+        assertTrue(output.getStdErr(), output.getStdErr().contains("java.lang.NumberFormatException"));
+    }
+
+    /**
+     * With the property set by the runner, io does not register a shutdown hook, so each copy of the class and its
+     * class loader can be collected after the program.
+     */
+    @Test
+    public void ioWithoutShutdownHook() throws Exception {
+        System.setProperty("jmm.io.flushOnExit", "false");
+
+        var loader = new WeakReference<>(printWithNewLoader());
+
+        for (int i = 0; i < 20 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        assertNull("Expected the class loader of io to be collected", loader.get());
+    }
+
+    private static ClassLoader printWithNewLoader() throws Exception {
+        var url = new File(TestUtils.getLibsClasspath()).toURI().toURL();
+
+        try (var loader = new URLClassLoader(new URL[]{url}, ClassLoader.getPlatformClassLoader())) {
+            var io = loader.loadClass("io");
+
+            var println = io.getDeclaredMethod("println", String.class);
+            println.setAccessible(true);
+            println.invoke(null, "");
+
+            // The output is written here, as the runner does
+            var flush = io.getDeclaredMethod("flush");
+            flush.setAccessible(true);
+            flush.invoke(null);
+
+            return loader;
+        }
+    }
+}
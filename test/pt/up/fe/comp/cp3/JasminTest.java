@@ -14,17 +14,13 @@
 package pt.up.fe.comp.cp3;
 
 import org.junit.Test;
+import pt.up.fe.comp.CompilationCache;
 import pt.up.fe.comp.CpUtils;
-import pt.up.fe.comp.TestUtils;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
-import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.specs.util.SpecsCheck;
-import pt.up.fe.specs.util.SpecsIo;
 import pt.up.fe.specs.util.SpecsStrings;
 import utils.ProjectTestUtils;
 
-import java.util.Collections;
-
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -37,20 +33,14 @@ public class JasminTest {
 
         SpecsCheck.checkArgument(resource.endsWith(".ollir"), () -> "Expected resource to end with .ollir: " + resource);
 
-        var ollirResult = new OllirResult(SpecsIo.getResource(resource), Collections.emptyMap());
-
-        var result = TestUtils.backend(ollirResult);
-
-        return result;
+        return CompilationCache.backendOllir(resource);
 
     }
 
     public static void testOllirToJasmin(String resource, String expectedOutput) {
         SpecsCheck.checkArgument(resource.endsWith(".ollir"), () -> "Expected resource to end with .ollir: " + resource);
 
-        var ollirResult = new OllirResult(SpecsIo.getResource(resource), Collections.emptyMap());
-
-        var result = TestUtils.backend(ollirResult);
+        var result = CompilationCache.backendOllir(resource);
 
         ProjectTestUtils.runJasmin(result, null);
     }